@@ -90,7 +90,7 @@ public class BigintToTimestamp implements CustomProcedure {
         if (inputValues.length != 1)
             throw new CustomProcedureException ("Exactly one input value is required.");
         
-        result = new Timestamp ((Long) inputValues[0]);
+        result = (inputValues[0] == null) ? null : DateUtil.epochMillisToTimestamp (((Long) inputValues[0]).longValue());
     }
 
 
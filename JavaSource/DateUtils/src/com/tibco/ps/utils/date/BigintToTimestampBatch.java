@@ -0,0 +1,187 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	Description:
+	  Converts a column of BIGINT epoch values to TIMESTAMP's. This is the batch form of BigintToTimestamp:
+	  the query is executed once and its rows are converted one at a time as the output cursor is read,
+	  so whole columns (e.g. epoch based event feeds) can be converted without invoking a CJP per row.
+
+	  The unit of the epoch values may be given explicitly or detected from the magnitude of the first
+	  non-NULL value of the batch (see DateUtil.detectEpochUnit.) Sub-millisecond precision is kept in
+	  the TIMESTAMP's nanos.
+
+
+	Inputs:
+	  query_string - The query returning the BIGINT epoch values in its first column.
+	    values: Any valid CIS query.
+
+	  unit         - The unit of the epoch values.
+	    values: 's', 'ms', 'us', 'ns' (or the equivalent datePart names), 'auto' or NULL (defaults to 'auto'.)
+
+
+	Outputs:
+	  result (
+	    inBigint   BIGINT    - The epoch value read from the query.
+	    result     TIMESTAMP - The converted value. NULL when inBigint is NULL.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when the query fails or an unknown unit is passed.
+
+*/
+
+import com.compositesw.extension.*;
+import com.compositesw.common.logging.Logger;
+import java.sql.*;
+import java.time.temporal.ChronoUnit;
+
+public class BigintToTimestampBatch
+    extends DateUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "BigintToTimestampBatch";
+        logger = Logger.getLogger(BigintToTimestampBatch.class.getName());
+    }
+
+    private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+        new ParameterInfo("inBigint", Types.BIGINT,    DIRECTION_OUT),
+        new ParameterInfo("result",   Types.TIMESTAMP, DIRECTION_OUT)
+    };
+
+    private ConversionCursor outputCursor = null;
+
+    public BigintToTimestampBatch() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("unit",         Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("result",       TYPED_CURSOR,  DIRECTION_OUT, OUTPUT_CURSOR)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+        }
+
+        if (inputValues[0] == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter query_string must be provided.");
+        }
+
+        // a NULL unit means the unit is detected from the first non-NULL value.
+        //
+        ChronoUnit unit = null;
+        String unitName = (String) inputValues[1];
+        if (unitName != null && !unitName.trim().equalsIgnoreCase("auto")) {
+            unit = DateUtil.getEpochUnit(unitName);
+            if (unit == null) {
+                throw new CustomProcedureException("unit must be one of 's', 'ms', 'us', 'ns' or 'auto': " + unitName);
+            }
+        }
+
+        outputCursor = new ConversionCursor(qenv.executeQuery(((String) inputValues[0]).trim(), null), unit);
+    }
+
+    public Object[] getOutputValues()
+    {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outputCursor };
+    }
+
+    public void close() throws SQLException {
+        super.close();
+
+        if (outputCursor != null) {
+            outputCursor.close();
+        }
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Converts a query's column of BIGINT epoch values (s, ms, us or ns) to TIMESTAMP's.";
+    }
+
+    private static class ConversionCursor implements CustomCursor {
+        private final ResultSet rs;
+        private ChronoUnit unit;
+        private boolean closed = false;
+
+        ConversionCursor(ResultSet rs, ChronoUnit unit) {
+            this.rs = rs;
+            this.unit = unit;
+        }
+
+        public ParameterInfo[] getColumnInfo() {
+            return OUTPUT_CURSOR;
+        }
+
+        public Object[] next() throws CustomProcedureException, SQLException {
+            if (closed) {
+                return null;
+            }
+
+            if (!rs.next()) {
+                close();
+                return null;
+            }
+
+            long value = rs.getLong(1);
+            if (rs.wasNull()) {
+                return new Object[] { null, null };
+            }
+
+            if (unit == null) {
+                unit = DateUtil.detectEpochUnit(value);
+                if (logger.isDebug()) {
+                    logger.debug(className + ": detected epoch unit " + unit + " from value " + value);
+                }
+            }
+
+            try {
+                return new Object[] { Long.valueOf(value), DateUtil.epochToTimestamp(value, unit) };
+            } catch (ArithmeticException ae) {
+                throw new CustomProcedureException("Epoch value " + value + " (" + unit + ") is out of the TIMESTAMP range.");
+            }
+        }
+
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                rs.close();
+            }
+        }
+    }
+}
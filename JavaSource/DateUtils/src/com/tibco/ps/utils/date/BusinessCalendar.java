@@ -0,0 +1,164 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  An immutable working day calendar used by the BusinessDay* CJP's.
+
+	  Every day between MIN_DATE and MAX_DATE is represented by one bit (set for a working day,
+	  clear for a weekend day or holiday.) Two arrays are precomputed from the bits when the
+	  calendar is built:
+
+	    workingDaysThrough[i] - the number of working days from MIN_DATE through day i (inclusive.)
+	    workingDayOffsets[k]  - the day offset (from MIN_DATE) of the k'th working day.
+
+	  With these, counting the working days between two dates and finding the n'th working day
+	  before or after a date are both a couple of array lookups regardless of the distance
+	  between the dates.
+
+	  Saturday and Sunday are weekend days. Holidays falling on a weekend have no additional effect.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  IllegalArgumentException - Thrown when a date outside of MIN_DATE and MAX_DATE is used.
+
+*/
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+
+public class BusinessCalendar {
+
+    public static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(2099, 12, 31);
+
+    private static final long MIN_EPOCH_DAY = MIN_DATE.toEpochDay();
+    private static final int NUM_DAYS = (int) (MAX_DATE.toEpochDay() - MIN_EPOCH_DAY + 1);
+
+    private final BitSet workingDays;
+    private final int[] workingDaysThrough;
+    private final int[] workingDayOffsets;
+    private final int holidayCount;
+
+    /**
+     * Builds a calendar from a collection of holidays. Holidays outside of MIN_DATE and MAX_DATE are ignored.
+     */
+    public BusinessCalendar(Collection<LocalDate> holidays) {
+        workingDays = new BitSet(NUM_DAYS);
+
+        // mark Monday through Friday as working days. MIN_DATE is a Monday but don't depend on it.
+        //
+        int firstDow = MIN_DATE.getDayOfWeek().getValue() - 1; // 0 = Monday .. 6 = Sunday
+        for (int i = 0; i < NUM_DAYS; i++) {
+            if ((firstDow + i) % 7 < 5) {
+                workingDays.set(i);
+            }
+        }
+
+        int count = 0;
+        for (LocalDate holiday : holidays) {
+            long offset = holiday.toEpochDay() - MIN_EPOCH_DAY;
+            if (offset >= 0 && offset < NUM_DAYS && workingDays.get((int) offset)) {
+                workingDays.clear((int) offset);
+                count++;
+            }
+        }
+        holidayCount = count;
+
+        workingDaysThrough = new int[NUM_DAYS];
+        workingDayOffsets = new int[workingDays.cardinality()];
+
+        int n = 0;
+        for (int i = 0; i < NUM_DAYS; i++) {
+            if (workingDays.get(i)) {
+                workingDayOffsets[n++] = i;
+            }
+            workingDaysThrough[i] = n;
+        }
+    }
+
+    /**
+     * Returns the number of weekday holidays in the calendar.
+     */
+    public int getHolidayCount() {
+        return holidayCount;
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return workingDays.get(toOffset(date));
+    }
+
+    /**
+     * Returns the number of working days after startDate up to and including endDate. When endDate
+     * occurs before startDate the result is the negated number of working days after endDate up to
+     * and including startDate.
+     */
+    public int workingDaysBetween(LocalDate startDate, LocalDate endDate) {
+        return workingDaysThrough[toOffset(endDate)] - workingDaysThrough[toOffset(startDate)];
+    }
+
+    /**
+     * Returns the n'th working day after startDate (n > 0), before startDate (n < 0) or startDate itself (n = 0.)
+     */
+    public LocalDate addWorkingDays(LocalDate startDate, int n) {
+        if (n == 0) {
+            return startDate;
+        }
+
+        int offset = toOffset(startDate);
+        int through = workingDaysThrough[offset];
+
+        // index into workingDayOffsets of the target working day. "through" working days fall on or
+        // before startDate, so the first one after it is at index "through" and the first one before it
+        // is at "through - 1" (or "through - 2" when startDate is itself a working day.)
+        //
+        long index;
+        if (n > 0) {
+            index = (long) through + n - 1;
+        } else {
+            index = (long) through + n - (workingDays.get(offset) ? 1 : 0);
+        }
+
+        if (index < 0 || index >= workingDayOffsets.length) {
+            throw new IllegalArgumentException("Adding " + n + " working days to " + startDate + " falls outside of the supported date range "
+                + MIN_DATE + " to " + MAX_DATE);
+        }
+
+        return LocalDate.ofEpochDay(MIN_EPOCH_DAY + workingDayOffsets[(int) index]);
+    }
+
+    private static int toOffset(LocalDate date) {
+        long offset = date.toEpochDay() - MIN_EPOCH_DAY;
+
+        if (offset < 0 || offset >= NUM_DAYS) {
+            throw new IllegalArgumentException("Date " + date + " is outside of the supported date range " + MIN_DATE + " to " + MAX_DATE);
+        }
+
+        return (int) offset;
+    }
+}
@@ -0,0 +1,226 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  This factory class builds and caches the BusinessCalendar's used by the BusinessDay* CJP's so
+	  that a holiday list is only read once and not once per row.
+
+	  A calendar is identified by its source, which is either:
+
+	    - A CIS query returning the holiday dates in its first column (any source beginning with
+	      "SELECT" or "WITH".) e.g. SELECT holiday_date FROM /shared/reference/holidays WHERE region = 'US'
+
+	    - The path of a text file on the CIS server containing one holiday per line in yyyy-MM-dd
+	      format. Blank lines and lines starting with '#' are ignored, as is anything following
+	      the date on a line (so "2024-12-25,Christmas Day" is accepted.)
+
+	  File based calendars are rebuilt when the file's last modified time changes (checked at most
+	  once every CHECK_INTERVAL_MILLIS.) Query based calendars are rebuilt once they are older
+	  than QUERY_REFRESH_MILLIS. A failed reload leaves the previously loaded calendar in place.
+
+	  A query runs with the privileges of the calling user, so query based calendars are cached per
+	  user (domain and user name) and one user's calendar is never served to another user, who may
+	  not be allowed to read the holiday table. When the caller's user can't be determined the query
+	  is run on every call and its calendar isn't cached.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+*/
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.ExecutionEnvironment;
+
+public class BusinessCalendarFactory {
+
+    // how often a file based calendar's file is checked for changes.
+    //
+    protected static final long CHECK_INTERVAL_MILLIS = 10 * 1000L;
+
+    // how long a query based calendar is used before the query is run again.
+    //
+    protected static final long QUERY_REFRESH_MILLIS = 15 * 60 * 1000L;
+
+    private static final ConcurrentHashMap<String, CalendarEntry> calendars = new ConcurrentHashMap<String, CalendarEntry>();
+    private static final Logger logger = Logger.getLogger(BusinessCalendarFactory.class.getName());
+
+    private BusinessCalendarFactory() {}
+
+    /**
+     * Returns the calendar for a source, loading (or reloading) it if required.
+     */
+    public static BusinessCalendar getCalendar(ExecutionEnvironment qenv, String source) throws Exception {
+        String key = source.trim();
+        String query = null;
+        if (isQuery(key)) {
+            query = key;
+            String user = getUser(qenv);
+            if (user == null) {
+                return loadFromQuery(qenv, query);
+            }
+            key = user + "\n" + query;
+        }
+        CalendarEntry entry = calendars.get(key);
+        long now = System.currentTimeMillis();
+
+        // fast path: a calendar that was loaded or checked recently enough is used as is.
+        //
+        if (entry != null && now < entry.nextCheck) {
+            return entry.calendar;
+        }
+
+        synchronized (BusinessCalendarFactory.class) {
+            entry = calendars.get(key);
+            if (entry != null && now < entry.nextCheck) {
+                return entry.calendar;
+            }
+
+            try {
+                if (query != null) {
+                    entry = new CalendarEntry(loadFromQuery(qenv, query), 0, now + QUERY_REFRESH_MILLIS);
+                } else {
+                    File file = new File(key);
+                    long lastModified = file.lastModified();
+
+                    if (entry != null && lastModified == entry.lastModified) {
+                        entry = new CalendarEntry(entry.calendar, lastModified, now + CHECK_INTERVAL_MILLIS);
+                    } else {
+                        entry = new CalendarEntry(loadFromFile(file), lastModified, now + CHECK_INTERVAL_MILLIS);
+                    }
+                }
+            } catch (Exception e) {
+                if (entry == null) {
+                    throw e;
+                }
+
+                logger.info("Unable to reload business calendar \"" + (query != null ? query : key) + "\". Will continue using the previously loaded calendar: " + e.getMessage());
+                entry = new CalendarEntry(entry.calendar, entry.lastModified, now + CHECK_INTERVAL_MILLIS);
+            }
+
+            calendars.put(key, entry);
+            return entry.calendar;
+        }
+    }
+
+    /**
+     * Returns the domain and name of the user calling the CJP, or null if they aren't known.
+     */
+    private static String getUser(ExecutionEnvironment qenv) {
+        Object user = (qenv != null) ? qenv.getProperty("USER_NAME") : null;
+        if (user == null) {
+            return null;
+        }
+        Object domain = qenv.getProperty("USER_DOMAIN");
+        return ((domain != null) ? domain.toString() : "") + "/" + user.toString();
+    }
+
+    private static boolean isQuery(String source) {
+        String s = source.toUpperCase();
+        return s.startsWith("SELECT") || s.startsWith("WITH");
+    }
+
+    private static BusinessCalendar loadFromQuery(ExecutionEnvironment qenv, String query) throws Exception {
+        List<LocalDate> holidays = new ArrayList<LocalDate>();
+        ResultSet rs = null;
+
+        try {
+            rs = qenv.executeQuery(query, null);
+            while (rs.next()) {
+                java.util.Date d = rs.getDate(1);
+                if (d != null) {
+                    holidays.add(DateUtil.toLocalDate(d));
+                }
+            }
+        } finally {
+            if (rs != null) {
+                rs.close();
+            }
+        }
+
+        if (logger.isDebug()) {
+            logger.debug("Loaded " + holidays.size() + " holidays from query: " + query);
+        }
+
+        return new BusinessCalendar(holidays);
+    }
+
+    private static BusinessCalendar loadFromFile(File file) throws Exception {
+        List<LocalDate> holidays = new ArrayList<LocalDate>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+
+                if (line.length() < 10) {
+                    throw new IllegalArgumentException("Invalid holiday on line " + lineNumber + " of \"" + file.getPath() + "\": " + line);
+                }
+
+                holidays.add(LocalDate.parse(line.substring(0, 10)));
+            }
+        } finally {
+            reader.close();
+        }
+
+        if (logger.isDebug()) {
+            logger.debug("Loaded " + holidays.size() + " holidays from file: " + file.getPath());
+        }
+
+        return new BusinessCalendar(holidays);
+    }
+
+    private static class CalendarEntry {
+        final BusinessCalendar calendar;
+        final long lastModified;
+        final long nextCheck;
+
+        CalendarEntry(BusinessCalendar calendar, long lastModified, long nextCheck) {
+            this.calendar = calendar;
+            this.lastModified = lastModified;
+            this.nextCheck = nextCheck;
+        }
+    }
+}
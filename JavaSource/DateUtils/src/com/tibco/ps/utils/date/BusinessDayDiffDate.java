@@ -0,0 +1,121 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	Description:
+	  Calculates the number of business days between two DATE values. Business days are Monday through
+	  Friday excluding the holidays of the specified holiday calendar. The calendar is loaded once and
+	  cached (see BusinessCalendarFactory) so each invocation is a constant time lookup.
+	
+	
+	Inputs:
+	  holidayCalendar - The source of the holiday dates.
+	    values: A CIS query returning holiday dates in its first column (e.g. 'SELECT holiday_date FROM /shared/holidays')
+	            or the path of a file on the CIS server containing one yyyy-MM-dd holiday per line.
+	            A query runs as the calling user and its calendar is cached per user.
+	
+	  startDate  - The starting date.
+	    values: Any valid date value between 1900-01-01 and 2099-12-31.
+	
+	  endDate    - The ending date.
+	    values: Any valid date value between 1900-01-01 and 2099-12-31.
+	
+	
+	Outputs:
+	  dateLength - The number of business days after the start date up to and including the end date.
+	    values: An integer. NULL if any of the inputs are NULL. Negative if the end date occurs before
+	            the start date.
+	
+	
+	Exceptions:
+	  CustomProcedureException - Thrown when the holiday calendar cannot be loaded or a date is out of range.
+	
+*/
+
+import com.compositesw.extension.*;
+import com.compositesw.common.logging.Logger;
+import java.sql.*;
+
+public class BusinessDayDiffDate
+    extends DateUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "BusinessDayDiffDate";
+        logger = Logger.getLogger(BusinessDayDiffDate.class.getName());
+    }
+
+    private Integer dateLength = null;
+
+    public BusinessDayDiffDate() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("holidayCalendar", Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("startDate",       Types.DATE,    DIRECTION_IN),
+            new ParameterInfo("endDate",         Types.DATE,    DIRECTION_IN),
+            new ParameterInfo("dateLength",      Types.INTEGER, DIRECTION_OUT)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+        }
+
+        dateLength = null;
+        if (inputValues[0] == null || inputValues[1] == null || inputValues[2] == null) {
+            return;
+        }
+
+        try {
+            BusinessCalendar calendar = BusinessCalendarFactory.getCalendar(qenv, (String) inputValues[0]);
+
+            dateLength = new Integer(calendar.workingDaysBetween(
+                DateUtil.toLocalDate((java.util.Date) inputValues[1]),
+                DateUtil.toLocalDate((java.util.Date) inputValues[2])));
+        } catch (Throwable t) {
+            throw new CustomProcedureException(t);
+        }
+    }
+
+    public Object[] getOutputValues()
+    {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { dateLength };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Calculates the number of business days between two dates using a cached holiday calendar.";
+    }
+}
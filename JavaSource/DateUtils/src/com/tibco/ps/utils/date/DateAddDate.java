@@ -26,7 +26,8 @@ package com.tibco.ps.utils.date;
 	
 	Inputs:
 	  datePart   - Unit of measure for the output "dateLength".
-	    values: 'second', 'minute', 'hour',  'day', 'week', 'month' and 'year' (not case sensitive)
+	    values: 'nanosecond', 'microsecond', 'millisecond', 'second', 'minute', 'hour',  'day', 'week', 'month' and 'year' (not case sensitive)
+	            or the abbreviations 'ns', 'mcs', 'ms', 'ss', 'mi', 'hh', 'dd', 'wk', 'mm' and 'yy'
 	
 	  dateLength - The number of dateParts to add
 	    values: 
@@ -40,7 +41,7 @@ package com.tibco.ps.utils.date;
 	            to the start date.
 	
 	Exceptions:
-	  None
+	  CustomProcedureException - Thrown when an unknown datePart is passed.
 	
 	
 	Author:      Jerry Joplin
@@ -49,8 +50,8 @@ package com.tibco.ps.utils.date;
 	
 */
 
-import org.joda.time.DateTime;
-import java.util.Calendar;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import com.compositesw.extension.*;
 import java.sql.*;
 
@@ -95,10 +96,9 @@ public class DateAddDate implements CustomProcedure {
     @Override
 	public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException
     {
-        java.util.Date startDate = null;
-        Calendar startCal = null;
-        DateTime startDateTime = null;
-        DateTime endDateTime = null;
+        ZonedDateTime startDateTime = null;
+        ZonedDateTime endDateTime = null;
+        ChronoUnit unit = null;
         String datePart = null;
         int dateLength = 0;
 
@@ -113,51 +113,16 @@ public class DateAddDate implements CustomProcedure {
             datePart = (String)inputValues[0];
             dateLength = (Integer)inputValues[1];
 
-            startDate = (java.util.Date)inputValues[2];
-            startCal = Calendar.getInstance();
-            startCal.setTime(startDate);
-            startDateTime = new DateTime(
-            		startCal.get(Calendar.YEAR), 
-            		startCal.get(Calendar.MONTH)+1, 
-            		startCal.get(Calendar.DAY_OF_MONTH), 
-            		0, 0, 0, 0);
-            
-            if(datePart.equalsIgnoreCase("second"))
+            unit = DateUtil.getDatePart(datePart);
+            if(unit == null)
             {
-            	endDateTime = startDateTime.plusSeconds(dateLength);
+                throw new IllegalArgumentException(datePart);
             }
 
-            if(datePart.equalsIgnoreCase("minute"))
-            {
-            	endDateTime = startDateTime.plusMinutes(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("hour"))
-            {
-            	endDateTime = startDateTime.plusHours(dateLength);
-            }
+            startDateTime = DateUtil.toZonedDate((java.util.Date)inputValues[2]);
+            endDateTime = DateUtil.add(startDateTime, unit, dateLength);
 
-            if(datePart.equalsIgnoreCase("day"))
-            {
-            	endDateTime = startDateTime.plusDays(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("week"))
-            {
-            	endDateTime = startDateTime.plusWeeks(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("month"))
-            {
-            	endDateTime = startDateTime.plusMonths(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("year"))
-            {
-            	endDateTime = startDateTime.plusYears(dateLength);
-            }
-            
-            result = new java.sql.Date(endDateTime.getMillis());
+            result = DateUtil.toSqlDate(endDateTime);
         }
         catch(Throwable t)
         {
@@ -27,7 +27,8 @@ package com.tibco.ps.utils.date;
 	
 	Inputs:
 	  datePart   - Unit of measure for the output "dateLength".
-	    values: 'second', 'minute', 'hour',  'day', 'week', 'month' and 'year' (not case sensitive)
+	    values: 'nanosecond', 'microsecond', 'millisecond', 'second', 'minute', 'hour',  'day', 'week', 'month' and 'year' (not case sensitive)
+	            or the abbreviations 'ns', 'mcs', 'ms', 'ss', 'mi', 'hh', 'dd', 'wk', 'mm' and 'yy'
 	
 	  dateLength - The number of dateParts to add
 	    values: 
@@ -41,7 +42,7 @@ package com.tibco.ps.utils.date;
 	            to the start timestamp.
 	
 	Exceptions:
-	  None
+	  CustomProcedureException - Thrown when an unknown datePart is passed.
 	
 	
 	Author:      Jerry Joplin
@@ -50,8 +51,8 @@ package com.tibco.ps.utils.date;
 	
 */
 
-import org.joda.time.DateTime;
-import java.util.Calendar;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import com.compositesw.extension.*;
 import java.sql.*;
 
@@ -96,10 +97,9 @@ public class DateAddTimestamp implements CustomProcedure {
     @Override
 	public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException
     {
-        Timestamp startDate = null;
-        Calendar startCal = null;
-        DateTime startDateTime = null;
-        DateTime endDateTime = null;
+        ZonedDateTime startDateTime = null;
+        ZonedDateTime endDateTime = null;
+        ChronoUnit unit = null;
         String datePart = null;
         int dateLength = 0;
 
@@ -114,54 +114,16 @@ public class DateAddTimestamp implements CustomProcedure {
             datePart = (String)inputValues[0];
             dateLength = (Integer)inputValues[1];
 
-            startDate = (Timestamp)inputValues[2];
-            startCal = Calendar.getInstance();
-            startCal.setTime(startDate);
-            startDateTime = new DateTime(
-            		startCal.get(Calendar.YEAR),
-            		startCal.get(Calendar.MONTH)+1, 
-            		startCal.get(Calendar.DAY_OF_MONTH), 
-                startCal.get(Calendar.HOUR_OF_DAY), 
-            		startCal.get(Calendar.MINUTE), 
-            		startCal.get(Calendar.SECOND), 
-            		startCal.get(Calendar.MILLISECOND));
-            
-            if(datePart.equalsIgnoreCase("second"))
+            unit = DateUtil.getDatePart(datePart);
+            if(unit == null)
             {
-            	endDateTime = startDateTime.plusSeconds(dateLength);
+                throw new IllegalArgumentException(datePart);
             }
 
-            if(datePart.equalsIgnoreCase("minute"))
-            {
-            	endDateTime = startDateTime.plusMinutes(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("hour"))
-            {
-            	endDateTime = startDateTime.plusHours(dateLength);
-            }
-
-            if(datePart.equalsIgnoreCase("day"))
-            {
-            	endDateTime = startDateTime.plusDays(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("week"))
-            {
-            	endDateTime = startDateTime.plusWeeks(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("month"))
-            {
-            	endDateTime = startDateTime.plusMonths(dateLength);
-            }
-    
-            if(datePart.equalsIgnoreCase("year"))
-            {
-            	endDateTime = startDateTime.plusYears(dateLength);
-            }
+            startDateTime = DateUtil.toZonedDateTime((Timestamp)inputValues[2]);
+            endDateTime = DateUtil.add(startDateTime, unit, dateLength);
 
-            result = new Timestamp(endDateTime.toDate().getTime());
+            result = DateUtil.toTimestamp(endDateTime);
         }
         catch(Throwable t)
         {
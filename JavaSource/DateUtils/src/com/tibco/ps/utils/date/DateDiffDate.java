@@ -28,6 +28,7 @@ package com.tibco.ps.utils.date;
 	Inputs:
 	  datePart   - Unit of measure for the output "dateLength".
 	    values: 'second', 'minute', 'hour',  'day', 'week', 'month' and 'year' (not case sensitive)
+	            or the abbreviations 'ss', 'mi', 'hh', 'dd', 'wk', 'mm' and 'yy'
 	
 	  startDate  - The starting date.
 	    values: Any valid date value.
@@ -52,15 +53,8 @@ package com.tibco.ps.utils.date;
 	
 */
 
-import org.joda.time.DateTime;
-import org.joda.time.Seconds;
-import org.joda.time.Minutes;
-import org.joda.time.Hours;
-import org.joda.time.Days;
-import org.joda.time.Weeks;
-import org.joda.time.Months;
-import org.joda.time.Years;
-import java.util.Calendar;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import com.compositesw.extension.*;
 import java.sql.*;
 
@@ -102,12 +96,9 @@ public class DateDiffDate implements CustomProcedure {
      */
     public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException
     {
-        java.util.Date startDate = null;
-        java.util.Date endDate = null;
-        Calendar startCal = null;
-        Calendar endCal = null;
-        DateTime startDateTime = null;
-        DateTime endDateTime = null;
+        ZonedDateTime startDateTime = null;
+        ZonedDateTime endDateTime = null;
+        ChronoUnit unit = null;
         String datePart = null;
         long dateLength = 0;
 
@@ -133,60 +124,16 @@ public class DateDiffDate implements CustomProcedure {
             }
 
             datePart = (String)inputValues[0];
-            startDate = (java.util.Date)inputValues[1];
-            startCal = Calendar.getInstance();
-            startCal.setTime(startDate);
+            unit = DateUtil.getDatePart(datePart);
 
-            endDate = (java.util.Date)inputValues[2];
-            endCal = Calendar.getInstance();
-            endCal.setTime(endDate);
-
-            startDateTime = new DateTime(startCal.get(Calendar.YEAR), startCal.get(Calendar.MONTH)+1, startCal.get(Calendar.DAY_OF_MONTH), 0, 0, 0, 0);
-            endDateTime = new DateTime(endCal.get(Calendar.YEAR), endCal.get(Calendar.MONTH)+1, endCal.get(Calendar.DAY_OF_MONTH), 0, 0, 0, 0);
-
-
-            if(datePart.equalsIgnoreCase("second"))
+            if(unit != null)
             {
-                Seconds seconds = Seconds.secondsBetween(startDateTime, endDateTime);
-                dateLength = seconds.getSeconds();
-            }
+                startDateTime = DateUtil.toZonedDate((java.util.Date)inputValues[1]);
+                endDateTime = DateUtil.toZonedDate((java.util.Date)inputValues[2]);
 
-            if(datePart.equalsIgnoreCase("minute"))
-            {
-                Minutes minutes = Minutes.minutesBetween(startDateTime, endDateTime);
-                dateLength = minutes.getMinutes();
-            }
-    
-            if(datePart.equalsIgnoreCase("hour"))
-            {
-                Hours hours = Hours.hoursBetween(startDateTime, endDateTime);
-                dateLength = hours.getHours();
+                dateLength = DateUtil.between(startDateTime, endDateTime, unit);
             }
 
-            if(datePart.equalsIgnoreCase("day"))
-            {
-                Days days = Days.daysBetween(startDateTime, endDateTime);
-                dateLength = days.getDays();
-            }
-    
-            if(datePart.equalsIgnoreCase("week"))
-            {
-                Weeks weeks = Weeks.weeksBetween(startDateTime, endDateTime);
-                dateLength = weeks.getWeeks();
-            }
-    
-            if(datePart.equalsIgnoreCase("month"))
-            {
-                Months months = Months.monthsBetween(startDateTime, endDateTime);
-                dateLength = months.getMonths();
-            }
-    
-            if(datePart.equalsIgnoreCase("year"))
-            {
-                Years years = Years.yearsBetween(startDateTime, endDateTime);
-                dateLength = years.getYears();
-            }
-    
             result = new Long(dateLength);
         }
         catch(Throwable t)
@@ -196,7 +143,6 @@ public class DateDiffDate implements CustomProcedure {
     }
 
 
-
     /**
      * Called to retrieve the number of rows that were inserted,
      * updated, or deleted during the execution of the procedure. A
@@ -57,16 +57,8 @@ package com.tibco.ps.utils.date;
 	
 */
 
-import org.joda.time.DateTime;
-import org.joda.time.Seconds;
-import org.joda.time.Minutes;
-import org.joda.time.Hours;
-import org.joda.time.Days;
-import org.joda.time.Weeks;
-import org.joda.time.Months;
-import org.joda.time.Years;
-import org.joda.time.Interval;
-import java.util.Calendar;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import com.compositesw.extension.*;
 import java.sql.*;
 
@@ -109,10 +101,9 @@ public class DateDiffTimestamp implements CustomProcedure {
 	public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException {
 		Timestamp startTimestamp = null;
 		Timestamp endTimestamp = null;
-		Calendar startCal = null;
-		Calendar endCal = null;
-		DateTime startDateTime = null;
-		DateTime endDateTime = null;
+		ZonedDateTime startDateTime = null;
+		ZonedDateTime endDateTime = null;
+		ChronoUnit unit = null;
 		String datePart = null;
 		long dateLength = 0;
 
@@ -134,79 +125,27 @@ public class DateDiffTimestamp implements CustomProcedure {
 			}
 
 			datePart = (String) inputValues[0];
-			startTimestamp = (Timestamp) inputValues[1];
-			// long startMilliseconds = startTimestamp.getTime() +
-			// (startTimestamp.getNanos() / 1000000);
-			long startMilliseconds = startTimestamp.getTime()
-					+ (startTimestamp.getNanos() % 1000000L >= 500000L ? 1 : 0);
-			startCal = Calendar.getInstance();
-			startCal.setTimeInMillis(startMilliseconds);
+			unit = DateUtil.getDatePart(datePart);
+			if (unit == null) {
+				throw new IllegalArgumentException(datePart);
+			}
 
+			startTimestamp = (Timestamp) inputValues[1];
 			endTimestamp = (Timestamp) inputValues[2];
-			// long endMilliseconds = endTimestamp.getTime() +
-			// (endTimestamp.getNanos() / 1000000);
-			long endMilliseconds = endTimestamp.getTime()
-					+ (endTimestamp.getNanos() % 1000000L >= 500000L ? 1 : 0);
-
-			endCal = Calendar.getInstance();
-			endCal.setTimeInMillis(endMilliseconds);
-
-			startDateTime = new DateTime(startCal.get(Calendar.YEAR), 
-                                   startCal.get(Calendar.MONTH) + 1, 
-                                   startCal.get(Calendar.DAY_OF_MONTH), 
-                                   startCal.get(Calendar.HOUR_OF_DAY), 
-                                   startCal.get(Calendar.MINUTE),
-					                         startCal.get(Calendar.SECOND), 
-                                   startCal.get(Calendar.MILLISECOND)
-                                  );
-			endDateTime = new DateTime(endCal.get(Calendar.YEAR), 
-                                 endCal.get(Calendar.MONTH) + 1,
-                                 endCal.get(Calendar.DAY_OF_MONTH), 
-                                 endCal.get(Calendar.HOUR_OF_DAY), 
-                                 endCal.get(Calendar.MINUTE), 
-                                 endCal.get(Calendar.SECOND),
-                                 endCal.get(Calendar.MILLISECOND)
-                                );
-
-			Interval interval = new Interval(startDateTime, endDateTime);
-
-			if (datePart.equalsIgnoreCase("second") || datePart.equalsIgnoreCase("ss")) {
-				Seconds seconds = Seconds.secondsIn(interval);
-				dateLength = seconds.getSeconds();
-			} else if (datePart.equalsIgnoreCase("minute") || datePart.equalsIgnoreCase("mi")) {
-				Minutes minutes = Minutes.minutesIn(interval);
-				dateLength = minutes.getMinutes();
-			} else if (datePart.equalsIgnoreCase("hour") || datePart.equalsIgnoreCase("hh")) {
-				Hours hours = Hours.hoursIn(interval);
-				dateLength = hours.getHours();
-			} else if (datePart.equalsIgnoreCase("day") || datePart.equalsIgnoreCase("dd")) {
-				Days days = Days.daysIn(interval);
-				dateLength = days.getDays();
-			} else if (datePart.equalsIgnoreCase("week") || datePart.equalsIgnoreCase("wk")) {
-				Weeks weeks = Weeks.weeksIn(interval);
-				dateLength = weeks.getWeeks();
-			} else if (datePart.equalsIgnoreCase("month") || datePart.equalsIgnoreCase("mm")) {
-				Months months = Months.monthsIn(interval);
-				dateLength = months.getMonths();
-			} else if (datePart.equalsIgnoreCase("year") || datePart.equalsIgnoreCase("yy")) {
-				Years years = Years.yearsIn(interval);
-				dateLength = years.getYears();
-			} else if (datePart.equalsIgnoreCase("millisecond") || datePart.equalsIgnoreCase("ms")) {
-				dateLength = 
-					(endTimestamp.getTime() - startTimestamp.getTime()) ;			// millis
-			} else if (datePart.equalsIgnoreCase("microsecond") || datePart.equalsIgnoreCase("mcs")) {
-				dateLength = 
-					((endTimestamp.getTime() - startTimestamp.getTime())/1000)		// seconds
-            * 1000000L 															// micros
-          + (endTimestamp.getNanos() - startTimestamp.getNanos())/1000 ; 		// nanos/1000
-			} else if (datePart.equalsIgnoreCase("nanosecond") || datePart.equalsIgnoreCase("ns")) {
-				dateLength = 
-					((endTimestamp.getTime() - startTimestamp.getTime())/1000)		// seconds
-            * 1000000000L 														// nanos
-          + (endTimestamp.getNanos() - startTimestamp.getNanos()) ;			// nanos
-			} 
-			else {
-				throw new IllegalArgumentException(datePart);
+
+			switch (unit) {
+			case NANOS:
+			case MICROS:
+			case MILLIS:
+				// sub-second parts are exact differences of the two instants (including their nanos.)
+				dateLength = unit.between(startTimestamp.toInstant(), endTimestamp.toInstant());
+				break;
+			default:
+				// second and larger parts compare the timestamps rounded to the nearest millisecond.
+				startDateTime = DateUtil.toZonedDateTime(roundToMillis(startTimestamp));
+				endDateTime = DateUtil.toZonedDateTime(roundToMillis(endTimestamp));
+				dateLength = DateUtil.between(startDateTime, endDateTime, unit);
+				break;
 			}
 
 			result = new Long(dateLength);
@@ -216,6 +155,10 @@ public class DateDiffTimestamp implements CustomProcedure {
 		}
 	}
 
+	private static Timestamp roundToMillis(Timestamp ts) {
+		return new Timestamp(ts.getTime() + (ts.getNanos() % 1000000L >= 500000L ? 1 : 0));
+	}
+
 
     /**
      * Called to retrieve the number of rows that were inserted,
@@ -0,0 +1,318 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  This utility class is the shared date/time core used by the DateUtils CJP's. It is built
+	  entirely on the immutable (and therefore thread-safe) java.time types so that a single
+	  static instance of each zone and unit lookup can be shared by every invocation
+	  instead of each CJP allocating its own Calendar, SimpleDateFormat or Joda DateTime per row.
+
+	  The following are cached statically:
+
+	    - ZoneId's for every ID known to java.util.TimeZone (including the legacy three letter
+	      ID's such as "PST" or "EST", which are resolved exactly as TimeZone resolves them.)
+	    - The datePart vocabulary shared by the DateAdd* and DateDiff* CJP's.
+
+	  Supported datePart values (not case sensitive):
+
+	    'nanosecond'  or 'ns'
+	    'microsecond' or 'mcs'
+	    'millisecond' or 'ms'
+	    'second'      or 'ss'
+	    'minute'      or 'mi'
+	    'hour'        or 'hh'
+	    'day'         or 'dd'
+	    'week'        or 'wk'
+	    'month'       or 'mm'
+	    'year'        or 'yy'
+
+	  Date arithmetic is carried out on ZonedDateTime's in the server's default timezone. Units of
+	  an hour or less are applied to the instant (elapsed time) while units of a day or more are
+	  applied to the local date, which preserves the DST semantics of the Joda-Time based
+	  implementation this class replaces.
+
+	Inputs:
+	  N/A
+
+	Outputs:
+	  N/A
+
+	Exceptions:
+	  None
+
+*/
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class DateUtil {
+
+    private static final Map<String, ZoneId> ZONES;
+    private static final Map<String, ChronoUnit> DATE_PARTS;
+
+    static {
+        // resolve each zone through TimeZone so that legacy ID's keep the offsets TZConverter has always used
+        // (e.g. "EST" is a fixed -05:00 offset to TimeZone but an alias of America/New_York to ZoneId.SHORT_IDS.)
+        //
+        Map<String, ZoneId> zones = new HashMap<String, ZoneId>();
+        for (String id : TimeZone.getAvailableIDs()) {
+            try {
+                zones.put(id, TimeZone.getTimeZone(id).toZoneId());
+            } catch (RuntimeException e) {
+                // a zone the JDK lists but java.time cannot represent; leave it out so it's reported as invalid.
+            }
+        }
+        ZONES = Collections.unmodifiableMap(zones);
+
+        Map<String, ChronoUnit> parts = new HashMap<String, ChronoUnit>();
+        putDatePart(parts, ChronoUnit.NANOS, "nanosecond", "ns");
+        putDatePart(parts, ChronoUnit.MICROS, "microsecond", "mcs");
+        putDatePart(parts, ChronoUnit.MILLIS, "millisecond", "ms");
+        putDatePart(parts, ChronoUnit.SECONDS, "second", "ss");
+        putDatePart(parts, ChronoUnit.MINUTES, "minute", "mi");
+        putDatePart(parts, ChronoUnit.HOURS, "hour", "hh");
+        putDatePart(parts, ChronoUnit.DAYS, "day", "dd");
+        putDatePart(parts, ChronoUnit.WEEKS, "week", "wk");
+        putDatePart(parts, ChronoUnit.MONTHS, "month", "mm");
+        putDatePart(parts, ChronoUnit.YEARS, "year", "yy");
+        DATE_PARTS = Collections.unmodifiableMap(parts);
+    }
+
+    private DateUtil() {}
+
+    private static void putDatePart(Map<String, ChronoUnit> parts, ChronoUnit unit, String name, String abbreviation) {
+        parts.put(name, unit);
+        parts.put(abbreviation, unit);
+    }
+
+    /**
+     * Returns the ChronoUnit for a datePart name or abbreviation, or null if the datePart is not recognized.
+     */
+    public static ChronoUnit getDatePart(String datePart) {
+        if (datePart == null) {
+            return null;
+        }
+        return DATE_PARTS.get(datePart.trim().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Returns the cached ZoneId for a java.util.TimeZone ID, or null if the ID is not a valid timezone.
+     */
+    public static ZoneId getZone(String zoneId) {
+        if (zoneId == null) {
+            return null;
+        }
+        return ZONES.get(zoneId);
+    }
+
+    /**
+     * Returns the server's default timezone. Looked up on each call so that a change to the
+     * JVM's default timezone is honored the same way Calendar.getInstance() honored it.
+     */
+    public static ZoneId getDefaultZone() {
+        return ZoneId.systemDefault();
+    }
+
+    //
+    // Conversions between java.sql types and java.time types
+    //
+
+    /**
+     * Returns the calendar date of a DATE value in the server's timezone.
+     */
+    public static LocalDate toLocalDate(java.util.Date date) {
+        if (date instanceof java.sql.Date) {
+            return ((java.sql.Date) date).toLocalDate();
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(getDefaultZone()).toLocalDate();
+    }
+
+    /**
+     * Returns the start of the day of a DATE value in the server's timezone.
+     */
+    public static ZonedDateTime toZonedDate(java.util.Date date) {
+        return toLocalDate(date).atStartOfDay(getDefaultZone());
+    }
+
+    /**
+     * Returns a TIMESTAMP value (including its fractional seconds) in the server's timezone.
+     */
+    public static ZonedDateTime toZonedDateTime(Timestamp ts) {
+        return ts.toInstant().atZone(getDefaultZone());
+    }
+
+    public static java.sql.Date toSqlDate(ZonedDateTime zdt) {
+        return new java.sql.Date(zdt.toInstant().toEpochMilli());
+    }
+
+    public static Timestamp toTimestamp(ZonedDateTime zdt) {
+        return Timestamp.from(zdt.toInstant());
+    }
+
+    /**
+     * Converts milliseconds since the epoch to a TIMESTAMP.
+     */
+    public static Timestamp epochMillisToTimestamp(long epochMillis) {
+        return new Timestamp(epochMillis);
+    }
+
+    /**
+     * Converts a TIMESTAMP to milliseconds since the epoch. Fractional milliseconds are dropped.
+     */
+    public static long timestampToEpochMillis(Timestamp ts) {
+        return ts.getTime();
+    }
+
+    /**
+     * Returns the unit of an epoch value: 's', 'ms', 'us' or 'ns', or any of the second through nanosecond
+     * datePart names and abbreviations. Returns null if the unit is not recognized.
+     */
+    public static ChronoUnit getEpochUnit(String unit) {
+        if (unit == null) {
+            return null;
+        }
+
+        String u = unit.trim().toLowerCase(Locale.ENGLISH);
+        if (u.equals("s")) {
+            return ChronoUnit.SECONDS;
+        }
+        if (u.equals("us")) {
+            return ChronoUnit.MICROS;
+        }
+
+        ChronoUnit c = DATE_PARTS.get(u);
+        return (c != null && c.compareTo(ChronoUnit.SECONDS) <= 0) ? c : null;
+    }
+
+    /**
+     * Guesses the unit of an epoch value from its magnitude. Values below 10^11 are taken to be seconds
+     * (up to the year 5138), below 10^14 milliseconds, below 10^17 microseconds and anything larger
+     * nanoseconds.
+     */
+    public static ChronoUnit detectEpochUnit(long value) {
+        long v = Math.abs(value);
+
+        if (v < 100000000000L) {
+            return ChronoUnit.SECONDS;
+        }
+        if (v < 100000000000000L) {
+            return ChronoUnit.MILLIS;
+        }
+        if (v < 100000000000000000L) {
+            return ChronoUnit.MICROS;
+        }
+        return ChronoUnit.NANOS;
+    }
+
+    /**
+     * Converts an epoch value in the given unit (SECONDS, MILLIS, MICROS or NANOS) to a TIMESTAMP,
+     * preserving any sub-millisecond precision in the timestamp's nanos.
+     */
+    public static Timestamp epochToTimestamp(long value, ChronoUnit unit) {
+        long perSecond = unitsPerSecond(unit);
+        long seconds = Math.floorDiv(value, perSecond);
+        int nanos = (int) (Math.floorMod(value, perSecond) * (1000000000L / perSecond));
+
+        Timestamp ts = new Timestamp(Math.multiplyExact(seconds, 1000L));
+        ts.setNanos(nanos);
+        return ts;
+    }
+
+    /**
+     * Converts a TIMESTAMP to an epoch value in the given unit (SECONDS, MILLIS, MICROS or NANOS.)
+     * Precision finer than the unit is truncated toward negative infinity.
+     */
+    public static long timestampToEpoch(Timestamp ts, ChronoUnit unit) {
+        long perSecond = unitsPerSecond(unit);
+        long seconds = Math.floorDiv(ts.getTime(), 1000L);
+
+        return Math.addExact(Math.multiplyExact(seconds, perSecond), ts.getNanos() / (1000000000L / perSecond));
+    }
+
+    private static long unitsPerSecond(ChronoUnit unit) {
+        switch (unit) {
+        case SECONDS: return 1L;
+        case MILLIS:  return 1000L;
+        case MICROS:  return 1000000L;
+        case NANOS:   return 1000000000L;
+        default:      throw new IllegalArgumentException("Unsupported epoch unit: " + unit);
+        }
+    }
+
+    //
+    // Date arithmetic
+    //
+
+    /**
+     * Adds amount units to a date/time. Units of an hour or less are added to the instant, units of
+     * a day or more are added to the local date/time.
+     */
+    public static ZonedDateTime add(ZonedDateTime start, ChronoUnit unit, long amount) {
+        return start.plus(amount, unit);
+    }
+
+    /**
+     * Returns the number of whole units between two date/times. The result is truncated toward zero
+     * and is negative when end occurs before start.
+     */
+    public static long between(ZonedDateTime start, ZonedDateTime end, ChronoUnit unit) {
+        return unit.between(start, end);
+    }
+
+    //
+    // Timezone conversion
+    //
+
+    /**
+     * Reinterprets the wall clock time of a TIMESTAMP (as seen in the server's timezone) as a time in
+     * fromZone and returns the wall clock time in toZone, truncated to whole seconds (the precision of
+     * the yyyy-MM-dd HH:mm:ss format TZConverter has always returned.)
+     */
+    public static Timestamp convertTimezone(java.util.Date source, ZoneId fromZone, ZoneId toZone) {
+        LocalDateTime wallClock;
+
+        if (source instanceof Timestamp) {
+            wallClock = ((Timestamp) source).toLocalDateTime();
+        } else {
+            wallClock = LocalDateTime.ofInstant(Instant.ofEpochMilli(source.getTime()), getDefaultZone());
+        }
+
+        LocalDateTime converted = wallClock
+            .truncatedTo(ChronoUnit.SECONDS)
+            .atZone(fromZone)
+            .withZoneSameInstant(toZone)
+            .toLocalDateTime();
+
+        return Timestamp.valueOf(converted);
+    }
+}
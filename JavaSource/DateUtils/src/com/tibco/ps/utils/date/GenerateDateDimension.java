@@ -0,0 +1,381 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ *
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ *
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ *
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ *
+ */
+
+
+/*
+	Description:
+	  Generates the rows of a calendar (date dimension) between two timestamps, one row per datePart.
+	  Rows are generated one at a time as the output cursor is read using integer date arithmetic on
+	  the day number and second of the day, so nothing is materialized and a dimension of any length
+	  (e.g. 50 years of hours) is produced in constant memory.
+
+	  Rows are generated on the wall clock of the CIS server's time zone (no timezone adjustments are
+	  made), so an hourly dimension contains 24 rows for every day, except on the day the clocks are set
+	  forward for daylight saving time: the times skipped over (e.g. 02:00 to 02:59 in America/New_York)
+	  don't exist as TIMESTAMP values in that zone, so they get no rows and the hourly dimension has 23
+	  rows on that day. Every dateValue is therefore unique. A time repeated when the clocks are set back
+	  has one row.
+
+
+	Inputs:
+	  datePart          - The grain of the dimension (the interval between rows.)
+	    values: 'second', 'minute', 'hour', 'day', 'week', 'month' and 'year' (not case sensitive)
+	            or the abbreviations 'ss', 'mi', 'hh', 'dd', 'wk', 'mm' and 'yy'
+
+	  startTimestamp    - The first row of the dimension.
+	    values: Any valid timestamp value. Fractional seconds are ignored.
+
+	  endTimestamp      - The last possible row of the dimension (inclusive.)
+	    values: Any valid timestamp value on or after the start timestamp.
+
+	  fiscalYearStartMonth - The month the fiscal year starts in.
+	    values: 1 through 12 or NULL (defaults to 1, in which case the fiscal year is the calendar year.)
+	            A fiscal year is named after the calendar year in which it ends, e.g. with a value of 10
+	            the fiscal year 2024 runs from October 2023 through September 2024.
+
+
+	Outputs:
+	  result (
+	    dateValue       TIMESTAMP - The timestamp of the row.
+	    dateKey         INTEGER   - The date as a yyyymmdd integer.
+	    year            INTEGER
+	    quarter         INTEGER   - 1 through 4
+	    month           INTEGER   - 1 through 12
+	    dayOfMonth      INTEGER   - 1 through 31
+	    dayOfYear       INTEGER   - 1 through 366
+	    weekOfYear      INTEGER   - ISO-8601 week number (1 through 53)
+	    dayOfWeek       INTEGER   - ISO-8601 day of the week (1 = Monday through 7 = Sunday)
+	    hour            INTEGER   - 0 through 23
+	    minute          INTEGER   - 0 through 59
+	    isWeekend       BOOLEAN   - true for Saturday and Sunday
+	    fiscalYear      INTEGER
+	    fiscalQuarter   INTEGER   - 1 through 4
+	    fiscalMonth     INTEGER   - 1 through 12
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when an unsupported datePart or invalid range is passed.
+
+*/
+
+import com.compositesw.extension.*;
+import com.compositesw.common.logging.Logger;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.time.temporal.ChronoUnit;
+
+public class GenerateDateDimension
+    extends DateUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "GenerateDateDimension";
+        logger = Logger.getLogger(GenerateDateDimension.class.getName());
+    }
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+        new ParameterInfo("dateValue",     Types.TIMESTAMP, DIRECTION_OUT),
+        new ParameterInfo("dateKey",       Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("year",          Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("quarter",       Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("month",         Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("dayOfMonth",    Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("dayOfYear",     Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("weekOfYear",    Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("dayOfWeek",     Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("hour",          Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("minute",        Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("isWeekend",     Types.BOOLEAN,   DIRECTION_OUT),
+        new ParameterInfo("fiscalYear",    Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("fiscalQuarter", Types.INTEGER,   DIRECTION_OUT),
+        new ParameterInfo("fiscalMonth",   Types.INTEGER,   DIRECTION_OUT)
+    };
+
+    private CustomCursor outputCursor = null;
+
+    public GenerateDateDimension() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("datePart",             Types.VARCHAR,   DIRECTION_IN),
+            new ParameterInfo("startTimestamp",       Types.TIMESTAMP, DIRECTION_IN),
+            new ParameterInfo("endTimestamp",         Types.TIMESTAMP, DIRECTION_IN),
+            new ParameterInfo("fiscalYearStartMonth", Types.INTEGER,   DIRECTION_IN),
+            new ParameterInfo("result",               TYPED_CURSOR,    DIRECTION_OUT, OUTPUT_CURSOR)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+        }
+
+        outputCursor = null;
+        if (inputValues[0] == null || inputValues[1] == null || inputValues[2] == null) {
+            return;
+        }
+
+        String datePart = (String) inputValues[0];
+        ChronoUnit unit = DateUtil.getDatePart(datePart);
+        if (unit == null || unit.compareTo(ChronoUnit.SECONDS) < 0 || unit.compareTo(ChronoUnit.YEARS) > 0) {
+            throw new CustomProcedureException("datePart must be one of 'second', 'minute', 'hour', 'day', 'week', 'month' or 'year': " + datePart);
+        }
+
+        int fiscalYearStartMonth = 1;
+        if (inputValues[3] != null) {
+            fiscalYearStartMonth = ((Integer) inputValues[3]).intValue();
+            if (fiscalYearStartMonth < 1 || fiscalYearStartMonth > 12) {
+                throw new CustomProcedureException("fiscalYearStartMonth must be between 1 and 12: " + fiscalYearStartMonth);
+            }
+        }
+
+        LocalDateTime start = ((Timestamp) inputValues[1]).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime end = ((Timestamp) inputValues[2]).toLocalDateTime();
+        if (end.isBefore(start)) {
+            throw new CustomProcedureException("endTimestamp may not be before startTimestamp.");
+        }
+
+        outputCursor = new DimensionCursor(unit, start, end, fiscalYearStartMonth);
+    }
+
+    public Object[] getOutputValues()
+    {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outputCursor };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Generates the rows of a date dimension between two timestamps without materializing them.";
+    }
+
+    /**
+     * Generates the dimension rows on demand. The position is kept as a day number (days since
+     * 1970-01-01) and a second of the day for second/minute/hour/day/week grains, or as a month
+     * number (months since year 0) for month/year grains. The calendar attributes of a day are only
+     * recomputed when the day number changes.
+     */
+    private static class DimensionCursor implements CustomCursor {
+        private final int fiscalYearStartMonth;
+        private final long endEpochDay;
+        private final int endSecondOfDay;
+
+        // time based grains step the second of the day, day based grains step the day number
+        // and month based grains step the month number.
+        //
+        private final int stepSeconds;
+        private final int stepDays;
+        private final int stepMonths;
+        private final int startDayOfMonth;
+
+        // the server zone, in which the TIMESTAMP values are interpreted
+        //
+        private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+
+        private long epochDay;
+        private int secondOfDay;
+        private long monthNumber;
+        private boolean done = false;
+
+        // attributes of the current day
+        //
+        private long cachedEpochDay = Long.MIN_VALUE;
+        private int year, month, day, dayOfYear, weekOfYear, dayOfWeek;
+
+        DimensionCursor(ChronoUnit unit, LocalDateTime start, LocalDateTime end, int fiscalYearStartMonth) {
+            this.fiscalYearStartMonth = fiscalYearStartMonth;
+
+            epochDay = start.toLocalDate().toEpochDay();
+            secondOfDay = start.toLocalTime().toSecondOfDay();
+            monthNumber = start.getYear() * 12L + start.getMonthValue() - 1;
+            startDayOfMonth = start.getDayOfMonth();
+
+            endEpochDay = end.toLocalDate().toEpochDay();
+            endSecondOfDay = end.toLocalTime().toSecondOfDay();
+
+            switch (unit) {
+            case SECONDS: stepSeconds = 1;    stepDays = 0; stepMonths = 0;  break;
+            case MINUTES: stepSeconds = 60;   stepDays = 0; stepMonths = 0;  break;
+            case HOURS:   stepSeconds = 3600; stepDays = 0; stepMonths = 0;  break;
+            case DAYS:    stepSeconds = 0;    stepDays = 1; stepMonths = 0;  break;
+            case WEEKS:   stepSeconds = 0;    stepDays = 7; stepMonths = 0;  break;
+            case MONTHS:  stepSeconds = 0;    stepDays = 0; stepMonths = 1;  break;
+            default:      stepSeconds = 0;    stepDays = 0; stepMonths = 12; break;
+            }
+        }
+
+        public ParameterInfo[] getColumnInfo() {
+            return OUTPUT_CURSOR;
+        }
+
+        public Object[] next() throws CustomProcedureException, SQLException {
+            if (done) {
+                return null;
+            }
+
+            LocalDateTime dateValue;
+            while (true) {
+                if (epochDay > endEpochDay || (epochDay == endEpochDay && secondOfDay > endSecondOfDay)) {
+                    done = true;
+                    return null;
+                }
+
+                computeDayAttributes();
+                dateValue = LocalDateTime.of(year, month, day, secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60);
+
+                // skip the times in a daylight saving gap, which Timestamp.valueOf() would move to the
+                // next valid (and already generated) time.
+                //
+                if (stepSeconds > 0 && zoneRules.getValidOffsets(dateValue).isEmpty()) {
+                    advance();
+                    continue;
+                }
+                break;
+            }
+
+            int hour = dateValue.getHour();
+            int minute = dateValue.getMinute();
+            int quarter = (month - 1) / 3 + 1;
+            int fiscalMonth = (month - fiscalYearStartMonth + 12) % 12 + 1;
+            int fiscalYear = (fiscalYearStartMonth == 1 || month < fiscalYearStartMonth) ? year : year + 1;
+
+            Object[] row = new Object[] {
+                Timestamp.valueOf(dateValue),
+                Integer.valueOf(year * 10000 + month * 100 + day),
+                Integer.valueOf(year),
+                Integer.valueOf(quarter),
+                Integer.valueOf(month),
+                Integer.valueOf(day),
+                Integer.valueOf(dayOfYear),
+                Integer.valueOf(weekOfYear),
+                Integer.valueOf(dayOfWeek),
+                Integer.valueOf(hour),
+                Integer.valueOf(minute),
+                Boolean.valueOf(dayOfWeek >= 6),
+                Integer.valueOf(fiscalYear),
+                Integer.valueOf((fiscalMonth - 1) / 3 + 1),
+                Integer.valueOf(fiscalMonth)
+            };
+
+            advance();
+            return row;
+        }
+
+        public void close() throws CustomProcedureException, SQLException {
+            done = true;
+        }
+
+        private void advance() {
+            if (stepSeconds > 0) {
+                secondOfDay += stepSeconds;
+                if (secondOfDay >= SECONDS_PER_DAY) {
+                    epochDay += secondOfDay / SECONDS_PER_DAY;
+                    secondOfDay %= SECONDS_PER_DAY;
+                }
+            } else if (stepDays > 0) {
+                epochDay += stepDays;
+            } else {
+                // keep the start's day of the month, clamped to the length of the month (as DateAdd* does.)
+                //
+                monthNumber += stepMonths;
+                int y = (int) Math.floorDiv(monthNumber, 12L);
+                int m = (int) Math.floorMod(monthNumber, 12L) + 1;
+                epochDay = daysFromCivil(y, m, Math.min(startDayOfMonth, lengthOfMonth(y, m)));
+            }
+        }
+
+        private void computeDayAttributes() {
+            if (epochDay == cachedEpochDay) {
+                return;
+            }
+            cachedEpochDay = epochDay;
+
+            // civil date from a day number (H. Hinnant's days_from_civil inverse, proleptic Gregorian.)
+            //
+            long z = epochDay + 719468;
+            long era = Math.floorDiv(z, 146097L);
+            long doe = z - era * 146097;
+            long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+            long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            long mp = (5 * doy + 2) / 153;
+            day = (int) (doy - (153 * mp + 2) / 5 + 1);
+            month = (int) (mp < 10 ? mp + 3 : mp - 9);
+            year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+            dayOfYear = (int) (epochDay - daysFromCivil(year, 1, 1)) + 1;
+
+            // 1970-01-01 was a Thursday (ISO day 4.)
+            //
+            dayOfWeek = (int) Math.floorMod(epochDay + 3, 7L) + 1;
+
+            int week = (dayOfYear - dayOfWeek + 10) / 7;
+            if (week < 1) {
+                week = weeksInYear(year - 1);
+            } else if (week > weeksInYear(year)) {
+                week = 1;
+            }
+            weekOfYear = week;
+        }
+
+        private static long daysFromCivil(int y, int m, int d) {
+            y -= (m <= 2 ? 1 : 0);
+            long era = Math.floorDiv(y, 400);
+            long yoe = y - era * 400;
+            long doy = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + d - 1;
+            long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+            return era * 146097 + doe - 719468;
+        }
+
+        private static boolean isLeapYear(int y) {
+            return (y % 4 == 0) && (y % 100 != 0 || y % 400 == 0);
+        }
+
+        private static int lengthOfMonth(int y, int m) {
+            switch (m) {
+            case 2: return isLeapYear(y) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+            }
+        }
+
+        // an ISO year has 53 weeks when it starts on a Thursday, or is a leap year starting on a Wednesday.
+        //
+        private static int weeksInYear(int y) {
+            int jan1 = (int) Math.floorMod(daysFromCivil(y, 1, 1) + 3, 7L) + 1;
+            return (jan1 == 4 || (jan1 == 3 && isLeapYear(y))) ? 53 : 52;
+        }
+    }
+}
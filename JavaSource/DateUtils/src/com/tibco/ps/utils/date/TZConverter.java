@@ -649,22 +649,13 @@ import com.compositesw.extension.*;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
-import java.text.ParseException;
-import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.time.ZoneId;
 import java.util.Date;
-import java.util.List;
-import java.util.TimeZone;
 
 public class TZConverter implements CustomProcedure {
 
     private ExecutionEnvironment qenv = null;
-    final private String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
-    private static ArrayList<String> VALID_ZONES = null;
     private Timestamp result = null;
-    private final Object lock = new Object();
 
     public TZConverter() {
     }
@@ -672,14 +663,6 @@ public class TZConverter implements CustomProcedure {
     public void initialize(ExecutionEnvironment qenv) throws SQLException {
         this.qenv = qenv;
         qenv.log(LOG_DEBUG, "TZConverter initialized.");
-        synchronized (lock) {
-            if (VALID_ZONES == null) {
-                //populate static arraylist with valid timezones
-                String[] vzones = TimeZone.getAvailableIDs();
-                List<String> list = Arrays.asList(vzones);
-                VALID_ZONES = new ArrayList<String>(list);
-            }
-        }
     }
 
     /**
@@ -714,47 +697,22 @@ public class TZConverter implements CustomProcedure {
 
         String sourceTZ = (String) inputValues[1];
         String destTZ = (String) inputValues[2];
-        //check if both timezones are valid.
+        //check if both timezones are valid (DateUtil caches a ZoneId for every valid timezone.)
+        ZoneId sourceZone = DateUtil.getZone(sourceTZ);
+        ZoneId destZone = DateUtil.getZone(destTZ);
 
-        if (!VALID_ZONES.contains(sourceTZ)) {
+        if (sourceZone == null) {
             qenv.log(LOG_INFO, "Invalid source timezone passed " + sourceTZ);
             throw new CustomProcedureException("Invalid source timezone passed: " + sourceTZ);
         }
 
-        if (!VALID_ZONES.contains(destTZ)) {
+        if (destZone == null) {
             qenv.log(LOG_INFO, "Invalid destination timezone passed " + destTZ);
             throw new CustomProcedureException("Invalid destination timezone passed " + destTZ);
         }
         Date passedDate = (Date) inputValues[0];
 
-
-        //Get date as a string
-        SimpleDateFormat tempFmt = new SimpleDateFormat(DATE_TIME_FORMAT);
-        String dateString = tempFmt.format(passedDate);
-
-        //Setup sdf for source timezone
-        SimpleDateFormat sourceFmt = new SimpleDateFormat(DATE_TIME_FORMAT);
-        sourceFmt.setTimeZone(TimeZone.getTimeZone(sourceTZ));
-
-        Date sourceDate = null;
-
-        try {
-            //Get datevalue for specific timezone
-            sourceDate = sourceFmt.parse(dateString);
-        } catch (ParseException ex) {
-            qenv.log(LOG_ERROR, ex.toString());
-        }
-        //Setup sdf for dest timezone
-        SimpleDateFormat destFmt = new SimpleDateFormat(DATE_TIME_FORMAT);
-        destFmt.setTimeZone(TimeZone.getTimeZone(destTZ));
-
-        //Get a String out for destTimeZone
-        String destDateString = destFmt.format(sourceDate);
-        SimpleDateFormat sdf = new SimpleDateFormat(DATE_TIME_FORMAT);
-
-        //Place new string in date object and return
-        Date converted = sdf.parse(destDateString, new ParsePosition(0));
-        result = new Timestamp(converted.getTime());
+        result = DateUtil.convertTimezone(passedDate, sourceZone, destZone);
 
     }
 
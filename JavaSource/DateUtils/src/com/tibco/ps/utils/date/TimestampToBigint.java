@@ -91,7 +91,7 @@ public class TimestampToBigint implements CustomProcedure {
         if (inputValues.length != 1)
             throw new CustomProcedureException ("Exactly one input value is required.");
         
-        result = new Long (((Timestamp) inputValues[0]).getTime());
+        result = (inputValues[0] == null) ? null : new Long (DateUtil.timestampToEpochMillis ((Timestamp) inputValues[0]));
     }
 
 
@@ -0,0 +1,174 @@
+package com.tibco.ps.utils.date;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	Description:
+	  Converts a column of TIMESTAMP values to BIGINT epoch values. This is the batch form of TimestampToBigint:
+	  the query is executed once and its rows are converted one at a time as the output cursor is read,
+	  so whole columns can be converted without invoking a CJP per row.
+
+
+	Inputs:
+	  query_string - The query returning the TIMESTAMP values in its first column.
+	    values: Any valid CIS query.
+
+	  unit         - The unit of the epoch values to return.
+	    values: 's', 'ms', 'us', 'ns' (or the equivalent datePart names) or NULL (defaults to 'ms', as TimestampToBigint.)
+
+
+	Outputs:
+	  result (
+	    inTimestamp TIMESTAMP - The timestamp read from the query.
+	    result      BIGINT    - The epoch value in the requested unit. NULL when inTimestamp is NULL.
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when the query fails or an unknown unit is passed.
+
+*/
+
+import com.compositesw.extension.*;
+import com.compositesw.common.logging.Logger;
+import java.sql.*;
+import java.time.temporal.ChronoUnit;
+
+public class TimestampToBigintBatch
+    extends DateUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "TimestampToBigintBatch";
+        logger = Logger.getLogger(TimestampToBigintBatch.class.getName());
+    }
+
+    private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+        new ParameterInfo("inTimestamp", Types.TIMESTAMP, DIRECTION_OUT),
+        new ParameterInfo("result",      Types.BIGINT,    DIRECTION_OUT)
+    };
+
+    private ConversionCursor outputCursor = null;
+
+    public TimestampToBigintBatch() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("unit",         Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("result",       TYPED_CURSOR,  DIRECTION_OUT, OUTPUT_CURSOR)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+        }
+
+        if (inputValues[0] == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter query_string must be provided.");
+        }
+
+        ChronoUnit unit = ChronoUnit.MILLIS;
+        String unitName = (String) inputValues[1];
+        if (unitName != null) {
+            unit = DateUtil.getEpochUnit(unitName);
+            if (unit == null) {
+                throw new CustomProcedureException("unit must be one of 's', 'ms', 'us' or 'ns': " + unitName);
+            }
+        }
+
+        outputCursor = new ConversionCursor(qenv.executeQuery(((String) inputValues[0]).trim(), null), unit);
+    }
+
+    public Object[] getOutputValues()
+    {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outputCursor };
+    }
+
+    public void close() throws SQLException {
+        super.close();
+
+        if (outputCursor != null) {
+            outputCursor.close();
+        }
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Converts a query's column of TIMESTAMP's to BIGINT epoch values (s, ms, us or ns.)";
+    }
+
+    private static class ConversionCursor implements CustomCursor {
+        private final ResultSet rs;
+        private final ChronoUnit unit;
+        private boolean closed = false;
+
+        ConversionCursor(ResultSet rs, ChronoUnit unit) {
+            this.rs = rs;
+            this.unit = unit;
+        }
+
+        public ParameterInfo[] getColumnInfo() {
+            return OUTPUT_CURSOR;
+        }
+
+        public Object[] next() throws CustomProcedureException, SQLException {
+            if (closed) {
+                return null;
+            }
+
+            if (!rs.next()) {
+                close();
+                return null;
+            }
+
+            Timestamp ts = rs.getTimestamp(1);
+            if (ts == null) {
+                return new Object[] { null, null };
+            }
+
+            try {
+                return new Object[] { ts, Long.valueOf(DateUtil.timestampToEpoch(ts, unit)) };
+            } catch (ArithmeticException ae) {
+                throw new CustomProcedureException("Timestamp " + ts + " cannot be represented as a BIGINT in " + unit + ".");
+            }
+        }
+
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                rs.close();
+            }
+        }
+    }
+}
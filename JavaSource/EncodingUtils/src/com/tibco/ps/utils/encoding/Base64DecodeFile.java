@@ -0,0 +1,137 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Base64DecodeFile:
+
+    Description:
+        Decodes Base64 encoded data from a CLOB or a file on the CIS server into a file, in fixed size
+        blocks, so that large values (e.g. document attachments) can be decoded without holding the
+        encoded or decoded value in memory. Line breaks, tabs and blanks in the input are ignored.
+        See Base64StreamCodec.
+
+
+    Input:
+        clobVal - The Base64 encoded CLOB to decode. Ignored if inputFilePath is provided.
+            Values: Any Base64 value
+
+        inputFilePath - The path of the file containing the Base64 encoded data.
+            Values: A file path on the CIS server
+
+        outputFilePath - The path of the file the decoded data is written to. An existing file is replaced.
+            Values: A file path on the CIS server
+
+
+    Output:
+        bytesWritten - The number of bytes written to the output file.
+            Values: Any BIGINT value
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when neither clobVal nor inputFilePath is provided, no outputFilePath
+                                   is provided, the input is not valid Base64 encoded data or a file can't
+                                   be read or written.
+
+ */
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class Base64DecodeFile extends EncodingUtilTemplate {
+
+	private Long bytesWritten = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Decodes Base64 encoded data from a CLOB or a file into a file" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("clobVal", Types.CLOB, DIRECTION_IN),
+			new ParameterInfo("inputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("outputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("bytesWritten", Types.BIGINT, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { bytesWritten } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		Clob clobVal = (Clob) args[0] ;
+		String inputFilePath = (String) args[1] ;
+		String outputFilePath = (String) args[2] ;
+
+		if (clobVal == null && inputFilePath == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter clobVal or inputFilePath must be provided.") ;
+		}
+		if (outputFilePath == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter outputFilePath must be provided.") ;
+		}
+
+		FileInputStream fileIn = null ;
+		ClobReader clobIn = null ;
+		OutputStream out = null ;
+		try {
+			out = new FileOutputStream(outputFilePath) ;
+			if (inputFilePath != null) {
+				fileIn = new FileInputStream(inputFilePath) ;
+				bytesWritten = Long.valueOf(Base64StreamCodec.decode(fileIn, out)) ;
+			} else {
+				clobIn = new ClobReader(clobVal, Base64StreamCodec.BLOCK_SIZE) ;
+				bytesWritten = Long.valueOf(Base64StreamCodec.decode(clobIn, out)) ;
+			}
+		}
+		finally {
+			if (fileIn != null) {
+				fileIn.close() ;
+			}
+			if (clobIn != null) {
+				clobIn.close() ;
+			}
+			if (out != null) {
+				out.close() ;
+			}
+		}
+
+		log(LOG_DEBUG, getName() + ": wrote " + bytesWritten + " bytes to " + outputFilePath) ;
+		return 0 ;
+	}
+}
@@ -0,0 +1,132 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Base64EncodeFile:
+
+    Description:
+        Base64 encodes a BLOB or a file on the CIS server into a file, in fixed size blocks, so that
+        large values (e.g. document attachments) can be encoded without holding the value or its
+        encoded form in memory. See Base64StreamCodec.
+
+
+    Input:
+        blobVal - The BLOB to encode. Ignored if inputFilePath is provided.
+            Values: Any BLOB value
+
+        inputFilePath - The path of the file to encode.
+            Values: A file path on the CIS server
+
+        outputFilePath - The path of the file the Base64 encoded data is written to. An existing file is replaced.
+            Values: A file path on the CIS server
+
+        lineLength - The length of the output lines (a multiple of 4.) Lines are separated by CR LF as in MIME.
+            Values: 0 for a single line without line breaks, NULL for 76
+
+
+    Output:
+        bytesWritten - The number of bytes written to the output file (including line separators.)
+            Values: Any BIGINT value
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when neither blobVal nor inputFilePath is provided, no outputFilePath
+                                   is provided, the line length is invalid or a file can't be read or written.
+
+ */
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class Base64EncodeFile extends EncodingUtilTemplate {
+
+	private Long bytesWritten = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Base64 encodes a BLOB or a file into a file" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("blobVal", Types.BLOB, DIRECTION_IN),
+			new ParameterInfo("inputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("outputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("lineLength", Types.INTEGER, DIRECTION_IN),
+			new ParameterInfo("bytesWritten", Types.BIGINT, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { bytesWritten } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		Blob blobVal = (Blob) args[0] ;
+		String inputFilePath = (String) args[1] ;
+		String outputFilePath = (String) args[2] ;
+		int lineLength = (args[3] == null) ? Base64StreamCodec.DEFAULT_LINE_LENGTH : ((Integer) args[3]).intValue() ;
+
+		if (blobVal == null && inputFilePath == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter blobVal or inputFilePath must be provided.") ;
+		}
+		if (outputFilePath == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter outputFilePath must be provided.") ;
+		}
+
+		InputStream in = null ;
+		OutputStream out = null ;
+		try {
+			in = (inputFilePath != null) ? new FileInputStream(inputFilePath) : new BlobInputStream(blobVal, Base64StreamCodec.BLOCK_SIZE) ;
+			out = new FileOutputStream(outputFilePath) ;
+			bytesWritten = Long.valueOf(Base64StreamCodec.encode(in, out, lineLength, "\r\n")) ;
+		}
+		finally {
+			if (in != null) {
+				in.close() ;
+			}
+			if (out != null) {
+				out.close() ;
+			}
+		}
+
+		log(LOG_DEBUG, getName() + ": wrote " + bytesWritten + " bytes to " + outputFilePath) ;
+		return 0 ;
+	}
+}
@@ -0,0 +1,308 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Base64StreamCodec:
+
+    Description:
+        Chunked Base64 encoder/decoder for values that are too large to be held in memory as a whole
+        (Base64EncodeDecodeHelper works on complete arrays and strings.) Data is converted between
+        streams in fixed size blocks using two buffers allocated once per call, so a value of any
+        size is converted with constant memory.
+
+        Encoding reads whole multiples of the line's byte length, so lines are wrapped at the same
+        places (and the output is the same as Base64EncodeDecodeHelper.encodeLines) regardless of
+        where the chunk boundaries fall. A line length of 0 produces a single unwrapped line as
+        Base64EncodeDecodeHelper.encode does.
+
+        Decoding ignores CR, LF, Tab and Space characters anywhere in the input (as
+        Base64EncodeDecodeHelper.decodeLines does) and carries a partial 4 character group over
+        to the next chunk.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IllegalArgumentException - Thrown when the input to decode is not valid Base64 encoded data.
+
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+public class Base64StreamCodec {
+
+	// the default line length (as sun.misc.BASE64Encoder.encodeBuffer and Base64EncodeDecodeHelper.encodeLines.)
+	public static final int DEFAULT_LINE_LENGTH = 76 ;
+
+	// approximate number of input bytes converted per block.
+	public static final int BLOCK_SIZE = 48 * 1024 ;
+
+	private static final byte[] ENCODE = new byte[64] ;
+
+	// Base64 character values, plus WS for ignored whitespace, PAD for '=' and -1 for anything else.
+	private static final byte WS = -2 ;
+	private static final byte PAD = -3 ;
+	private static final byte[] DECODE = new byte[128] ;
+
+	static {
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/" ;
+		for (int i = 0; i < DECODE.length; i++) {
+			DECODE[i] = -1 ;
+		}
+		for (int i = 0; i < 64; i++) {
+			ENCODE[i] = (byte) alphabet.charAt(i) ;
+			DECODE[alphabet.charAt(i)] = (byte) i ;
+		}
+		DECODE[' '] = WS ;
+		DECODE['\t'] = WS ;
+		DECODE['\r'] = WS ;
+		DECODE['\n'] = WS ;
+		DECODE['='] = PAD ;
+	}
+
+	private Base64StreamCodec() {
+	}
+
+	/**
+	 * Encodes a stream into Base64 ASCII bytes.
+	 * 
+	 * @param in            The data to encode. Read until exhausted, not closed.
+	 * @param out           The stream the encoded data is written to. Not closed.
+	 * @param lineLength    The line length of the output (a multiple of 4), or 0 for no line breaks.
+	 * @param lineSeparator The line separator written after each line when lineLength > 0.
+	 * @return              The number of bytes written.
+	 */
+	public static long encode(InputStream in, OutputStream out, int lineLength, String lineSeparator) throws IOException {
+		return encode(in, out, null, lineLength, lineSeparator) ;
+	}
+
+	/**
+	 * Encodes a stream into Base64 characters. See encode(InputStream, OutputStream, int, String).
+	 */
+	public static long encode(InputStream in, Writer out, int lineLength, String lineSeparator) throws IOException {
+		return encode(in, null, out, lineLength, lineSeparator) ;
+	}
+
+	/**
+	 * Decodes Base64 ASCII bytes from a stream.
+	 * 
+	 * @param in   The Base64 data to decode. Read until exhausted, not closed.
+	 * @param out  The stream the decoded data is written to. Not closed.
+	 * @return     The number of bytes written.
+	 */
+	public static long decode(InputStream in, OutputStream out) throws IOException {
+		byte[] buf = new byte[BLOCK_SIZE * 4 / 3] ;
+		Decoder decoder = new Decoder(out, buf.length) ;
+		int n ;
+		while ((n = in.read(buf, 0, buf.length)) >= 0) {
+			for (int i = 0; i < n; i++) {
+				decoder.put(buf[i] & 0xFF) ;
+			}
+			decoder.flush() ;
+		}
+		return decoder.finish() ;
+	}
+
+	/**
+	 * Decodes Base64 characters from a reader. See decode(InputStream, OutputStream).
+	 */
+	public static long decode(Reader in, OutputStream out) throws IOException {
+		char[] buf = new char[BLOCK_SIZE * 4 / 3] ;
+		Decoder decoder = new Decoder(out, buf.length) ;
+		int n ;
+		while ((n = in.read(buf, 0, buf.length)) >= 0) {
+			for (int i = 0; i < n; i++) {
+				decoder.put(buf[i]) ;
+			}
+			decoder.flush() ;
+		}
+		return decoder.finish() ;
+	}
+
+	private static long encode(InputStream in, OutputStream os, Writer w, int lineLength, String lineSeparator) throws IOException {
+		if (lineLength < 0 || lineLength % 4 != 0) {
+			throw new IllegalArgumentException("Line length must be a multiple of 4: " + lineLength) ;
+		}
+
+		// read whole lines (or whole 3 byte groups when not wrapping) so that every block but the last
+		// ends on a line boundary.
+		int lineBytes = (lineLength > 0) ? lineLength / 4 * 3 : 3 ;
+		int blockBytes = Math.max(1, BLOCK_SIZE / lineBytes) * lineBytes ;
+		byte[] sep = (lineLength > 0) ? lineSeparator.getBytes("US-ASCII") : new byte[0] ;
+		int lines = (lineLength > 0) ? blockBytes / lineBytes : 0 ;
+
+		byte[] inBuf = new byte[blockBytes] ;
+		byte[] outBuf = new byte[blockBytes / 3 * 4 + lines * sep.length] ;
+		char[] charBuf = (w != null) ? new char[outBuf.length] : null ;
+		long total = 0 ;
+		int n ;
+
+		while ((n = readFully(in, inBuf)) > 0) {
+			int op = 0 ;
+			for (int ip = 0; ip < n; ) {
+				int len = (lineLength > 0) ? Math.min(lineBytes, n - ip) : n - ip ;
+				op = encodeLine(inBuf, ip, len, outBuf, op) ;
+				ip += len ;
+				if (lineLength > 0) {
+					System.arraycopy(sep, 0, outBuf, op, sep.length) ;
+					op += sep.length ;
+				}
+			}
+
+			if (w != null) {
+				for (int i = 0; i < op; i++) {
+					charBuf[i] = (char) outBuf[i] ;
+				}
+				w.write(charBuf, 0, op) ;
+			} else {
+				os.write(outBuf, 0, op) ;
+			}
+			total += op ;
+
+			if (n < inBuf.length) {
+				break ;
+			}
+		}
+
+		return total ;
+	}
+
+	/**
+	 * Encodes len bytes (padding the last group with '=') and returns the new output position.
+	 */
+	private static int encodeLine(byte[] in, int ip, int len, byte[] out, int op) {
+		int end = ip + len ;
+		int whole = ip + len / 3 * 3 ;
+
+		while (ip < whole) {
+			int bits = ((in[ip] & 0xFF) << 16) | ((in[ip + 1] & 0xFF) << 8) | (in[ip + 2] & 0xFF) ;
+			ip += 3 ;
+			out[op++] = ENCODE[bits >>> 18] ;
+			out[op++] = ENCODE[(bits >>> 12) & 0x3F] ;
+			out[op++] = ENCODE[(bits >>> 6) & 0x3F] ;
+			out[op++] = ENCODE[bits & 0x3F] ;
+		}
+
+		if (ip < end) {
+			int b0 = in[ip] & 0xFF ;
+			int b1 = (ip + 1 < end) ? in[ip + 1] & 0xFF : 0 ;
+			out[op++] = ENCODE[b0 >>> 2] ;
+			out[op++] = ENCODE[((b0 & 3) << 4) | (b1 >>> 4)] ;
+			out[op++] = (ip + 1 < end) ? ENCODE[(b1 & 0xF) << 2] : (byte) '=' ;
+			out[op++] = (byte) '=' ;
+		}
+
+		return op ;
+	}
+
+	/**
+	 * Fills as much of the buffer as the stream allows. Returns the number of bytes read, 0 at the end of the stream.
+	 */
+	private static int readFully(InputStream in, byte[] buf) throws IOException {
+		int len = 0 ;
+		int n ;
+		while (len < buf.length && (n = in.read(buf, len, buf.length - len)) >= 0) {
+			len += n ;
+		}
+		return len ;
+	}
+
+	/**
+	 * Accumulates Base64 characters into 4 character groups and writes the decoded bytes of each
+	 * block to the output stream.
+	 */
+	private static class Decoder {
+		private final OutputStream out ;
+		private final byte[] buf ;
+		private int bp = 0 ;
+		private int bits = 0 ;
+		private int count = 0 ;     // characters of the current group seen so far
+		private int padding = 0 ;   // '=' characters seen
+		private long total = 0 ;
+
+		Decoder(OutputStream out, int blockChars) {
+			this.out = out ;
+			this.buf = new byte[blockChars / 4 * 3 + 3] ;
+		}
+
+		void put(int c) {
+			int v = (c < 128) ? DECODE[c] : -1 ;
+			if (v >= 0) {
+				if (padding > 0) {
+					throw new IllegalArgumentException("Illegal character in Base64 encoded data.") ;
+				}
+				bits = (bits << 6) | v ;
+				if (++count == 4) {
+					buf[bp++] = (byte) (bits >>> 16) ;
+					buf[bp++] = (byte) (bits >>> 8) ;
+					buf[bp++] = (byte) bits ;
+					bits = 0 ;
+					count = 0 ;
+				}
+			} else if (v == PAD) {
+				// "xx==" or "xxx=" ends the data.
+				if (count < 2) {
+					throw new IllegalArgumentException("Illegal padding in Base64 encoded data.") ;
+				}
+				padding++ ;
+				if (count + padding == 4) {
+					if (count == 2) {
+						buf[bp++] = (byte) (bits >>> 4) ;
+					} else {
+						buf[bp++] = (byte) (bits >>> 10) ;
+						buf[bp++] = (byte) (bits >>> 2) ;
+					}
+					bits = 0 ;
+					count = 0 ;
+				}
+			} else if (v != WS) {
+				throw new IllegalArgumentException("Illegal character in Base64 encoded data.") ;
+			}
+		}
+
+		void flush() throws IOException {
+			if (bp > 0) {
+				out.write(buf, 0, bp) ;
+				total += bp ;
+				bp = 0 ;
+			}
+		}
+
+		long finish() throws IOException {
+			if (count != 0) {
+				throw new IllegalArgumentException("Length of Base64 encoded input string is not a multiple of 4.") ;
+			}
+			flush() ;
+			return total ;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+ByteArrayBuilder:
+
+    Description:
+        A growable byte array that values are appended to before they are hashed (see DigestEngine
+        and ResultSetFingerprint.) Strings are appended as UTF-8 without creating an intermediate byte
+        array and numbers in big endian order, and the array is reused after reset(), so building the
+        input of a hash allocates nothing once the array has grown to the size of the largest input.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+public class ByteArrayBuilder {
+
+	private byte[] buf ;
+	private int len = 0 ;
+
+	public ByteArrayBuilder() {
+		this(256) ;
+	}
+
+	public ByteArrayBuilder(int initialCapacity) {
+		buf = new byte[Math.max(initialCapacity, 16)] ;
+	}
+
+	/**
+	 * Returns the internal array. Only the first length() bytes are valid and the array may be
+	 * replaced by the next append.
+	 */
+	public byte[] array() {
+		return buf ;
+	}
+
+	public int length() {
+		return len ;
+	}
+
+	public ByteArrayBuilder reset() {
+		len = 0 ;
+		return this ;
+	}
+
+	public ByteArrayBuilder append(byte b) {
+		ensureCapacity(1) ;
+		buf[len++] = b ;
+		return this ;
+	}
+
+	public ByteArrayBuilder append(byte[] b, int off, int n) {
+		ensureCapacity(n) ;
+		System.arraycopy(b, off, buf, len, n) ;
+		len += n ;
+		return this ;
+	}
+
+	public ByteArrayBuilder appendInt(int v) {
+		ensureCapacity(4) ;
+		buf[len++] = (byte) (v >>> 24) ;
+		buf[len++] = (byte) (v >>> 16) ;
+		buf[len++] = (byte) (v >>> 8) ;
+		buf[len++] = (byte) v ;
+		return this ;
+	}
+
+	public ByteArrayBuilder appendLong(long v) {
+		appendInt((int) (v >>> 32)) ;
+		return appendInt((int) v) ;
+	}
+
+	/**
+	 * Appends the UTF-8 encoding of a string. Unpaired surrogates are encoded as '?' (as
+	 * String.getBytes("UTF-8") does.)
+	 */
+	public ByteArrayBuilder appendUtf8(CharSequence s) {
+		int n = s.length() ;
+		ensureCapacity(n * 3) ;
+		byte[] b = buf ;
+		int p = len ;
+		for (int i = 0; i < n; i++) {
+			char c = s.charAt(i) ;
+			if (c < 0x80) {
+				b[p++] = (byte) c ;
+			} else if (c < 0x800) {
+				b[p++] = (byte) (0xC0 | (c >> 6)) ;
+				b[p++] = (byte) (0x80 | (c & 0x3F)) ;
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i)) ;
+				b[p++] = (byte) (0xF0 | (cp >> 18)) ;
+				b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F)) ;
+				b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F)) ;
+				b[p++] = (byte) (0x80 | (cp & 0x3F)) ;
+			} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+				b[p++] = (byte) '?' ;
+			} else {
+				b[p++] = (byte) (0xE0 | (c >> 12)) ;
+				b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F)) ;
+				b[p++] = (byte) (0x80 | (c & 0x3F)) ;
+			}
+		}
+		len = p ;
+		return this ;
+	}
+
+	private void ensureCapacity(int n) {
+		if (len + n > buf.length) {
+			byte[] b = new byte[Math.max(len + n, buf.length * 2)] ;
+			System.arraycopy(buf, 0, b, 0, len) ;
+			buf = b ;
+		}
+	}
+}
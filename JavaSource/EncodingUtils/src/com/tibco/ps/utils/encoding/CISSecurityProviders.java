@@ -30,6 +30,10 @@ CISSecurityProviders
         some DBMS with advanced security mechanisms) or clients (SOAP and REST service consumes, app 
         servers, ESBs, etc.) when these failures are caused by unsupported security algorithms.
 
+        The providers and services are read once into a sorted snapshot (see SecurityProviderInventory), which
+        is only rebuilt when the installed providers change, so the procedure can be called from health checks
+        without walking the providers each time. Use IsSecurityAlgorithmAvailable to check a single algorithm.
+
     Input:
         N/A
 
@@ -51,12 +55,8 @@ CISSecurityProviders
 
  */
 
-import java.security.Provider;
-import java.security.Security;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import com.compositesw.extension.CustomCursor;
@@ -133,9 +133,12 @@ public class CISSecurityProviders extends EncodingUtilTemplate {
 	 	private int counter = 0 ;
 	 	private List<ResultRecord> results = null ;
 	 	
+	 	/**
+	 	 * Returns the records in list order. The list is only read, so it may be shared (e.g. a
+	 	 * SecurityProviderInventory snapshot.)
+	 	 */
 	 	public ResultsCursor(List<ResultRecord> list) {
 	 		results = list ; 
-	 		Collections.sort(results) ;
 	 	}
 	 	
 	 	public ParameterInfo[] getColumnInfo() { 
@@ -156,24 +159,13 @@ public class CISSecurityProviders extends EncodingUtilTemplate {
  		}
  		
 	 	public void close() throws CustomProcedureException, SQLException {
- 			if ( results != null )
- 				results.clear() ;
+ 			results = null ;
  		}
 	}
  	
 	@Override
 	public int execute(Object[] args) throws Exception {
-		List<ResultRecord> rrl = new ArrayList<ResultRecord>() ;
-		for (Provider provider : Security.getProviders()) {
-//			System.out.println("Provider: " + provider.getName());
-			for (Provider.Service service : provider.getServices()) {
-//				System.out.println("  Algorithm: " + service.getAlgorithm());
-//				System.out.println("  Service: " + service.toString());
-				ResultRecord rr = new ResultRecord(provider.toString(),service.getAlgorithm(),service.toString()) ;
-				rrl.add(rr) ;
-			}
-		}
-		outputCursor = new ResultsCursor(rrl) ;
+		outputCursor = new ResultsCursor(SecurityProviderInventory.getInstance().getRecords()) ;
 		return 0 ;
 	}
 	
@@ -0,0 +1,157 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+CipherPool:
+
+    Description:
+        Pool of initialized Cipher objects used by EncryptDecryptAES and EncryptDecrypt3DES, so that encrypting
+        or decrypting a column value row by row only does the cipher work. Without it every value pays for
+        Cipher.getInstance() (a provider lookup), building the key and IV specs, deriving the key (3DES digests
+        its seed) and Cipher.init().
+
+        Cipher objects are not thread-safe, so each thread has its own pool, a map from (transformation, mode,
+        hash of key material and IV) to a Cipher initialized with them. The derived key is only computed when
+        the Cipher is created, so the pool is also the cache of derived key material. The key material and IV
+        of an entry are compared on each hit, so a hash collision can never use the wrong key. Each pool holds
+        at most MAX_ENTRIES ciphers and drops the least recently used one.
+
+        A Cipher in ENCRYPT_MODE or DECRYPT_MODE returns to its initialized state after doFinal(), which is what
+        allows the reuse. This only holds for modes that may reuse an IV (e.g. CBC and ECB) and not for GCM,
+        which refuses to encrypt twice with the same IV. If doFinal() fails the Cipher is dropped from the pool.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+public class CipherPool {
+
+	// establish the max number of ciphers pooled by each thread
+	public static final int MAX_ENTRIES = 32 ;
+
+	/**
+	 * Derives the key from the key material passed to doFinal() (e.g. from a pass phrase.)
+	 */
+	public interface KeyDeriver {
+		public byte[] deriveKey(byte[] keyMaterial) throws GeneralSecurityException ;
+	}
+
+	private static class PooledCipher {
+		byte[] keyMaterial ;
+		byte[] iv ;
+		Cipher cipher ;
+	}
+
+	private static final ThreadLocal<CipherPool> pools = new ThreadLocal<CipherPool>() {
+		@Override
+		protected CipherPool initialValue() {
+			return new CipherPool() ;
+		}
+	};
+
+	private final Map<String, PooledCipher> ciphers = new LinkedHashMap<String, PooledCipher>(MAX_ENTRIES, 0.75f, true) {
+		private static final long serialVersionUID = 1L ;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PooledCipher> eldest) {
+			return size() > MAX_ENTRIES ;
+		}
+	};
+
+	private final ByteArrayBuilder buffer = new ByteArrayBuilder() ;
+	private final long[] hash = new long[2] ;
+
+	private CipherPool() {
+	}
+
+	/**
+	 * Encrypts or decrypts input with this thread's Cipher for transformation, mode, key material and IV.
+	 *
+	 * @param transformation  e.g. "AES/CBC/PKCS5PADDING"
+	 * @param keyAlgorithm    the algorithm of the SecretKeySpec, e.g. "AES"
+	 * @param mode            Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE
+	 * @param keyMaterial     the key, or the input of deriver
+	 * @param iv              the IV, NULL for none
+	 * @param deriver         derives the key from keyMaterial, NULL to use keyMaterial as the key
+	 */
+	public static byte[] doFinal(String transformation, String keyAlgorithm, int mode, byte[] keyMaterial, byte[] iv,
+			KeyDeriver deriver, byte[] input) throws GeneralSecurityException {
+		return pools.get().doFinal0(transformation, keyAlgorithm, mode, keyMaterial, iv, deriver, input) ;
+	}
+
+	private byte[] doFinal0(String transformation, String keyAlgorithm, int mode, byte[] keyMaterial, byte[] iv,
+			KeyDeriver deriver, byte[] input) throws GeneralSecurityException {
+		buffer.reset().appendInt(keyMaterial.length).append(keyMaterial, 0, keyMaterial.length) ;
+		if (iv != null) {
+			buffer.append(iv, 0, iv.length) ;
+		}
+		Murmur3.hash128(buffer.array(), 0, buffer.length(), 0, hash) ;
+		String id = transformation + '/' + mode + '/' + Murmur3.toHex(hash[0], hash[1]) ;
+
+		PooledCipher e = ciphers.get(id) ;
+		if (e == null || !Arrays.equals(e.keyMaterial, keyMaterial) || !Arrays.equals(e.iv, iv)) {
+			e = new PooledCipher() ;
+			e.keyMaterial = keyMaterial.clone() ;
+			e.iv = (iv == null) ? null : iv.clone() ;
+
+			byte[] key = (deriver == null) ? keyMaterial : deriver.deriveKey(keyMaterial) ;
+			e.cipher = Cipher.getInstance(transformation) ;
+			if (iv == null) {
+				e.cipher.init(mode, new SecretKeySpec(key, keyAlgorithm)) ;
+			} else {
+				e.cipher.init(mode, new SecretKeySpec(key, keyAlgorithm), new IvParameterSpec(iv)) ;
+			}
+			ciphers.put(id, e) ;
+		}
+
+		try {
+			return e.cipher.doFinal(input) ;
+		}
+		catch (GeneralSecurityException ex) {
+			ciphers.remove(id) ;
+			throw ex ;
+		}
+		catch (RuntimeException ex) {
+			ciphers.remove(id) ;
+			throw ex ;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Crc32c:
+
+    Description:
+        CRC-32C (Castagnoli polynomial), the checksum used by iSCSI, ext4, Kafka and many storage formats.
+        java.util.zip.CRC32C only exists from Java 9, so it is computed here with the table driven
+        "slicing by 8" method, which processes 8 bytes per step. The result matches java.util.zip.CRC32C.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+public class Crc32c {
+
+	// reflected Castagnoli polynomial
+	private static final int POLY = 0x82F63B78 ;
+
+	// TABLE[k][b] is the CRC of byte b followed by k zero bytes
+	private static final int[][] TABLE = new int[8][256] ;
+	static {
+		for (int b = 0; b < 256; b++) {
+			int c = b ;
+			for (int k = 0; k < 8; k++) {
+				c = (c >>> 1) ^ ((c & 1) != 0 ? POLY : 0) ;
+			}
+			TABLE[0][b] = c ;
+		}
+		for (int b = 0; b < 256; b++) {
+			for (int k = 1; k < 8; k++) {
+				int c = TABLE[k - 1][b] ;
+				TABLE[k][b] = (c >>> 8) ^ TABLE[0][c & 0xFF] ;
+			}
+		}
+	}
+
+	private Crc32c() {
+	}
+
+	/**
+	 * Returns the CRC-32C of len bytes of b starting at off.
+	 */
+	public static int hash(byte[] b, int off, int len) {
+		return ~update(~0, b, off, len) ;
+	}
+
+	/**
+	 * Continues a CRC. crc is the internal (inverted) register, ~0 to start.
+	 */
+	public static int update(int crc, byte[] b, int off, int len) {
+		int[] t0 = TABLE[0], t1 = TABLE[1], t2 = TABLE[2], t3 = TABLE[3] ;
+		int[] t4 = TABLE[4], t5 = TABLE[5], t6 = TABLE[6], t7 = TABLE[7] ;
+		int p = off ;
+		int end = off + len ;
+
+		for (; p + 8 <= end; p += 8) {
+			int lo = crc ^ ((b[p] & 0xFF) | (b[p + 1] & 0xFF) << 8 | (b[p + 2] & 0xFF) << 16 | (b[p + 3] & 0xFF) << 24) ;
+			int hi = (b[p + 4] & 0xFF) | (b[p + 5] & 0xFF) << 8 | (b[p + 6] & 0xFF) << 16 | (b[p + 7] & 0xFF) << 24 ;
+			crc = t7[lo & 0xFF] ^ t6[(lo >>> 8) & 0xFF] ^ t5[(lo >>> 16) & 0xFF] ^ t4[lo >>> 24]
+				^ t3[hi & 0xFF] ^ t2[(hi >>> 8) & 0xFF] ^ t1[(hi >>> 16) & 0xFF] ^ t0[hi >>> 24] ;
+		}
+		for (; p < end; p++) {
+			crc = (crc >>> 8) ^ t0[(crc ^ b[p]) & 0xFF] ;
+		}
+		return crc ;
+	}
+}
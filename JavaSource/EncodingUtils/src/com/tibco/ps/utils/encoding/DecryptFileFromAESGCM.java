@@ -0,0 +1,141 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+DecryptFileFromAESGCM:
+
+    Description:
+        Decrypts a file encrypted by EncryptFileWithAESGCM (or written through a GcmChunkOutputStream) into another
+        file. Each chunk is verified before it is written, and a file that was truncated, reordered or tampered
+        with fails (see GcmChunkCodec.) The chunks can be decrypted by several threads at once.
+
+
+    Input:
+        inputFilePath - The path of the encrypted file.
+            Values: A file path on the CIS server
+
+        outputFilePath - The path of the decrypted file. An existing file is replaced.
+            Values: A file path on the CIS server
+
+        key - The AES key in hex.
+            Values: 32, 48 or 64 hex digits (a 128, 192 or 256 bit key)
+
+        threads - The number of threads that decrypt chunks in parallel.
+            Values: 1 or more (more than the number of processors uses one per processor), NULL for 1
+
+
+    Output:
+        bytesWritten - The size of the decrypted file.
+            Values: Any BIGINT value
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when a file path is not provided, the key is invalid, a file can't be read
+                                   or written or the encrypted file fails verification. The output file is deleted
+                                   when decryption fails.
+
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class DecryptFileFromAESGCM extends EncodingUtilTemplate {
+
+	private Long bytesWritten = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Decrypts a file encrypted by EncryptFileWithAESGCM into a file" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("inputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("outputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("key", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("threads", Types.INTEGER, DIRECTION_IN),
+			new ParameterInfo("bytesWritten", Types.BIGINT, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { bytesWritten } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String inputFilePath = (String) args[0] ;
+		String outputFilePath = (String) args[1] ;
+		byte[] key = GcmChunkCodec.parseKey((String) args[2]) ;
+		int threads = (args[3] == null) ? 1 : ((Integer) args[3]).intValue() ;
+
+		if (inputFilePath == null || outputFilePath == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameters inputFilePath and outputFilePath must be provided.") ;
+		}
+		if (threads < 1) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter threads must be 1 or more.") ;
+		}
+		// each thread holds 2 chunk buffers, so more threads than processors only cost memory
+		threads = Math.min(threads, Runtime.getRuntime().availableProcessors()) ;
+
+		InputStream in = null ;
+		OutputStream out = null ;
+		boolean ok = false ;
+		try {
+			in = new FileInputStream(inputFilePath) ;
+			GcmChunkCodec codec = GcmChunkCodec.forDecryption(key, in) ;
+			out = new FileOutputStream(outputFilePath) ;
+			bytesWritten = Long.valueOf(codec.decrypt(in, out, threads)) ;
+			ok = true ;
+		}
+		finally {
+			if (in != null) {
+				in.close() ;
+			}
+			if (out != null) {
+				out.close() ;
+			}
+			if (!ok) {
+				new File(outputFilePath).delete() ;
+			}
+		}
+
+		log(LOG_DEBUG, getName() + ": wrote " + bytesWritten + " bytes to " + outputFilePath) ;
+		return 0 ;
+	}
+}
@@ -0,0 +1,96 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+DecryptWithCISPrivKeyEnvelope() 
+
+    Description:
+        Decrypts a string encrypted by EncryptWithCISPubKeyEnvelope using CIS's built in SSL certificate.
+        The data key of a value is only decrypted with the private key the first time it is seen (see
+        EnvelopeCipher.)
+
+    Input:
+        "encrypted hex string" - The encrypted value in hex.
+            Values - Any text string
+
+        "keystore password" - The password of the CIS SSL keystore.
+            Values - Any text string, NULL for the default
+
+
+    Output:
+        "plain text" - The decrypted string
+            Values - Any text string
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the keystore can't be read, or the value is not in the envelope
+                                   format, was encrypted with another certificate or was tampered with.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class DecryptWithCISPrivKeyEnvelope extends EncodingUtilTemplate {
+
+	private String decMessage = null;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Decrypts input (a hexadecimal representation of an envelope produced by EncryptWithCISPubKeyEnvelope) using CIS private key (from keystore file)";
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("encrypted hex string", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("keystore password", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("plain text", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { decMessage };
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String encText = (String) args[0] ;
+		String password = (args[1] != null && args[1].toString().trim().length() > 0) ? (String) args[1] : EncryptDecryptX509.DEFAULT_CIS_PASSWORD ;
+
+		if (encText != null) {
+			byte[] bytes = EncryptDecryptX509.bytes(encText) ;
+			decMessage = new String(EnvelopeCipher.decrypt(ServerKeystoreCache.getPrivateKey(cjpenv, password), bytes), "UTF-8") ;
+		}
+		return 0 ;
+	}
+}
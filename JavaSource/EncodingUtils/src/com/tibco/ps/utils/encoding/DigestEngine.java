@@ -0,0 +1,217 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+DigestEngine:
+
+    Description:
+        Message digest (hash) engine used by MD5Hash, SHA1Hash, HashString, HashBlob and HashFile.
+
+        MessageDigest.getInstance() searches the installed security providers on every call, so each
+        thread keeps one MessageDigest per algorithm and resets it before use. Strings are encoded to
+        UTF-8 into a per-thread buffer instead of a new byte array, and digests are converted to hex
+        with a lookup table, so hashing a string allocates nothing but the result.
+
+        BLOBs and files are hashed as streams in BLOCK_SIZE byte blocks and are never held in memory.
+
+        Supported algorithms: MD5, SHA-1, SHA-256, SHA-512 and SHA3-256 (names are case insensitive and
+        the dash is optional, e.g. "sha256".) SHA3-256 is built into Java 9 and later; on older JVMs it
+        requires a security provider that supplies it (e.g. Bouncy Castle.)
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IllegalArgumentException - Thrown for an unknown algorithm name.
+        NoSuchAlgorithmException - Thrown when the JVM has no provider for a supported algorithm (SHA3-256.)
+
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+public class DigestEngine {
+
+	public static final String MD5 = "MD5" ;
+	public static final String SHA1 = "SHA-1" ;
+	public static final String SHA256 = "SHA-256" ;
+	public static final String SHA512 = "SHA-512" ;
+	public static final String SHA3_256 = "SHA3-256" ;
+
+	private static final String[] ALGORITHMS = { MD5, SHA1, SHA256, SHA512, SHA3_256 } ;
+
+	// number of bytes read at a time from BLOBs and files.
+	public static final int BLOCK_SIZE = 64 * 1024 ;
+
+	// HEX[2 * b] and HEX[2 * b + 1] are the lower case hex digits of byte b.
+	private static final char[] HEX = new char[512] ;
+	static {
+		String digits = "0123456789abcdef" ;
+		for (int b = 0; b < 256; b++) {
+			HEX[2 * b] = digits.charAt(b >>> 4) ;
+			HEX[2 * b + 1] = digits.charAt(b & 0xF) ;
+		}
+	}
+
+	private static final ThreadLocal<DigestEngine> engines = new ThreadLocal<DigestEngine>() {
+		@Override
+		protected DigestEngine initialValue() {
+			return new DigestEngine() ;
+		}
+	};
+
+	private final MessageDigest[] digests = new MessageDigest[ALGORITHMS.length] ;
+	private final ByteArrayBuilder utf8 = new ByteArrayBuilder() ;
+	private byte[] block = null ;
+	private final char[] hex = new char[128] ;
+
+	private DigestEngine() {
+	}
+
+	/**
+	 * Returns the calling thread's engine.
+	 */
+	public static DigestEngine getInstance() {
+		return engines.get() ;
+	}
+
+	/**
+	 * Returns the standard name of an algorithm, e.g. "SHA-256" for "sha256".
+	 */
+	public static String getAlgorithmName(String algorithm) {
+		return ALGORITHMS[indexOf(algorithm)] ;
+	}
+
+	/**
+	 * Returns the lower case hex digest of the UTF-8 bytes of a string.
+	 */
+	public String hashString(String algorithm, String s) throws NoSuchAlgorithmException {
+		MessageDigest md = getDigest(algorithm) ;
+		utf8.reset().appendUtf8(s) ;
+		md.update(utf8.array(), 0, utf8.length()) ;
+		return toHex(md.digest()) ;
+	}
+
+	/**
+	 * Returns the lower case hex digest of a byte array.
+	 */
+	public String hashBytes(String algorithm, byte[] bytes) throws NoSuchAlgorithmException {
+		MessageDigest md = getDigest(algorithm) ;
+		md.update(bytes) ;
+		return toHex(md.digest()) ;
+	}
+
+	/**
+	 * Returns the lower case hex digest of a BLOB, reading it in blocks.
+	 */
+	public String hashBlob(String algorithm, Blob blob) throws NoSuchAlgorithmException, SQLException, IOException {
+		return hashStream(algorithm, new BlobInputStream(blob, BLOCK_SIZE)) ;
+	}
+
+	/**
+	 * Returns the lower case hex digest of a file's contents, reading it in blocks.
+	 */
+	public String hashFile(String algorithm, String filePath) throws NoSuchAlgorithmException, IOException {
+		InputStream in = new FileInputStream(filePath) ;
+		try {
+			return hashStream(algorithm, in) ;
+		}
+		finally {
+			in.close() ;
+		}
+	}
+
+	/**
+	 * Returns the lower case hex digest of the rest of a stream. The stream is not closed.
+	 */
+	public String hashStream(String algorithm, InputStream in) throws NoSuchAlgorithmException, IOException {
+		MessageDigest md = getDigest(algorithm) ;
+		if (block == null) {
+			block = new byte[BLOCK_SIZE] ;
+		}
+		int n ;
+		while ((n = in.read(block, 0, block.length)) >= 0) {
+			md.update(block, 0, n) ;
+		}
+		return toHex(md.digest()) ;
+	}
+
+	/**
+	 * Returns this thread's (reset) MessageDigest for an algorithm.
+	 */
+	private MessageDigest getDigest(String algorithm) throws NoSuchAlgorithmException {
+		int i = indexOf(algorithm) ;
+		MessageDigest md = digests[i] ;
+		if (md == null) {
+			try {
+				md = MessageDigest.getInstance(ALGORITHMS[i]) ;
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new NoSuchAlgorithmException(ALGORITHMS[i] + " is not available in this JVM"
+					+ (i == 4 ? " (it requires Java 9 or later, or a security provider that supplies it.)" : "."), e) ;
+			}
+			digests[i] = md ;
+		} else {
+			md.reset() ;
+		}
+		return md ;
+	}
+
+	private static int indexOf(String algorithm) {
+		if (algorithm != null) {
+			// the canonical names (as passed by the batch CJPs on every row) are matched without allocating
+			for (int i = 0; i < ALGORITHMS.length; i++) {
+				if (ALGORITHMS[i].equalsIgnoreCase(algorithm)) {
+					return i ;
+				}
+			}
+			String a = algorithm.trim().replace("-", "").replace("_", "").toUpperCase() ;
+			if (a.equals("MD5")) return 0 ;
+			if (a.equals("SHA1") || a.equals("SHA")) return 1 ;
+			if (a.equals("SHA256")) return 2 ;
+			if (a.equals("SHA512")) return 3 ;
+			if (a.equals("SHA3256")) return 4 ;
+		}
+		throw new IllegalArgumentException("Unsupported hash algorithm " + algorithm + ". Must be one of MD5, SHA-1, SHA-256, SHA-512 or SHA3-256.") ;
+	}
+
+	private String toHex(byte[] digest) {
+		int p = 0 ;
+		for (int i = 0; i < digest.length; i++) {
+			int k = (digest[i] & 0xFF) << 1 ;
+			hex[p++] = HEX[k] ;
+			hex[p++] = HEX[k + 1] ;
+		}
+		return new String(hex, 0, p) ;
+	}
+}
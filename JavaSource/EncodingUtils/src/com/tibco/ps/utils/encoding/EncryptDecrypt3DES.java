@@ -19,49 +19,39 @@ package com.tibco.ps.utils.encoding;
  * 
  */
 
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.util.Arrays;
 
 import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 
 public class EncryptDecrypt3DES {
 
-	public byte[] encrypt(String message, byte[] seed) throws Exception {
-		MessageDigest md = MessageDigest.getInstance("md5");
-		byte[] digest = md.digest(seed);
-		byte[] keyBytes = Arrays.copyOf(digest, 24);
-		for (int j = 0, k = 16; j < 8;) {
-			keyBytes[k++] = keyBytes[j++];
+	private static final String TRANSFORMATION = "DESede/CBC/PKCS5Padding";
+
+	private static final byte[] ZERO_IV = new byte[8];
+
+	// derives the 24 byte key from the MD5 digest of the seed (K1, K2, K1.) Only called when
+	// CipherPool creates a Cipher for a new seed.
+	private static final CipherPool.KeyDeriver MD5_KEY = new CipherPool.KeyDeriver() {
+		public byte[] deriveKey(byte[] seed) throws GeneralSecurityException {
+			MessageDigest md = MessageDigest.getInstance("md5");
+			byte[] digest = md.digest(seed);
+			byte[] keyBytes = Arrays.copyOf(digest, 24);
+			for (int j = 0, k = 16; j < 8;) {
+				keyBytes[k++] = keyBytes[j++];
+			}
+			return keyBytes;
 		}
+	};
 
-		SecretKey key = new SecretKeySpec(keyBytes, "DESede");
-		IvParameterSpec iv = new IvParameterSpec(new byte[8]);
-		Cipher cipher = Cipher.getInstance("DESede/CBC/PKCS5Padding");
-		cipher.init(Cipher.ENCRYPT_MODE, key, iv);
-
+	public byte[] encrypt(String message, byte[] seed) throws Exception {
 		byte[] plainTextBytes = message.getBytes("utf-8");
-		byte[] cipherText = cipher.doFinal(plainTextBytes);
-
-		return cipherText;
+		return CipherPool.doFinal(TRANSFORMATION, "DESede", Cipher.ENCRYPT_MODE, seed, ZERO_IV, MD5_KEY, plainTextBytes);
 	}
 
 	public String decrypt(byte[] message, byte[] seed) throws Exception {
-		MessageDigest md = MessageDigest.getInstance("md5");
-		byte[] digest = md.digest(seed);
-		byte[] keyBytes = Arrays.copyOf(digest, 24);
-		for (int j = 0, k = 16; j < 8;) {
-			keyBytes[k++] = keyBytes[j++];
-		}
-
-		SecretKey key = new SecretKeySpec(keyBytes, "DESede");
-		IvParameterSpec iv = new IvParameterSpec(new byte[8]);
-		Cipher decipher = Cipher.getInstance("DESede/CBC/PKCS5Padding");
-		decipher.init(Cipher.DECRYPT_MODE, key, iv);
-		byte[] plainText = decipher.doFinal(message);
-
+		byte[] plainText = CipherPool.doFinal(TRANSFORMATION, "DESede", Cipher.DECRYPT_MODE, seed, ZERO_IV, MD5_KEY, message);
 		return new String(plainText, "UTF-8");
 	}
 
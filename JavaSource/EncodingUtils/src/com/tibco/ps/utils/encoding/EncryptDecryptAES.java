@@ -23,31 +23,19 @@ import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Base64;
 import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 //import javax.xml.bind.DatatypeConverter;
 
 public class EncryptDecryptAES {
 
-    public byte[] encrypt(String value, byte[] key, String initVector) throws Exception {
-    	IvParameterSpec iv = new IvParameterSpec(initVector.getBytes("UTF-8"));
-    	SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
-
-    	Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
-    	cipher.init(Cipher.ENCRYPT_MODE, skeySpec, iv);
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5PADDING";
 
-    	byte[] encrypted = cipher.doFinal(value.getBytes());
-    	return encrypted;
+    // the Cipher for a key and IV is created and initialized once per thread (see CipherPool)
+    public byte[] encrypt(String value, byte[] key, String initVector) throws Exception {
+    	return CipherPool.doFinal(TRANSFORMATION, "AES", Cipher.ENCRYPT_MODE, key, initVector.getBytes("UTF-8"), null, value.getBytes());
     }
 
     public String decrypt(byte[] encrypted, byte[] key, String initVector) throws Exception {
-    	IvParameterSpec iv = new IvParameterSpec(initVector.getBytes("UTF-8"));
-    	SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
-
-    	Cipher decipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
-    	decipher.init(Cipher.DECRYPT_MODE, skeySpec, iv);
-
-    	byte[] plainText = decipher.doFinal(encrypted);
+    	byte[] plainText = CipherPool.doFinal(TRANSFORMATION, "AES", Cipher.DECRYPT_MODE, key, initVector.getBytes("UTF-8"), null, encrypted);
     	return new String(plainText,"UTF-8");
     }
 	
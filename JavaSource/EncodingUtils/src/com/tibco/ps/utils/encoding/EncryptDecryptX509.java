@@ -19,12 +19,9 @@ package com.tibco.ps.utils.encoding;
  * 
  */
 
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.security.KeyStore;
+import java.security.Key;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 
 import javax.crypto.Cipher;
 
@@ -80,6 +77,34 @@ public class EncryptDecryptX509 {
     public static final String DEFAULT_CIS_KEY_ALIAS = "cis_server" ;
     public static final String DEFAULT_CIS_PASSWORD = "changeit" ;
     
+	// each thread reuses its RSA ciphers, which only need to be initialized again when the key changes
+	private static final ThreadLocal<Cipher[]> ciphers = new ThreadLocal<Cipher[]>() {
+		@Override
+		protected Cipher[] initialValue() {
+			return new Cipher[2];
+		}
+	};
+	private static final ThreadLocal<Key[]> cipherKeys = new ThreadLocal<Key[]>() {
+		@Override
+		protected Key[] initialValue() {
+			return new Key[2];
+		}
+	};
+
+	private static Cipher getCipher(int mode, Key key) throws Exception {
+		int i = (mode == Cipher.ENCRYPT_MODE) ? 0 : 1;
+		Cipher[] c = ciphers.get();
+		Key[] k = cipherKeys.get();
+		if (c[i] == null) {
+			c[i] = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+		}
+		if (k[i] != key) {
+			c[i].init(mode, key);
+			k[i] = key;
+		}
+		return c[i];
+	}
+
 	public byte[] encrypt(String message, String password) throws Exception {
 /* This code is for testing various scenarios where the output is XML and non-XML.  The XML output is not working.
 		// original call using lookup procedure
@@ -102,39 +127,9 @@ public class EncryptDecryptX509 {
         String result6 = ServerUtil.executeQuery(env, "getValueFromXML", 
         		"/shared/ASAssets/Utilities/\"xml\"/getValueFromXML", "N","xmlns:server=\"http://www.compositesw.com/services/system/admin/server\"","/server:getServerAttributes/server:paths/server:path",request);
 */
-	  // Get sever version
-		String version = ServerUtil.getServerAttributeAS(env, ServerUtil.VERSION);
-
-		String certFile = null;
-		if (version.substring(0,1).equalsIgnoreCase("6") || version.substring(0,1).equalsIgnoreCase("7")) {
-			// Version 7
-			certFile = (env == null ? STRONG_DEFAULT_CIS_KEYSTORE : ServerUtil.getServerAttributeAS(env, ServerUtil.STRONG_KEYSTORE_LOCATION_ATTR));
-		} else {
-			// Version 8
-			certFile = (env == null ? DEFAULT_CIS_KEYSTORE : ServerUtil.getServerAttributeAS(env, ServerUtil.KEYSTORE_LOCATION_ATTR));
-		}
-
-		//System.out.println( "EncryptDecryptX509: certFile=" + certFile );
-		if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [encrypt] certFile=" + certFile);
-		InputStream inStream = new FileInputStream(certFile);
-		KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType() );
-		keystore.load(inStream, password.toCharArray());
-
-		String alias = null;
-		if (version.substring(0,1).equalsIgnoreCase("6") || version.substring(0,1).equalsIgnoreCase("7")) {
-			// Version 7
-			alias = (env == null ? STRONG_DEFAULT_CIS_KEY_ALIAS : ServerUtil.getServerAttributeAS(env, ServerUtil.STRONG_KEYSTORE_KEY_ALIAS_ATTR));
-		} else {
-			// Version 8
-			alias = (env == null ? DEFAULT_CIS_KEY_ALIAS : ServerUtil.getServerAttributeAS(env, ServerUtil.KEYSTORE_KEY_ALIAS_ATTR));				
-		}
-		
-		//System.out.println( "EncryptDecryptX509: alias=" + alias );
-		if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [encrypt] alias=" + alias);
-        Certificate cert = keystore.getCertificate(alias);
-        PublicKey pubKey = cert.getPublicKey();
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.ENCRYPT_MODE, pubKey);
+		// the server attributes and the keystore are cached (see ServerKeystoreCache)
+		PublicKey pubKey = ServerKeystoreCache.getPublicKey(env, password);
+        Cipher cipher = getCipher(Cipher.ENCRYPT_MODE, pubKey);
         //System.out.println( "EncryptDecryptX509: Start encryption using " + cipher.getProvider().getInfo() );
         if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [encrypt] Start encryption using " + cipher.getProvider().getInfo());
         byte[] cipherText = cipher.doFinal(message.getBytes());
@@ -145,41 +140,19 @@ public class EncryptDecryptX509 {
 
 	public String decrypt(byte[] message, String password) throws Exception {
 
-		// Get sever version
-		String version = ServerUtil.getServerAttributeAS(env, ServerUtil.VERSION);
-		
-        String certFile = null;
-		if (version.substring(0,1).equalsIgnoreCase("6") || version.substring(0,1).equalsIgnoreCase("7")) {
-			// Version 7
-			certFile = (env == null ? STRONG_DEFAULT_CIS_KEYSTORE : ServerUtil.getServerAttributeAS(env, ServerUtil.STRONG_KEYSTORE_LOCATION_ATTR));
-		} else {
-			// Version 8
-			certFile = (env == null ? DEFAULT_CIS_KEYSTORE : ServerUtil.getServerAttributeAS(env, ServerUtil.KEYSTORE_LOCATION_ATTR));
-		}
-
-		//System.out.println( "EncryptDecryptX509: certFile=" + certFile );
-		if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [decrypt] certFile=" + certFile);
-		InputStream inStream = new FileInputStream(certFile);
-		KeyStore keystore = KeyStore.getInstance( KeyStore.getDefaultType() );
-		keystore.load(inStream, password.toCharArray());
-		        
-		String alias = null;
-		if (version.substring(0,1).equalsIgnoreCase("6") || version.substring(0,1).equalsIgnoreCase("7")) {
-			// Version 7
-			alias = (env == null ? STRONG_DEFAULT_CIS_KEY_ALIAS : ServerUtil.getServerAttributeAS(env, ServerUtil.STRONG_KEYSTORE_KEY_ALIAS_ATTR));
-		} else {
-			// Version 8
-			alias = (env == null ? DEFAULT_CIS_KEY_ALIAS : ServerUtil.getServerAttributeAS(env, ServerUtil.KEYSTORE_KEY_ALIAS_ATTR));				
-		}
-
-		//System.out.println( "EncryptDecryptX509: alias=" + alias );
-		if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [decrypt] alias=" + alias);
-		PrivateKey privKey = (PrivateKey)keystore.getKey(alias, password.toCharArray());
-		Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-		cipher.init(Cipher.DECRYPT_MODE, privKey);
+		// the server attributes and the keystore are cached (see ServerKeystoreCache)
+		PrivateKey privKey = ServerKeystoreCache.getPrivateKey(env, password);
+		Cipher cipher = getCipher(Cipher.DECRYPT_MODE, privKey);
 		//System.out.println( "EncryptDecryptX509: Start decryption using " + cipher.getProvider() + " algorithm " + cipher.getAlgorithm() );
 		if (env != null) env.log (ProcedureConstants.LOG_DEBUG, "EncryptDecryptX509: [decrypt] Start decryption using " + cipher.getProvider().getInfo());
-		byte[] plainText = cipher.doFinal(message);
+		byte[] plainText;
+		try {
+			plainText = cipher.doFinal(message);
+		} catch (Exception e) {
+			// initialize the cipher again next time
+			cipherKeys.get()[1] = null;
+			throw e;
+		}
 		//System.out.println( "EncryptDecryptX509: Finish decryption: [" + new String(plainText, "UTF8") + "]");
 		if (env != null) env.log (ServerUtil.LOG_TYPE, "EncryptDecryptX509: [decrypt] Finish decryption: [" + new String(plainText, "UTF8") + "]");
 		return new String(plainText,"UTF8") ;
@@ -0,0 +1,109 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+EncryptWithCISPubKeyEnvelope() 
+
+    Description:
+        Encrypts a string of any size using CIS's built in SSL certificate in envelope mode: the value is
+        encrypted with AES-GCM under a data key that is itself encrypted with the certificate's public key
+        (see EnvelopeCipher.) Unlike EncryptWithCISPubKey, which uses RSA directly, values aren't limited to
+        about 245 bytes and encrypting a column row by row runs at AES speed.
+
+        Values are not compact. Each one carries the data key encrypted with the certificate (261 bytes with
+        a 2048 bit certificate), a 12 byte nonce and a 16 byte tag, about 289 bytes on top of the UTF-8 plain
+        text: a 9 character SSN becomes about 298 bytes, or about 600 hex digits (store the raw bytes in a
+        VARBINARY column to halve that.) This is what lets any value be decrypted on its own with nothing but
+        the server's private key, on any server with the certificate and with no table of data keys to keep,
+        replicate and back up alongside the data (losing it would make the values unreadable.) Where the size
+        of short values matters more, use EncryptWithAES with a managed key, or Tokenize.
+
+    Input:
+        "plain text" - The string to encrypt (as UTF-8.)
+            Values - Any text string
+
+        "keystore password" - The password of the CIS SSL keystore.
+            Values - Any text string, NULL for the default
+
+
+    Output:
+        "encrypted raw bytes" - The encrypted value in the envelope format.
+            Values - A byte array
+
+        "encrypted hex string" - The encrypted value in hex.
+            Values - Any text string
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the keystore can't be read.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class EncryptWithCISPubKeyEnvelope extends EncodingUtilTemplate {
+
+	private byte[] encMessage = null;
+	private String hexString = null;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Encrypts input of any size using AES-GCM under a data key encrypted with the CIS Public Key (from CIS keystore file)";
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("plain text", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("keystore password", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("encrypted raw bytes", Types.VARBINARY, DIRECTION_OUT),
+			new ParameterInfo("encrypted hex string", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { encMessage, hexString };
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String plainText = (String) args[0] ;
+		String password = (args[1] != null && args[1].toString().trim().length() > 0) ? (String) args[1] : EncryptDecryptX509.DEFAULT_CIS_PASSWORD ;
+
+		if (plainText != null) {
+			encMessage = EnvelopeCipher.encrypt(ServerKeystoreCache.getPublicKey(cjpenv, password), plainText.getBytes("UTF-8")) ;
+			hexString = EncryptDecryptX509.hex(encMessage) ;
+		}
+		return 0 ;
+	}
+}
@@ -0,0 +1,271 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+EnvelopeCipher:
+
+    Description:
+        Hybrid (envelope) encryption with the CIS server certificate, used by EncryptWithCISPubKeyEnvelope and
+        DecryptWithCISPrivKeyEnvelope. Encrypting directly with RSA (as EncryptWithCISPubKey does) limits a value
+        to about 245 bytes and costs an RSA operation per value. Instead, values are encrypted with AES-GCM
+        under a random 256 bit data key, and the data key is encrypted ("wrapped") with the server's RSA public
+        key once and carried along with each value.
+
+        The data key is reused for DATA_KEY_MAX_USES values or DATA_KEY_LIFETIME milliseconds, whichever comes
+        first, and then replaced. Each value gets its own random 96 bit nonce. Unwrapped data keys are cached
+        when decrypting, so RSA is only used once per data key on either side and bulk column encryption runs
+        at AES speed. Values of any size can be encrypted.
+
+        Format (version 1), so that any value can be decrypted on its own:
+            2 bytes     magic 'C' 'E'
+            1 byte      version (1)
+            2 bytes     length n of the wrapped key (big endian)
+            n bytes     the data key wrapped with RSA/ECB/OAEPWithSHA-256AndMGF1Padding
+            12 bytes    nonce
+            rest        AES/GCM/NoPadding ciphertext followed by the 16 byte tag
+        The header (everything before the nonce) is authenticated as GCM additional data, so tampering with any
+        part of a value makes decryption fail.
+
+        The overhead is 5 + the RSA key size (in bytes) + 28 bytes per value, 289 bytes with a 2048 bit key. It
+        is kept on purpose: carrying a short key id instead of the wrapped key would need the wrapped keys to
+        be stored (and never lost) somewhere else, while this way a value only needs the private key.
+
+        AES-GCM requires Java 7 or later (the CIS/TDV 7 and 8 servers run Java 8.)
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        GeneralSecurityException - Thrown when a value is not in the envelope format, was encrypted with another
+                                   certificate or was tampered with.
+
+ */
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+public class EnvelopeCipher {
+
+	public static final long DATA_KEY_MAX_USES = 1L << 24 ;
+	public static final long DATA_KEY_LIFETIME = 60 * 60 * 1000L ;
+
+	// establish the max number of unwrapped data keys cached for decryption
+	public static final int MAX_CACHED_KEYS = 256 ;
+
+	private static final byte MAGIC_1 = 'C' ;
+	private static final byte MAGIC_2 = 'E' ;
+	private static final byte VERSION = 1 ;
+	private static final int NONCE_LENGTH = 12 ;
+	private static final int TAG_BITS = 128 ;
+	private static final String WRAP_TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding" ;
+	private static final String DATA_TRANSFORMATION = "AES/GCM/NoPadding" ;
+
+	private static class DataKey {
+		final PublicKey publicKey ;
+		final SecretKey key ;
+		final byte[] header ;
+		final long expires ;
+		final AtomicLong uses = new AtomicLong() ;
+
+		DataKey(PublicKey publicKey, SecretKey key, byte[] header, long expires) {
+			this.publicKey = publicKey ;
+			this.key = key ;
+			this.header = header ;
+			this.expires = expires ;
+		}
+	}
+
+	private static class UnwrappedKey {
+		final PrivateKey privateKey ;
+		final byte[] header ;
+		final SecretKey key ;
+
+		UnwrappedKey(PrivateKey privateKey, byte[] header, SecretKey key) {
+			this.privateKey = privateKey ;
+			this.header = header ;
+			this.key = key ;
+		}
+	}
+
+	private static class ThreadState {
+		final SecureRandom random = new SecureRandom() ;
+		final long[] hash = new long[2] ;
+		Cipher cipher ;
+	}
+
+	private static final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>() {
+		@Override
+		protected ThreadState initialValue() {
+			return new ThreadState() ;
+		}
+	};
+
+	private static volatile DataKey currentKey = null ;
+	private static final ConcurrentHashMap<String, UnwrappedKey> unwrappedKeys = new ConcurrentHashMap<String, UnwrappedKey>() ;
+
+	private EnvelopeCipher() {
+	}
+
+	/**
+	 * Encrypts a value under the current data key for publicKey.
+	 */
+	public static byte[] encrypt(PublicKey publicKey, byte[] plainText) throws GeneralSecurityException {
+		DataKey dk = getDataKey(publicKey) ;
+		ThreadState ts = threadStates.get() ;
+
+		byte[] out = new byte[dk.header.length + NONCE_LENGTH + plainText.length + TAG_BITS / 8] ;
+		System.arraycopy(dk.header, 0, out, 0, dk.header.length) ;
+		byte[] nonce = new byte[NONCE_LENGTH] ;
+		ts.random.nextBytes(nonce) ;
+		System.arraycopy(nonce, 0, out, dk.header.length, NONCE_LENGTH) ;
+
+		Cipher cipher = getCipher(ts) ;
+		cipher.init(Cipher.ENCRYPT_MODE, dk.key, new GCMParameterSpec(TAG_BITS, nonce)) ;
+		cipher.updateAAD(dk.header) ;
+		cipher.doFinal(plainText, 0, plainText.length, out, dk.header.length + NONCE_LENGTH) ;
+		return out ;
+	}
+
+	/**
+	 * Decrypts a value produced by encrypt() with the private key matching its public key.
+	 */
+	public static byte[] decrypt(PrivateKey privateKey, byte[] envelope) throws GeneralSecurityException {
+		if (!isEnvelope(envelope)) {
+			throw new GeneralSecurityException("The value is not in the envelope format (version " + VERSION + ").") ;
+		}
+		int headerLength = 5 + (((envelope[3] & 0xFF) << 8) | (envelope[4] & 0xFF)) ;
+		if (envelope.length < headerLength + NONCE_LENGTH + TAG_BITS / 8) {
+			throw new GeneralSecurityException("The envelope is truncated.") ;
+		}
+
+		ThreadState ts = threadStates.get() ;
+		SecretKey key = getUnwrappedKey(privateKey, envelope, headerLength, ts) ;
+
+		Cipher cipher = getCipher(ts) ;
+		cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, envelope, headerLength, NONCE_LENGTH)) ;
+		cipher.updateAAD(envelope, 0, headerLength) ;
+		int offset = headerLength + NONCE_LENGTH ;
+		return cipher.doFinal(envelope, offset, envelope.length - offset) ;
+	}
+
+	/**
+	 * Returns true if a value starts with the envelope header.
+	 */
+	public static boolean isEnvelope(byte[] value) {
+		return value != null && value.length > 5 && value[0] == MAGIC_1 && value[1] == MAGIC_2 && value[2] == VERSION ;
+	}
+
+	private static DataKey getDataKey(PublicKey publicKey) throws GeneralSecurityException {
+		DataKey dk = currentKey ;
+		long now = System.currentTimeMillis() ;
+		if (dk != null && dk.publicKey.equals(publicKey) && now < dk.expires && dk.uses.incrementAndGet() <= DATA_KEY_MAX_USES) {
+			return dk ;
+		}
+
+		synchronized (EnvelopeCipher.class) {
+			dk = currentKey ;
+			if (dk != null && dk.publicKey.equals(publicKey) && now < dk.expires && dk.uses.incrementAndGet() <= DATA_KEY_MAX_USES) {
+				return dk ;
+			}
+
+			KeyGenerator kg = KeyGenerator.getInstance("AES") ;
+			kg.init(256, threadStates.get().random) ;
+			SecretKey key = kg.generateKey() ;
+
+			Cipher wrapper = Cipher.getInstance(WRAP_TRANSFORMATION) ;
+			wrapper.init(Cipher.WRAP_MODE, publicKey) ;
+			byte[] wrapped = wrapper.wrap(key) ;
+
+			byte[] header = new byte[5 + wrapped.length] ;
+			header[0] = MAGIC_1 ;
+			header[1] = MAGIC_2 ;
+			header[2] = VERSION ;
+			header[3] = (byte) (wrapped.length >>> 8) ;
+			header[4] = (byte) wrapped.length ;
+			System.arraycopy(wrapped, 0, header, 5, wrapped.length) ;
+
+			dk = new DataKey(publicKey, key, header, now + DATA_KEY_LIFETIME) ;
+			dk.uses.incrementAndGet() ;
+			currentKey = dk ;
+			return dk ;
+		}
+	}
+
+	private static SecretKey getUnwrappedKey(PrivateKey privateKey, byte[] envelope, int headerLength, ThreadState ts) throws GeneralSecurityException {
+		Murmur3.hash128(envelope, 0, headerLength, 0, ts.hash) ;
+		String id = Murmur3.toHex(ts.hash[0], ts.hash[1]) ;
+
+		// a data key is only served for the private key that unwrapped it, ServerKeystoreCache hands out a new
+		// PrivateKey when it reloads a (possibly rotated) keystore
+		UnwrappedKey uk = unwrappedKeys.get(id) ;
+		if (uk != null && uk.privateKey == privateKey && startsWith(envelope, uk.header, headerLength)) {
+			return uk.key ;
+		}
+
+		Cipher unwrapper = Cipher.getInstance(WRAP_TRANSFORMATION) ;
+		unwrapper.init(Cipher.UNWRAP_MODE, privateKey) ;
+		SecretKey key = (SecretKey) unwrapper.unwrap(Arrays.copyOfRange(envelope, 5, headerLength), "AES", Cipher.SECRET_KEY) ;
+		key = new SecretKeySpec(key.getEncoded(), "AES") ;
+
+		if (unwrappedKeys.size() >= MAX_CACHED_KEYS) {
+			unwrappedKeys.clear() ;
+		}
+		unwrappedKeys.put(id, new UnwrappedKey(privateKey, Arrays.copyOf(envelope, headerLength), key)) ;
+		return key ;
+	}
+
+	private static boolean startsWith(byte[] envelope, byte[] header, int headerLength) {
+		if (header.length != headerLength) {
+			return false ;
+		}
+		for (int i = 0; i < headerLength; i++) {
+			if (envelope[i] != header[i]) {
+				return false ;
+			}
+		}
+		return true ;
+	}
+
+	private static Cipher getCipher(ThreadState ts) throws GeneralSecurityException {
+		if (ts.cipher == null) {
+			ts.cipher = Cipher.getInstance(DATA_TRANSFORMATION) ;
+		}
+		return ts.cipher ;
+	}
+}
@@ -0,0 +1,106 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+FastHashBinary:
+
+    Description:
+        Returns a non-cryptographic hash (xxHash64, Murmur3 128 bit or CRC-32C) of a binary value. See FastHash
+        and FastHashEngine.
+
+
+    Input:
+        algorithm - The hash algorithm. Case insensitive, dashes and underscores are optional.
+            Values: XXHASH64, MURMUR3_128 or CRC32C. NULL for XXHASH64
+
+        inputBinary - The binary value to hash.
+            Values: Any VARBINARY value
+
+        seed - The hash seed (ignored by CRC32C.)
+            Values: Any BIGINT value, NULL for 0
+
+
+    Output:
+        hashValue - The hash as a number (the first 64 bits of MURMUR3_128, the unsigned value of CRC32C.)
+            Values: NULL if inputBinary is NULL
+
+        hashHex - The full width hash in hex (16, 32 or 8 characters.)
+            Values: NULL if inputBinary is NULL
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the algorithm is unknown.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class FastHashBinary extends EncodingUtilTemplate {
+
+	private Long hashValue = null ;
+	private String hashHex = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns the xxHash64, Murmur3 128 bit or CRC-32C hash of a binary value" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("algorithm", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("inputBinary", Types.VARBINARY, DIRECTION_IN),
+			new ParameterInfo("seed", Types.BIGINT, DIRECTION_IN),
+			new ParameterInfo("hashValue", Types.BIGINT, DIRECTION_OUT),
+			new ParameterInfo("hashHex", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { hashValue, hashHex } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		int algorithm = FastHashEngine.getAlgorithm((String) args[0]) ;
+		byte[] inputBinary = (byte[]) args[1] ;
+		long seed = (args[2] == null) ? 0 : ((Long) args[2]).longValue() ;
+
+		if (inputBinary != null) {
+			FastHashEngine engine = FastHashEngine.getInstance().hashBytes(algorithm, inputBinary, 0, inputBinary.length, seed) ;
+			hashValue = Long.valueOf(engine.longValue()) ;
+			hashHex = engine.toHex() ;
+		}
+		return 0 ;
+	}
+}
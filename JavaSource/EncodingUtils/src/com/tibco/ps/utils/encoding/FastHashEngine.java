@@ -0,0 +1,189 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+FastHashEngine:
+
+    Description:
+        Non-cryptographic hash engine used by FastHash, FastHashBinary and FastHashRow. These hashes cost a
+        fraction of MD5 and are meant for partitioning, bucketing and deduplication keys, not for security.
+
+        Supported algorithms (names are case insensitive, dashes and underscores are optional):
+            XXHASH64     - xxHash XXH64, 64 bits (see XxHash64.)
+            MURMUR3_128  - MurmurHash3 x64 128 bits (see Murmur3.) The seed is used as an unsigned 32 bit value.
+            CRC32C       - CRC-32C, 32 bits (see Crc32c.) The seed is ignored.
+
+        Each thread has one engine whose buffer is reused, so strings are UTF-8 encoded and hashed
+        without allocating anything but the result. After hashing, longValue() returns the hash as a
+        number (the first 64 bits of MURMUR3_128, the unsigned value of CRC32C) and toHex() its full
+        width hex form.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IllegalArgumentException - Thrown for an unknown algorithm name.
+
+ */
+
+public class FastHashEngine {
+
+	public static final int XXHASH64 = 0 ;
+	public static final int MURMUR3_128 = 1 ;
+	public static final int CRC32C = 2 ;
+
+	private static final String[] NAMES = { "XXHASH64", "MURMUR3_128", "CRC32C" } ;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray() ;
+
+	private static final ThreadLocal<FastHashEngine> engines = new ThreadLocal<FastHashEngine>() {
+		@Override
+		protected FastHashEngine initialValue() {
+			return new FastHashEngine() ;
+		}
+	};
+
+	private final ByteArrayBuilder buffer = new ByteArrayBuilder() ;
+	private final long[] h = new long[2] ;
+	private int algorithm = XXHASH64 ;
+
+	private FastHashEngine() {
+	}
+
+	/**
+	 * Returns the calling thread's engine.
+	 */
+	public static FastHashEngine getInstance() {
+		return engines.get() ;
+	}
+
+	/**
+	 * Returns the algorithm constant for a name. NULL means XXHASH64.
+	 */
+	public static int getAlgorithm(String name) {
+		if (name == null) {
+			return XXHASH64 ;
+		}
+		String a = name.trim().replace("-", "").replace("_", "").toUpperCase() ;
+		if (a.equals("XXHASH64") || a.equals("XXH64") || a.equals("XXHASH")) return XXHASH64 ;
+		if (a.equals("MURMUR3128") || a.equals("MURMUR3")) return MURMUR3_128 ;
+		if (a.equals("CRC32C")) return CRC32C ;
+		throw new IllegalArgumentException("Unsupported hash algorithm " + name + ". Must be one of XXHASH64, MURMUR3_128 or CRC32C.") ;
+	}
+
+	public static String getAlgorithmName(int algorithm) {
+		return NAMES[algorithm] ;
+	}
+
+	/**
+	 * Hashes the UTF-8 bytes of a string.
+	 */
+	public FastHashEngine hashString(int algorithm, String s, long seed) {
+		buffer.reset().appendUtf8(s) ;
+		return hashBuffer(algorithm, seed) ;
+	}
+
+	/**
+	 * Hashes len bytes of b starting at off.
+	 */
+	public FastHashEngine hashBytes(int algorithm, byte[] b, int off, int len, long seed) {
+		this.algorithm = algorithm ;
+		switch (algorithm) {
+			case XXHASH64:
+				h[0] = XxHash64.hash(b, off, len, seed) ;
+				break ;
+			case MURMUR3_128:
+				Murmur3.hash128(b, off, len, seed & 0xFFFFFFFFL, h) ;
+				break ;
+			case CRC32C:
+				h[0] = Crc32c.hash(b, off, len) & 0xFFFFFFFFL ;
+				break ;
+			default:
+				throw new IllegalArgumentException("Unsupported hash algorithm " + algorithm) ;
+		}
+		return this ;
+	}
+
+	/**
+	 * Returns the (reset) buffer, to build the input of hashBuffer() with, e.g. with appendValue().
+	 */
+	public ByteArrayBuilder getBuffer() {
+		return buffer.reset() ;
+	}
+
+	/**
+	 * Hashes the contents of the buffer.
+	 */
+	public FastHashEngine hashBuffer(int algorithm, long seed) {
+		return hashBytes(algorithm, buffer.array(), 0, buffer.length(), seed) ;
+	}
+
+	/**
+	 * Appends one value of a row to the buffer. NULL and each value's length are encoded, so
+	 * ("ab", "c"), ("a", "bc") and ("abc", NULL) hash differently.
+	 */
+	public static void appendValue(ByteArrayBuilder buffer, String value) {
+		if (value == null) {
+			buffer.append((byte) 0) ;
+		} else {
+			buffer.append((byte) 1).appendInt(value.length()).appendUtf8(value) ;
+		}
+	}
+
+	/**
+	 * Returns the last hash as a number: the XXHASH64 value, the first 64 bits of MURMUR3_128
+	 * or the unsigned CRC32C.
+	 */
+	public long longValue() {
+		return h[0] ;
+	}
+
+	/**
+	 * Returns the last hash in hex: 16 digits for XXHASH64, 32 for MURMUR3_128 (in the byte order of
+	 * the reference implementation) and 8 for CRC32C.
+	 */
+	public String toHex() {
+		switch (algorithm) {
+			case MURMUR3_128:
+				return Murmur3.toHex(h[0], h[1]) ;
+			case CRC32C:
+				return toHex(h[0], 8) ;
+			default:
+				return toHex(h[0], 16) ;
+		}
+	}
+
+	private static String toHex(long v, int digits) {
+		char[] c = new char[digits] ;
+		for (int i = digits - 1; i >= 0; i--) {
+			c[i] = HEX_DIGITS[(int) v & 0xF] ;
+			v >>>= 4 ;
+		}
+		return new String(c) ;
+	}
+}
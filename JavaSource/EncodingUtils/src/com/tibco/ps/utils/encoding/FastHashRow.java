@@ -0,0 +1,115 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+FastHashRow:
+
+    Description:
+        Returns a non-cryptographic hash (xxHash64, Murmur3 128 bit or CRC-32C) of a row of up to 10 values in
+        one call, e.g. a composite join or partitioning key, instead of concatenating the values in SQL and
+        hashing the result. NULLs and the length of each value are part of the hash, so ('ab', 'c'), ('a', 'bc')
+        and ('abc', NULL) hash differently. Unused trailing values are simply left NULL. See FastHashEngine.
+
+
+    Input:
+        algorithm - The hash algorithm. Case insensitive, dashes and underscores are optional.
+            Values: XXHASH64, MURMUR3_128 or CRC32C. NULL for XXHASH64
+
+        seed - The hash seed (ignored by CRC32C.)
+            Values: Any BIGINT value, NULL for 0
+
+        value1 ... value10 - The values to hash. Non-character values should be CAST to VARCHAR.
+            Values: Any text value or NULL
+
+
+    Output:
+        hashValue - The hash as a number (the first 64 bits of MURMUR3_128, the unsigned value of CRC32C.)
+            Values: Any BIGINT value
+
+        hashHex - The full width hash in hex (16, 32 or 8 characters.)
+            Values: A hex string
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the algorithm is unknown.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class FastHashRow extends EncodingUtilTemplate {
+
+	private static final int MAX_VALUES = 10 ;
+
+	private Long hashValue = null ;
+	private String hashHex = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns the xxHash64, Murmur3 128 bit or CRC-32C hash of a row of up to 10 values" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		ParameterInfo[] params = new ParameterInfo[MAX_VALUES + 4] ;
+		params[0] = new ParameterInfo("algorithm", Types.VARCHAR, DIRECTION_IN) ;
+		params[1] = new ParameterInfo("seed", Types.BIGINT, DIRECTION_IN) ;
+		for (int i = 0; i < MAX_VALUES; i++) {
+			params[i + 2] = new ParameterInfo("value" + (i + 1), Types.VARCHAR, DIRECTION_IN) ;
+		}
+		params[MAX_VALUES + 2] = new ParameterInfo("hashValue", Types.BIGINT, DIRECTION_OUT) ;
+		params[MAX_VALUES + 3] = new ParameterInfo("hashHex", Types.VARCHAR, DIRECTION_OUT) ;
+		return params ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { hashValue, hashHex } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		int algorithm = FastHashEngine.getAlgorithm((String) args[0]) ;
+		long seed = (args[1] == null) ? 0 : ((Long) args[1]).longValue() ;
+
+		FastHashEngine engine = FastHashEngine.getInstance() ;
+		ByteArrayBuilder row = engine.getBuffer() ;
+		for (int i = 0; i < MAX_VALUES; i++) {
+			FastHashEngine.appendValue(row, (String) args[i + 2]) ;
+		}
+		engine.hashBuffer(algorithm, seed) ;
+
+		hashValue = Long.valueOf(engine.longValue()) ;
+		hashHex = engine.toHex() ;
+		return 0 ;
+	}
+}
@@ -0,0 +1,220 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Ff1:
+
+    Description:
+        The FF1 format-preserving encryption mode of NIST SP 800-38G with AES, used by HmacTokenizer for PRESERVE
+        tokens. FF1 encrypts a string of n numerals in a radix (e.g. 9 decimal digits) into another string of n
+        numerals in the same radix. It is a permutation for each key and tweak, so distinct inputs never get the
+        same output. The tweak is public data that selects a different permutation (e.g. the layout of a value.)
+
+        FF1 is a 10 round Feistel network over the two halves of the numeral string, whose round function is
+        the AES CBC-MAC of the round number, the tweak and the other half. The output matches the NIST FF1
+        samples.
+
+        FF1 needs at least 2 numerals. A single numeral is encrypted with a keyed permutation of the radix
+        instead: the numerals are ordered by the AES encryption of the tweak and the numeral, and a numeral
+        maps to its rank. NIST only makes security claims for domains of at least 10^6 values (6 digits or 5
+        letters). Smaller domains are still one-to-one, but their few values are easy to enumerate.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        GeneralSecurityException - Thrown when AES is not available or the key is not 16, 24 or 32 bytes.
+        IllegalArgumentException - Thrown for a radix outside of 2 to 65536.
+
+ */
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+public class Ff1 {
+
+	private static final int ROUNDS = 10 ;
+	private static final int BLOCK = 16 ;
+
+	private final Cipher aes ;
+	private final byte[] y = new byte[BLOCK] ;
+
+	/**
+	 * Creates a cipher for an AES key. The cipher is not thread-safe.
+	 */
+	public Ff1(byte[] key) throws GeneralSecurityException {
+		aes = Cipher.getInstance("AES/ECB/NoPadding") ;
+		aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES")) ;
+	}
+
+	/**
+	 * Encrypts the numerals x[0] to x[n - 1] (each 0 to radix - 1) in place, with the first t bytes of tweak.
+	 */
+	public void encrypt(int[] x, int n, int radix, byte[] tweak, int t) throws GeneralSecurityException {
+		if (radix < 2 || radix > 65536) {
+			throw new IllegalArgumentException("The FF1 radix must be 2 to 65536.") ;
+		}
+		if (n < 2) {
+			if (n == 1) {
+				x[0] = permute(x[0], radix, tweak, t) ;
+			}
+			return ;
+		}
+
+		int u = n / 2 ;
+		int v = n - u ;
+		BigInteger bigRadix = BigInteger.valueOf(radix) ;
+		BigInteger modU = bigRadix.pow(u) ;
+		BigInteger modV = bigRadix.pow(v) ;
+		// b = ceil(ceil(v * log2(radix)) / 8), radix^v - 1 has ceil(v * log2(radix)) bits unless radix^v is a power of 2
+		int b = (modV.subtract(BigInteger.ONE).bitLength() + 7) / 8 ;
+		int d = 4 * ((b + 3) / 4) + 4 ;
+
+		// P || Q, where Q = T || 0^pad || [i] || [NUM(B)]^b and P || Q is a multiple of 16 bytes
+		int pad = ((-t - b - 1) % BLOCK + BLOCK) % BLOCK ;
+		byte[] pq = new byte[BLOCK + t + pad + 1 + b] ;
+		pq[0] = 1 ;
+		pq[1] = 2 ;
+		pq[2] = 1 ;
+		pq[3] = (byte) (radix >>> 16) ;
+		pq[4] = (byte) (radix >>> 8) ;
+		pq[5] = (byte) radix ;
+		pq[6] = 10 ;
+		pq[7] = (byte) u ;
+		putInt(pq, 8, n) ;
+		putInt(pq, 12, t) ;
+		System.arraycopy(tweak, 0, pq, BLOCK, t) ;
+		int roundOffset = BLOCK + t + pad ;
+
+		byte[] s = new byte[((d + BLOCK - 1) / BLOCK) * BLOCK] ;
+		BigInteger a = num(x, 0, u, radix) ;
+		BigInteger bb = num(x, u, n, radix) ;
+		for (int i = 0; i < ROUNDS; i++) {
+			pq[roundOffset] = (byte) i ;
+			putNum(pq, roundOffset + 1, b, bb) ;
+
+			// -- R = PRF(P || Q), the CBC-MAC with a zero IV
+			Arrays.fill(y, (byte) 0) ;
+			for (int off = 0; off < pq.length; off += BLOCK) {
+				for (int k = 0; k < BLOCK; k++) {
+					y[k] ^= pq[off + k] ;
+				}
+				aes.doFinal(y, 0, BLOCK, y, 0) ;
+			}
+			// -- S = R || CIPH(R xor [1]^16) || CIPH(R xor [2]^16) ..., d bytes of it are used
+			System.arraycopy(y, 0, s, 0, BLOCK) ;
+			for (int j = 1; j * BLOCK < d; j++) {
+				y[BLOCK - 1] ^= (byte) j ;
+				aes.doFinal(y, 0, BLOCK, s, j * BLOCK) ;
+				y[BLOCK - 1] ^= (byte) j ;
+			}
+
+			BigInteger c = a.add(new BigInteger(1, Arrays.copyOf(s, d))).mod((i % 2 == 0) ? modU : modV) ;
+			a = bb ;
+			bb = c ;
+		}
+		str(a, x, 0, u, radix) ;
+		str(bb, x, u, n, radix) ;
+	}
+
+	/**
+	 * Returns the rank of numeral c in the order of the numerals by AES(CBC-MAC(tweak) xor numeral).
+	 */
+	private int permute(int c, int radix, byte[] tweak, int t) throws GeneralSecurityException {
+		byte[] header = new byte[BLOCK] ;
+		header[0] = 'P' ;
+		putInt(header, 4, radix) ;
+		putInt(header, 8, t) ;
+		Arrays.fill(y, (byte) 0) ;
+		for (int off = -BLOCK; off < t; off += BLOCK) {
+			for (int k = 0; k < BLOCK; k++) {
+				int p = off + k ;
+				y[k] ^= (p < 0) ? header[k] : (p < t) ? tweak[p] : 0 ;
+			}
+			aes.doFinal(y, 0, BLOCK, y, 0) ;
+		}
+
+		long[] order = new long[radix] ;
+		byte[] e = new byte[BLOCK] ;
+		for (int i = 0; i < radix; i++) {
+			byte[] in = y.clone() ;
+			in[BLOCK - 2] ^= (byte) (i >>> 8) ;
+			in[BLOCK - 1] ^= (byte) i ;
+			aes.doFinal(in, 0, BLOCK, e, 0) ;
+			order[i] = ((long) (e[0] & 0xFF) << 56) | ((long) (e[1] & 0xFF) << 48) | ((long) (e[2] & 0xFF) << 40) | ((long) (e[3] & 0xFF) << 32)
+				| ((long) (e[4] & 0xFF) << 24) | ((e[5] & 0xFF) << 16) | ((e[6] & 0xFF) << 8) | (e[7] & 0xFF) ;
+		}
+		int rank = 0 ;
+		for (int i = 0; i < radix; i++) {
+			// -- ties (a 64 bit collision) are broken by the numeral, so this stays a permutation
+			if (order[i] < order[c] || (order[i] == order[c] && i < c)) {
+				rank++ ;
+			}
+		}
+		return rank ;
+	}
+
+	private static BigInteger num(int[] x, int from, int to, int radix) {
+		BigInteger r = BigInteger.ZERO ;
+		BigInteger bigRadix = BigInteger.valueOf(radix) ;
+		for (int i = from; i < to; i++) {
+			r = r.multiply(bigRadix).add(BigInteger.valueOf(x[i])) ;
+		}
+		return r ;
+	}
+
+	private static void str(BigInteger v, int[] x, int from, int to, int radix) {
+		BigInteger bigRadix = BigInteger.valueOf(radix) ;
+		for (int i = to - 1; i >= from; i--) {
+			BigInteger[] qr = v.divideAndRemainder(bigRadix) ;
+			x[i] = qr[1].intValue() ;
+			v = qr[0] ;
+		}
+	}
+
+	/**
+	 * Writes v as an unsigned big endian number of length bytes.
+	 */
+	private static void putNum(byte[] b, int off, int length, BigInteger v) {
+		byte[] m = v.toByteArray() ;
+		int n = Math.min(m.length, length) ;
+		Arrays.fill(b, off, off + length - n, (byte) 0) ;
+		System.arraycopy(m, m.length - n, b, off + length - n, n) ;
+	}
+
+	private static void putInt(byte[] b, int off, int v) {
+		b[off] = (byte) (v >>> 24) ;
+		b[off + 1] = (byte) (v >>> 16) ;
+		b[off + 2] = (byte) (v >>> 8) ;
+		b[off + 3] = (byte) v ;
+	}
+}
@@ -0,0 +1,382 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+GcmChunkCodec:
+
+    Description:
+        Streaming AES-GCM file encryption used by EncryptFileWithAESGCM, DecryptFileFromAESGCM and
+        GcmChunkOutputStream. A single GCM operation over a whole file would need the whole file to be
+        decrypted before any of it could be verified, so the data is split into fixed size chunks that are
+        encrypted and authenticated on their own. Files of any size stream through a fixed set of buffers,
+        and because every chunk has a known position and size, chunks can be encrypted or decrypted in parallel.
+
+        Format (version 1):
+            4 bytes     magic "AGCM"
+            1 byte      version (1)
+            4 bytes     chunk size s (plain text bytes per chunk, big endian)
+            32 bytes    random salt
+            7 bytes     random nonce prefix
+            chunks      s bytes of ciphertext + 16 byte tag each, the last chunk has 0 to s bytes of ciphertext
+
+        The chunks are not encrypted with the given key itself but with a key of the same size derived from it
+        and the salt of the file with HKDF-SHA256 (RFC 5869, with the first 9 bytes of the header as info.) Each
+        file therefore has its own key, and the 7 byte nonce prefix only has to be unique within a file, so
+        any number of files can be encrypted with one key (as in Tink's streaming AEAD.)
+
+        The nonce of chunk i is the nonce prefix, i (4 bytes, big endian) and a byte that is 1 for the last chunk
+        and 0 for the others, so chunks can't be reordered, dropped or appended without decryption failing. The
+        last chunk is always shorter than s + 16 bytes (an empty last chunk is added when the plain text is a
+        multiple of s bytes), which is how the decryptor recognizes it. The header is authenticated as additional
+        data of every chunk.
+
+        Keys are 16, 24 or 32 bytes, given in hex. AES-GCM requires Java 7 or later.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IllegalArgumentException - Thrown for an invalid key or chunk size.
+        IOException - Thrown when a file isn't in this format, is truncated or was tampered with.
+
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+public class GcmChunkCodec {
+
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 ;
+	public static final int MIN_CHUNK_SIZE = 1024 ;
+	public static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024 ;
+	public static final int TAG_LENGTH = 16 ;
+	public static final int HEADER_LENGTH = 48 ;
+
+	private static final byte[] MAGIC = { 'A', 'G', 'C', 'M' } ;
+	private static final byte VERSION = 1 ;
+	private static final int SALT_LENGTH = 32 ;
+	private static final int PREFIX_LENGTH = 7 ;
+	// offsets of the salt and the nonce prefix in the header
+	private static final int SALT_OFFSET = 9 ;
+	private static final int PREFIX_OFFSET = SALT_OFFSET + SALT_LENGTH ;
+
+	// chunks read per thread before the results are written in order
+	private static final int CHUNKS_PER_THREAD = 2 ;
+
+	private static final SecureRandom random = new SecureRandom() ;
+
+	private static final ThreadLocal<Cipher> ciphers = new ThreadLocal<Cipher>() ;
+
+	private final SecretKeySpec key ;
+	private final byte[] header ;
+	private final int chunkSize ;
+
+	private GcmChunkCodec(byte[] key, byte[] header) throws GeneralSecurityException {
+		this.key = new SecretKeySpec(deriveKey(key, header), "AES") ;
+		this.header = header ;
+		this.chunkSize = getInt(header, 5) ;
+	}
+
+	/**
+	 * Returns a codec that encrypts with a new random salt (and so file key) and nonce prefix.
+	 */
+	public static GcmChunkCodec forEncryption(byte[] key, int chunkSize) {
+		checkKey(key) ;
+		if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+			throw new IllegalArgumentException("The chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE + " bytes.") ;
+		}
+		byte[] header = new byte[HEADER_LENGTH] ;
+		System.arraycopy(MAGIC, 0, header, 0, 4) ;
+		header[4] = VERSION ;
+		putInt(header, 5, chunkSize) ;
+		byte[] saltAndPrefix = new byte[SALT_LENGTH + PREFIX_LENGTH] ;
+		random.nextBytes(saltAndPrefix) ;
+		System.arraycopy(saltAndPrefix, 0, header, SALT_OFFSET, saltAndPrefix.length) ;
+		return newCodec(key, header) ;
+	}
+
+	/**
+	 * Reads the header of an encrypted stream and returns a codec that decrypts it.
+	 */
+	public static GcmChunkCodec forDecryption(byte[] key, InputStream in) throws IOException {
+		checkKey(key) ;
+		byte[] header = new byte[HEADER_LENGTH] ;
+		if (readFully(in, header, HEADER_LENGTH) != HEADER_LENGTH
+				|| header[0] != MAGIC[0] || header[1] != MAGIC[1] || header[2] != MAGIC[2] || header[3] != MAGIC[3]) {
+			throw new IOException("The input is not an AES-GCM chunked file.") ;
+		}
+		if (header[4] != VERSION) {
+			throw new IOException("Unsupported AES-GCM chunked file version " + header[4] + ".") ;
+		}
+		int chunkSize = getInt(header, 5) ;
+		if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+			throw new IOException("Invalid chunk size " + chunkSize + " in the AES-GCM chunked file header.") ;
+		}
+		return newCodec(key, header) ;
+	}
+
+	private static GcmChunkCodec newCodec(byte[] key, byte[] header) {
+		try {
+			return new GcmChunkCodec(key, header) ;
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("HmacSHA256 is not available: " + e.getMessage(), e) ;
+		}
+	}
+
+	/**
+	 * Derives the key of a file from the given key with HKDF-SHA256, using the salt of the header and the
+	 * magic, version and chunk size as info. The key has the size of the given key (at most 32 bytes, a
+	 * single HKDF block.)
+	 */
+	private static byte[] deriveKey(byte[] key, byte[] header) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance("HmacSHA256") ;
+		// -- extract
+		mac.init(new SecretKeySpec(header, SALT_OFFSET, SALT_LENGTH, "HmacSHA256")) ;
+		byte[] prk = mac.doFinal(key) ;
+		// -- expand, T(1) = HMAC(PRK, info || 0x01)
+		mac.init(new SecretKeySpec(prk, "HmacSHA256")) ;
+		mac.update(header, 0, SALT_OFFSET) ;
+		mac.update((byte) 1) ;
+		byte[] okm = mac.doFinal() ;
+		return Arrays.copyOf(okm, key.length) ;
+	}
+
+	/**
+	 * Parses a 16, 24 or 32 byte key given as 32, 48 or 64 hex digits.
+	 */
+	public static byte[] parseKey(String hex) {
+		if (hex == null || !(hex.length() == 32 || hex.length() == 48 || hex.length() == 64)) {
+			throw new IllegalArgumentException("The key must be 32, 48 or 64 hex digits (a 128, 192 or 256 bit AES key.)") ;
+		}
+		byte[] key = new byte[hex.length() / 2] ;
+		for (int i = 0; i < key.length; i++) {
+			int hi = Character.digit(hex.charAt(2 * i), 16) ;
+			int lo = Character.digit(hex.charAt(2 * i + 1), 16) ;
+			if (hi < 0 || lo < 0) {
+				throw new IllegalArgumentException("The key must be 32, 48 or 64 hex digits (a 128, 192 or 256 bit AES key.)") ;
+			}
+			key[i] = (byte) ((hi << 4) | lo) ;
+		}
+		return key ;
+	}
+
+	public byte[] getHeader() {
+		return header.clone() ;
+	}
+
+	public int getChunkSize() {
+		return chunkSize ;
+	}
+
+	/**
+	 * Encrypts len (0 to chunkSize) bytes of in as chunk index into out, which must have room for
+	 * len + TAG_LENGTH bytes. Returns the number of bytes written.
+	 */
+	public int encryptChunk(long index, boolean last, byte[] in, int len, byte[] out) throws GeneralSecurityException {
+		Cipher cipher = init(Cipher.ENCRYPT_MODE, index, last) ;
+		return cipher.doFinal(in, 0, len, out, 0) ;
+	}
+
+	/**
+	 * Decrypts and verifies len (TAG_LENGTH to chunkSize + TAG_LENGTH) bytes of in as chunk index into out.
+	 * Returns the number of plain text bytes.
+	 */
+	public int decryptChunk(long index, boolean last, byte[] in, int len, byte[] out) throws GeneralSecurityException {
+		Cipher cipher = init(Cipher.DECRYPT_MODE, index, last) ;
+		return cipher.doFinal(in, 0, len, out, 0) ;
+	}
+
+	/**
+	 * Encrypts a stream, writing the header and all chunks to out. threads greater than 1 encrypts that many
+	 * chunks at a time in parallel (at most one per processor.) Returns the number of bytes written.
+	 */
+	public long encrypt(InputStream in, OutputStream out, int threads) throws IOException {
+		out.write(header) ;
+		return HEADER_LENGTH + process(in, out, threads, true) ;
+	}
+
+	/**
+	 * Decrypts the chunks following the header (already read by forDecryption) to out. threads greater
+	 * than 1 decrypts that many chunks at a time in parallel (at most one per processor.) Returns the number of bytes written.
+	 */
+	public long decrypt(InputStream in, OutputStream out, int threads) throws IOException {
+		return process(in, out, threads, false) ;
+	}
+
+	private long process(InputStream in, OutputStream out, int threads, final boolean encrypt) throws IOException {
+		threads = Math.min(threads, Runtime.getRuntime().availableProcessors()) ;
+		final int inSize = encrypt ? chunkSize : chunkSize + TAG_LENGTH ;
+		final int outSize = encrypt ? chunkSize + TAG_LENGTH : chunkSize ;
+		int batch = (threads > 1) ? threads * CHUNKS_PER_THREAD : 1 ;
+		final byte[][] inBufs = new byte[batch][inSize] ;
+		final byte[][] outBufs = new byte[batch][outSize] ;
+		final int[] inLens = new int[batch] ;
+		final int[] outLens = new int[batch] ;
+
+		ExecutorService pool = (threads > 1) ? Executors.newFixedThreadPool(threads) : null ;
+		long written = 0 ;
+		long index = 0 ;
+		try {
+			boolean done = false ;
+			while (!done) {
+				int n = 0 ;
+				while (n < batch && !done) {
+					inLens[n] = readFully(in, inBufs[n], inSize) ;
+					// -- the last chunk is the first one that isn't full
+					done = inLens[n] < inSize ;
+					if (!encrypt && inLens[n] < TAG_LENGTH) {
+						throw new IOException("The AES-GCM chunked file is truncated.") ;
+					}
+					n++ ;
+				}
+				if (index + n > 0xFFFFFFFFL) {
+					throw new IOException("Too many chunks, use a larger chunk size.") ;
+				}
+
+				if (pool == null) {
+					outLens[0] = processChunk(encrypt, index, done, inBufs[0], inLens[0], outBufs[0]) ;
+				} else {
+					List<Future<Integer>> results = new ArrayList<Future<Integer>>(n) ;
+					for (int i = 0; i < n; i++) {
+						final int b = i ;
+						final long chunkIndex = index + i ;
+						final boolean last = done && i == n - 1 ;
+						results.add(pool.submit(new Callable<Integer>() {
+							public Integer call() throws Exception {
+								return Integer.valueOf(processChunk(encrypt, chunkIndex, last, inBufs[b], inLens[b], outBufs[b])) ;
+							}
+						})) ;
+					}
+					for (int i = 0; i < n; i++) {
+						outLens[i] = getResult(results.get(i)) ;
+					}
+				}
+
+				for (int i = 0; i < n; i++) {
+					out.write(outBufs[i], 0, outLens[i]) ;
+					written += outLens[i] ;
+				}
+				index += n ;
+			}
+		}
+		catch (GeneralSecurityException e) {
+			throw new IOException("AES-GCM chunk " + index + " failed: " + e.getMessage(), e) ;
+		}
+		finally {
+			if (pool != null) {
+				pool.shutdownNow() ;
+			}
+		}
+		return written ;
+	}
+
+	private int processChunk(boolean encrypt, long index, boolean last, byte[] in, int len, byte[] out) throws GeneralSecurityException {
+		return encrypt ? encryptChunk(index, last, in, len, out) : decryptChunk(index, last, in, len, out) ;
+	}
+
+	private static int getResult(Future<Integer> f) throws IOException, GeneralSecurityException {
+		try {
+			return f.get().intValue() ;
+		}
+		catch (InterruptedException e) {
+			throw new IOException("Interrupted", e) ;
+		}
+		catch (ExecutionException e) {
+			Throwable t = e.getCause() ;
+			if (t instanceof GeneralSecurityException) {
+				throw (GeneralSecurityException) t ;
+			}
+			throw new IOException(t.getMessage(), t) ;
+		}
+	}
+
+	private Cipher init(int mode, long index, boolean last) throws GeneralSecurityException {
+		byte[] nonce = new byte[12] ;
+		System.arraycopy(header, PREFIX_OFFSET, nonce, 0, PREFIX_LENGTH) ;
+		putInt(nonce, PREFIX_LENGTH, (int) index) ;
+		nonce[11] = (byte) (last ? 1 : 0) ;
+
+		Cipher cipher = ciphers.get() ;
+		if (cipher == null) {
+			cipher = Cipher.getInstance("AES/GCM/NoPadding") ;
+			ciphers.set(cipher) ;
+		}
+		cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce)) ;
+		cipher.updateAAD(header) ;
+		return cipher ;
+	}
+
+	private static void checkKey(byte[] key) {
+		if (key == null || !(key.length == 16 || key.length == 24 || key.length == 32)) {
+			throw new IllegalArgumentException("The key must be 16, 24 or 32 bytes long.") ;
+		}
+	}
+
+	/**
+	 * Reads until len bytes were read or the end of the stream. Returns the number of bytes read.
+	 */
+	static int readFully(InputStream in, byte[] b, int len) throws IOException {
+		int n = 0 ;
+		while (n < len) {
+			int r = in.read(b, n, len - n) ;
+			if (r < 0) {
+				break ;
+			}
+			n += r ;
+		}
+		return n ;
+	}
+
+	private static void putInt(byte[] b, int off, int v) {
+		b[off] = (byte) (v >>> 24) ;
+		b[off + 1] = (byte) (v >>> 16) ;
+		b[off + 2] = (byte) (v >>> 8) ;
+		b[off + 3] = (byte) v ;
+	}
+
+	private static int getInt(byte[] b, int off) {
+		return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF) ;
+	}
+}
@@ -0,0 +1,135 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+GcmChunkOutputStream:
+
+    Description:
+        An OutputStream that encrypts everything written to it in the AES-GCM chunked format (see GcmChunkCodec)
+        before passing it on, so that anything that writes a stream (e.g. a file exporter) can encrypt its output
+        at rest by wrapping its FileOutputStream. Buffers one chunk. close() writes the last chunk and must be
+        called, or the output can't be decrypted.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IOException - Thrown when the underlying stream fails or a chunk can't be encrypted.
+
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+public class GcmChunkOutputStream extends OutputStream {
+
+	private final OutputStream out ;
+	private final GcmChunkCodec codec ;
+	private final byte[] plain ;
+	private final byte[] encrypted ;
+	private int count = 0 ;
+	private long index = 0 ;
+	private boolean closed = false ;
+
+	public GcmChunkOutputStream(OutputStream out, byte[] key) throws IOException {
+		this(out, key, GcmChunkCodec.DEFAULT_CHUNK_SIZE) ;
+	}
+
+	public GcmChunkOutputStream(OutputStream out, byte[] key, int chunkSize) throws IOException {
+		this.out = out ;
+		this.codec = GcmChunkCodec.forEncryption(key, chunkSize) ;
+		this.plain = new byte[chunkSize] ;
+		this.encrypted = new byte[chunkSize + GcmChunkCodec.TAG_LENGTH] ;
+		out.write(codec.getHeader()) ;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen() ;
+		if (count == plain.length) {
+			writeChunk(false) ;
+		}
+		plain[count++] = (byte) b ;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen() ;
+		while (len > 0) {
+			// -- a full chunk is only written once more data arrives, since the last chunk is marked as such
+			if (count == plain.length) {
+				writeChunk(false) ;
+			}
+			int n = Math.min(len, plain.length - count) ;
+			System.arraycopy(b, off, plain, count, n) ;
+			count += n ;
+			off += n ;
+			len -= n ;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush() ;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return ;
+		}
+		closed = true ;
+		try {
+			if (count == plain.length) {
+				writeChunk(false) ;
+			}
+			writeChunk(true) ;
+		}
+		finally {
+			out.close() ;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed") ;
+		}
+	}
+
+	private void writeChunk(boolean last) throws IOException {
+		try {
+			int n = codec.encryptChunk(index++, last, plain, count, encrypted) ;
+			out.write(encrypted, 0, n) ;
+			count = 0 ;
+		}
+		catch (GeneralSecurityException e) {
+			throw new IOException("AES-GCM encryption failed: " + e.getMessage(), e) ;
+		}
+	}
+}
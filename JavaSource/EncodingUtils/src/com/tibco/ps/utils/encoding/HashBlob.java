@@ -0,0 +1,97 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+HashBlob:
+
+    Description:
+        Returns the hex digest of a BLOB (or VARBINARY) value using MD5, SHA-1, SHA-256, SHA-512 or SHA3-256.
+        BLOBs are read in blocks, so large values are hashed without being held in memory. See DigestEngine.
+
+
+    Input:
+        algorithm - The hash algorithm. Case insensitive and the dash is optional (e.g. "sha256".)
+            Values: MD5, SHA-1, SHA-256, SHA-512 or SHA3-256 (requires Java 9 or later, or a provider.) NULL for SHA-256
+
+        inputBlob - The binary value to hash.
+            Values: Any BLOB value
+
+
+    Output:
+        result - The lower case hex digest.
+            Values: NULL if inputBlob is NULL
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the algorithm is unknown or not available in this JVM, or the BLOB can't be read.
+
+ */
+
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class HashBlob extends EncodingUtilTemplate {
+
+	private String result = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns the MD5, SHA-1, SHA-256, SHA-512 or SHA3-256 hex digest of a BLOB" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("algorithm", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("inputBlob", Types.BLOB, DIRECTION_IN),
+			new ParameterInfo("result", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { result } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String algorithm = (args[0] == null) ? DigestEngine.SHA256 : (String) args[0] ;
+
+		// -- VARBINARY values arrive as byte arrays
+		if (args[1] instanceof byte[]) {
+			result = DigestEngine.getInstance().hashBytes(algorithm, (byte[]) args[1]) ;
+		} else if (args[1] != null) {
+			result = DigestEngine.getInstance().hashBlob(algorithm, (Blob) args[1]) ;
+		}
+		return 0 ;
+	}
+}
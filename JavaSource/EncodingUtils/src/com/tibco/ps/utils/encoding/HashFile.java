@@ -0,0 +1,95 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+HashFile:
+
+    Description:
+        Returns the hex digest of a file on the CIS server using MD5, SHA-1, SHA-256, SHA-512 or SHA3-256
+        (e.g. to verify an exported or downloaded file.) The file is read in blocks. See DigestEngine.
+
+
+    Input:
+        algorithm - The hash algorithm. Case insensitive and the dash is optional (e.g. "sha256".)
+            Values: MD5, SHA-1, SHA-256, SHA-512 or SHA3-256 (requires Java 9 or later, or a provider.) NULL for SHA-256
+
+        inputFilePath - The path of the file to hash.
+            Values: A file path on the CIS server
+
+
+    Output:
+        result - The lower case hex digest.
+            Values: NULL if inputFilePath is NULL
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the algorithm is unknown or not available in this JVM, or the file can't be read.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class HashFile extends EncodingUtilTemplate {
+
+	private String result = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns the MD5, SHA-1, SHA-256, SHA-512 or SHA3-256 hex digest of a file" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("algorithm", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("inputFilePath", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("result", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { result } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String algorithm = (args[0] == null) ? DigestEngine.SHA256 : (String) args[0] ;
+		String inputFilePath = (String) args[1] ;
+
+		if (inputFilePath != null) {
+			result = DigestEngine.getInstance().hashFile(algorithm, inputFilePath) ;
+			log(LOG_DEBUG, getName() + ": " + DigestEngine.getAlgorithmName(algorithm) + " of " + inputFilePath + " is " + result) ;
+		}
+		return 0 ;
+	}
+}
@@ -0,0 +1,236 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+/*
+HmacTokenizer:
+
+    Description:
+        Tokenization engine used by Tokenize and TokenizeBatch. A token is derived from the HMAC-SHA256 of the
+        UTF-8 bytes of a value under a secret key, so the same value always gets the same token under the same
+        key (in every table and every run), and tables masked with the same key can still be joined on their
+        tokens. The value can't be recovered from its token without trying candidate values with the key.
+
+        Two token formats are supported:
+            HEX      - the 64 character lower case hex HMAC of the value.
+            PRESERVE - a token with the format of the value: each digit is replaced by a digit, each ASCII
+                       letter by a letter of the same case, and every other character is kept, so the token has
+                       the length and layout of the value (e.g. "123-45-6789" becomes "804-17-2265".) The digits
+                       and the letters of the value are each encrypted with FF1 (see Ff1) under an AES-256 key
+                       derived from the key, with the layout of the value (which characters are digits, lower and
+                       upper case letters and the other characters) as the tweak. FF1 is a permutation, so
+                       distinct values always get distinct tokens and the tokens can be used as join keys. Values
+                       with fewer than 6 digits or 5 letters have few possible tokens, and are easy to enumerate
+                       for anyone who can see the tokens of known values.
+
+        Creating and initializing a Mac searches the security providers and expands the key, so Macs are reused:
+        each thread keeps the Macs of its MAX_ENTRIES most recently used keys (forKey()), and a TokenizeBatch
+        cursor owns its own instance for the whole batch. Strings are encoded into a reused buffer, so
+        tokenizing a value only allocates the token.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IllegalArgumentException - Thrown for an empty key or an unknown format.
+
+ */
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+public class HmacTokenizer {
+
+	public static final int HEX = 0 ;
+	public static final int PRESERVE = 1 ;
+
+	private static final String[] FORMATS = { "HEX", "PRESERVE" } ;
+
+	public static final String ALGORITHM = "HmacSHA256" ;
+
+	// establish the max number of keys cached by each thread
+	public static final int MAX_ENTRIES = 16 ;
+
+	private static final int MAC_LENGTH = 32 ;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray() ;
+
+	// HMAC input that derives the FF1 key of PRESERVE tokens from the key
+	private static final byte[] FF1_KEY_LABEL = { 'F', 'F', '1', ' ', 'P', 'R', 'E', 'S', 'E', 'R', 'V', 'E' } ;
+
+	private static final ThreadLocal<Map<String, HmacTokenizer>> tokenizers = new ThreadLocal<Map<String, HmacTokenizer>>() {
+		@Override
+		protected Map<String, HmacTokenizer> initialValue() {
+			return new LinkedHashMap<String, HmacTokenizer>(MAX_ENTRIES, 0.75f, true) {
+				private static final long serialVersionUID = 1L ;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, HmacTokenizer> eldest) {
+					return size() > MAX_ENTRIES ;
+				}
+			} ;
+		}
+	};
+
+	private final Mac mac ;
+	private final ByteArrayBuilder utf8 = new ByteArrayBuilder() ;
+	private final byte[] block = new byte[MAC_LENGTH] ;
+	private char[] chars = new char[64] ;
+
+	// PRESERVE state, created on first use
+	private Ff1 ff1 = null ;
+	private final ByteArrayBuilder tweak = new ByteArrayBuilder() ;
+	private int[] digits = new int[16] ;
+	private int[] letters = new int[16] ;
+
+	/**
+	 * Creates a tokenizer for a key. The tokenizer is not thread-safe.
+	 */
+	public HmacTokenizer(String key) throws GeneralSecurityException {
+		if (key == null || key.length() == 0) {
+			throw new IllegalArgumentException("A tokenization key must be provided.") ;
+		}
+		ByteArrayBuilder keyBytes = new ByteArrayBuilder().appendUtf8(key) ;
+		mac = Mac.getInstance(ALGORITHM) ;
+		try {
+			mac.init(new SecretKeySpec(keyBytes.array(), 0, keyBytes.length(), ALGORITHM)) ;
+		}
+		catch (InvalidKeyException e) {
+			throw new IllegalArgumentException("Invalid tokenization key: " + e.getMessage()) ;
+		}
+	}
+
+	/**
+	 * Returns the calling thread's tokenizer for a key.
+	 */
+	public static HmacTokenizer forKey(String key) throws GeneralSecurityException {
+		Map<String, HmacTokenizer> cache = tokenizers.get() ;
+		HmacTokenizer t = cache.get(key) ;
+		if (t == null) {
+			t = new HmacTokenizer(key) ;
+			cache.put(key, t) ;
+		}
+		return t ;
+	}
+
+	/**
+	 * Returns the format constant for a format name (case insensitive, NULL for HEX.)
+	 */
+	public static int getFormat(String format) {
+		if (format == null) {
+			return HEX ;
+		}
+		for (int i = 0; i < FORMATS.length; i++) {
+			if (FORMATS[i].equalsIgnoreCase(format.trim())) {
+				return i ;
+			}
+		}
+		throw new IllegalArgumentException("Unknown token format \"" + format + "\". Supported formats are HEX and PRESERVE.") ;
+	}
+
+	/**
+	 * Returns the token of a value, or NULL for a NULL value.
+	 */
+	public String tokenize(String value, int format) throws GeneralSecurityException {
+		if (value == null) {
+			return null ;
+		}
+		return (format == PRESERVE) ? preserve(value) : hex(value) ;
+	}
+
+	private String hex(String value) throws ShortBufferException {
+		utf8.reset().appendUtf8(value) ;
+		mac.update(utf8.array(), 0, utf8.length()) ;
+		mac.doFinal(block, 0) ;
+		for (int i = 0, p = 0; i < MAC_LENGTH; i++) {
+			int b = block[i] & 0xFF ;
+			chars[p++] = HEX_DIGITS[b >>> 4] ;
+			chars[p++] = HEX_DIGITS[b & 0xF] ;
+		}
+		return new String(chars, 0, 2 * MAC_LENGTH) ;
+	}
+
+	private String preserve(String value) throws GeneralSecurityException {
+		if (ff1 == null) {
+			mac.update(FF1_KEY_LABEL) ;
+			mac.doFinal(block, 0) ;
+			ff1 = new Ff1(block) ;
+		}
+		int length = value.length() ;
+		if (chars.length < length) {
+			chars = new char[Math.max(length, 2 * chars.length)] ;
+		}
+		if (digits.length < length) {
+			digits = new int[length] ;
+			letters = new int[length] ;
+		}
+		value.getChars(0, length, chars, 0) ;
+
+		// -- split the value into its digits and letters, the layout is the tweak: "D" or "L" followed by
+		//    the value with each digit replaced by '9', each letter by 'a' or 'A'
+		int nd = 0 ;
+		int nl = 0 ;
+		tweak.reset().append((byte) 'D') ;
+		for (int i = 0; i < length; i++) {
+			char c = chars[i] ;
+			if (c >= '0' && c <= '9') {
+				digits[nd++] = c - '0' ;
+				tweak.append((byte) '9') ;
+			} else if (c >= 'a' && c <= 'z') {
+				letters[nl++] = c - 'a' ;
+				tweak.append((byte) 'a') ;
+			} else if (c >= 'A' && c <= 'Z') {
+				letters[nl++] = c - 'A' ;
+				tweak.append((byte) 'A') ;
+			} else {
+				tweak.appendUtf8(String.valueOf(c)) ;
+			}
+		}
+
+		ff1.encrypt(digits, nd, 10, tweak.array(), tweak.length()) ;
+		tweak.array()[0] = 'L' ;
+		ff1.encrypt(letters, nl, 26, tweak.array(), tweak.length()) ;
+
+		nd = 0 ;
+		nl = 0 ;
+		for (int i = 0; i < length; i++) {
+			char c = chars[i] ;
+			if (c >= '0' && c <= '9') {
+				chars[i] = (char) ('0' + digits[nd++]) ;
+			} else if (c >= 'a' && c <= 'z') {
+				chars[i] = (char) ('a' + letters[nl++]) ;
+			} else if (c >= 'A' && c <= 'Z') {
+				chars[i] = (char) ('A' + letters[nl++]) ;
+			}
+		}
+		return new String(chars, 0, length) ;
+	}
+}
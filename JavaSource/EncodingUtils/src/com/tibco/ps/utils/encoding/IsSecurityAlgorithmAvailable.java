@@ -0,0 +1,118 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+/*
+IsSecurityAlgorithmAvailable:
+
+    Description:
+        Checks whether a security algorithm is available in the CIS JVM, e.g. as a preflight before using the
+        encryption procedures with a given algorithm, without calling CISSecurityProviders and filtering its
+        result. The lookup uses the provider snapshot of SecurityProviderInventory, so no providers are scanned.
+
+
+    Input:
+        serviceType - The JCE service type (case insensitive.)
+            Values: Cipher, MessageDigest, Mac, Signature, KeyStore, KeyGenerator, SecureRandom, etc. NULL for any type
+
+        algorithm - The algorithm name or an alias of it (case insensitive.) For Cipher a full transformation may
+                    be given, which is resolved the way Cipher.getInstance() resolves it.
+            Values: e.g. AES, AES/GCM/NoPadding, SHA-256, SHA256, HmacSHA256, PKCS12
+
+
+    Output:
+        available - Whether any provider supplies the algorithm.
+            Values: true or false (false when algorithm is NULL)
+
+        provider - The name of the provider that getInstance() would use (the first in preference order.)
+            Values: NULL when the algorithm is not available
+
+        providers - The names of all providers of the algorithm in preference order, separated by commas.
+            Values: NULL when the algorithm is not available
+
+
+    Exceptions:  none
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class IsSecurityAlgorithmAvailable extends EncodingUtilTemplate {
+
+	private Boolean available = null ;
+	private String provider = null ;
+	private String providers = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns whether a security algorithm is available in the Composite JVM and which providers supply it" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("serviceType", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("algorithm", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("available", Types.BOOLEAN, DIRECTION_OUT),
+			new ParameterInfo("provider", Types.VARCHAR, DIRECTION_OUT),
+			new ParameterInfo("providers", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { available, provider, providers } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String serviceType = (String) args[0] ;
+		String algorithm = (String) args[1] ;
+
+		if (serviceType != null && serviceType.trim().length() == 0) {
+			serviceType = null ;
+		}
+
+		List<String> names = SecurityProviderInventory.getInstance().getProviders(serviceType == null ? null : serviceType.trim(), algorithm) ;
+		available = Boolean.valueOf(!names.isEmpty()) ;
+		if (!names.isEmpty()) {
+			provider = names.get(0) ;
+			StringBuilder sb = new StringBuilder() ;
+			for (String name : names) {
+				if (sb.length() > 0) {
+					sb.append(',') ;
+				}
+				sb.append(name) ;
+			}
+			providers = sb.toString() ;
+		}
+		return 0 ;
+	}
+}
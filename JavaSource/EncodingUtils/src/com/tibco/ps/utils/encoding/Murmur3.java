@@ -0,0 +1,180 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Murmur3:
+
+    Description:
+        MurmurHash3 (x64, 128 bit variant) by Austin Appleby, a fast non-cryptographic hash with good
+        distribution. It is used to hash rows in ResultSetFingerprint and where a hash only has to
+        spread or compare values (bucketing, deduplication, change detection) rather than resist attack,
+        at a fraction of the cost of MD5.
+
+        The result matches the reference implementation (MurmurHash3_x64_128) and Guava's
+        Hashing.murmur3_128(seed): h1 and h2 are the first and second 64 bit halves, read little endian.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+public class Murmur3 {
+
+	private static final long C1 = 0x87c37b91114253d5L ;
+	private static final long C2 = 0x4cf5ad432745937fL ;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray() ;
+
+	private Murmur3() {
+	}
+
+	/**
+	 * Hashes len bytes of b starting at off and stores h1 and h2 in out[0] and out[1].
+	 */
+	@SuppressWarnings("fallthrough")
+	public static void hash128(byte[] b, int off, int len, long seed, long[] out) {
+		long h1 = seed ;
+		long h2 = seed ;
+		int end = off + (len & ~15) ;
+
+		for (int i = off; i < end; i += 16) {
+			long k1 = getLong(b, i) ;
+			long k2 = getLong(b, i + 8) ;
+
+			h1 ^= mixK1(k1) ;
+			h1 = Long.rotateLeft(h1, 27) ;
+			h1 += h2 ;
+			h1 = h1 * 5 + 0x52dce729 ;
+
+			h2 ^= mixK2(k2) ;
+			h2 = Long.rotateLeft(h2, 31) ;
+			h2 += h1 ;
+			h2 = h2 * 5 + 0x38495ab5 ;
+		}
+
+		long k1 = 0 ;
+		long k2 = 0 ;
+		// -- each case falls through to mix in the remaining tail bytes
+		switch (len & 15) {
+			case 15: k2 ^= (long) (b[end + 14] & 0xFF) << 48 ;
+			case 14: k2 ^= (long) (b[end + 13] & 0xFF) << 40 ;
+			case 13: k2 ^= (long) (b[end + 12] & 0xFF) << 32 ;
+			case 12: k2 ^= (long) (b[end + 11] & 0xFF) << 24 ;
+			case 11: k2 ^= (long) (b[end + 10] & 0xFF) << 16 ;
+			case 10: k2 ^= (long) (b[end + 9] & 0xFF) << 8 ;
+			case 9:  k2 ^= (long) (b[end + 8] & 0xFF) ;
+				h2 ^= mixK2(k2) ;
+			case 8:  k1 ^= (long) (b[end + 7] & 0xFF) << 56 ;
+			case 7:  k1 ^= (long) (b[end + 6] & 0xFF) << 48 ;
+			case 6:  k1 ^= (long) (b[end + 5] & 0xFF) << 40 ;
+			case 5:  k1 ^= (long) (b[end + 4] & 0xFF) << 32 ;
+			case 4:  k1 ^= (long) (b[end + 3] & 0xFF) << 24 ;
+			case 3:  k1 ^= (long) (b[end + 2] & 0xFF) << 16 ;
+			case 2:  k1 ^= (long) (b[end + 1] & 0xFF) << 8 ;
+			case 1:  k1 ^= (long) (b[end] & 0xFF) ;
+				h1 ^= mixK1(k1) ;
+		}
+
+		h1 ^= len ;
+		h2 ^= len ;
+		h1 += h2 ;
+		h2 += h1 ;
+		h1 = fmix64(h1) ;
+		h2 = fmix64(h2) ;
+		h1 += h2 ;
+		h2 += h1 ;
+
+		out[0] = h1 ;
+		out[1] = h2 ;
+	}
+
+	/**
+	 * Returns the first 64 bits (h1) of the 128 bit hash.
+	 */
+	public static long hash64(byte[] b, int off, int len, long seed, long[] tmp) {
+		hash128(b, off, len, seed, tmp) ;
+		return tmp[0] ;
+	}
+
+	/**
+	 * Returns the 32 character hex form of a 128 bit hash: the bytes of h1 then h2, little endian
+	 * (the same as Guava's HashCode.toString().)
+	 */
+	public static String toHex(long h1, long h2) {
+		char[] c = new char[32] ;
+		appendHex(h1, c, 0) ;
+		appendHex(h2, c, 16) ;
+		return new String(c) ;
+	}
+
+	private static void appendHex(long h, char[] c, int p) {
+		for (int i = 0; i < 8; i++) {
+			int b = (int) (h >>> (8 * i)) & 0xFF ;
+			c[p++] = HEX_DIGITS[b >>> 4] ;
+			c[p++] = HEX_DIGITS[b & 0xF] ;
+		}
+	}
+
+	/**
+	 * The MurmurHash3 finalizer. Spreads the bits of a 64 bit value.
+	 */
+	public static long fmix64(long k) {
+		k ^= k >>> 33 ;
+		k *= 0xff51afd7ed558ccdL ;
+		k ^= k >>> 33 ;
+		k *= 0xc4ceb9fe1a85ec53L ;
+		k ^= k >>> 33 ;
+		return k ;
+	}
+
+	private static long mixK1(long k1) {
+		k1 *= C1 ;
+		k1 = Long.rotateLeft(k1, 31) ;
+		return k1 * C2 ;
+	}
+
+	private static long mixK2(long k2) {
+		k2 *= C2 ;
+		k2 = Long.rotateLeft(k2, 33) ;
+		return k2 * C1 ;
+	}
+
+	private static long getLong(byte[] b, int i) {
+		return (b[i] & 0xFFL)
+			| (b[i + 1] & 0xFFL) << 8
+			| (b[i + 2] & 0xFFL) << 16
+			| (b[i + 3] & 0xFFL) << 24
+			| (b[i + 4] & 0xFFL) << 32
+			| (b[i + 5] & 0xFFL) << 40
+			| (b[i + 6] & 0xFFL) << 48
+			| (b[i + 7] & 0xFFL) << 56 ;
+	}
+}
@@ -0,0 +1,370 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+ResultSetFingerprint:
+
+    Description:
+        Runs a query and returns a fingerprint of its result, so that two copies of a table (e.g. a cached
+        or replicated table and its source) can be compared by running this procedure against each and
+        comparing the fingerprints, instead of pulling both copies and comparing them row by row. Only the
+        fingerprint and row counts are returned, and rows are streamed so memory use is constant.
+
+        Each row is encoded (see below) and hashed with the 128 bit Murmur3 hash, and the row hashes are
+        added together (modulo 2^128.) The sum doesn't depend on the order of the rows, so the queries don't
+        need an ORDER BY, and duplicate rows count as many times as they occur. The fingerprint is the hash
+        of the sum and the row count.
+
+        Optionally the rows are also spread over a number of partitions with a fingerprint each, so that
+        when the fingerprints differ the partitions that differ can be found and compared on their own. When
+        keyColumns is provided, the partition of a row is chosen by the hash of its first keyColumns columns,
+        so a changed row falls into the same partition in both copies.
+
+        Values are encoded by type, so both queries must return the same columns in the same order with
+        compatible types (CAST in the queries where they don't):
+            - exact numerics (TINYINT to BIGINT, DECIMAL, NUMERIC) by value, so 1, 1.0 and 1.00 match
+            - FLOAT, REAL and DOUBLE by their double value
+            - BOOLEAN and BIT as true/false
+            - BINARY and VARBINARY by their bytes
+            - BLOB by its length and the MD5 digest of its bytes (read and hashed in chunks)
+            - everything else (character, date and time types) by its string value
+        A fingerprint match means the results are the same with overwhelming probability, but this is not a
+        cryptographic hash and must not be used where the data may be forged.
+
+
+    Input:
+        query_string - The query whose result is fingerprinted.
+            Values: Any CIS query
+
+        keyColumns - The number of leading columns that identify a row (used to choose its partition.)
+            Values: NULL or 0 to partition by the whole row
+
+        partitionCount - The number of partitions to return fingerprints for.
+            Values: NULL or 0 for none
+
+
+    Output:
+        fingerprint - The fingerprint of the query result.
+            Values: A 32 character hex string
+
+        rowCount - The number of rows in the query result.
+            Values: Any BIGINT value
+
+        partitions - The fingerprint of each partition
+            CURSOR (
+                partitionNumber     INTEGER     -- 0 to partitionCount - 1
+                rowCount            BIGINT
+                fingerprint         VARCHAR(32)
+            )
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when query_string is not provided, keyColumns or partitionCount is
+                                   negative, or the query fails.
+
+ */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class ResultSetFingerprint extends EncodingUtilTemplate {
+
+	// column encodings
+	private static final byte NULL = 0 ;
+	private static final byte EXACT = 'N' ;
+	private static final byte BIG_EXACT = 'M' ;
+	private static final byte APPROXIMATE = 'D' ;
+	private static final byte BOOLEAN = 'Z' ;
+	private static final byte BINARY = 'B' ;
+	private static final byte LOB = 'L' ;
+	private static final byte STRING = 'S' ;
+
+	private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE) ;
+	private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE) ;
+
+	private static final ParameterInfo[] PARTITIONS_CURSOR = new ParameterInfo[] {
+		new ParameterInfo("partitionNumber", Types.INTEGER, DIRECTION_NONE),
+		new ParameterInfo("rowCount", Types.BIGINT, DIRECTION_NONE),
+		new ParameterInfo("fingerprint", Types.VARCHAR, DIRECTION_NONE)
+	} ;
+
+	private String fingerprint = null ;
+	private Long rowCount = null ;
+	private CustomCursor partitions = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns an order independent fingerprint and row count (optionally per partition) of a query result" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("keyColumns", Types.INTEGER, DIRECTION_IN),
+			new ParameterInfo("partitionCount", Types.INTEGER, DIRECTION_IN),
+			new ParameterInfo("fingerprint", Types.VARCHAR, DIRECTION_OUT),
+			new ParameterInfo("rowCount", Types.BIGINT, DIRECTION_OUT),
+			new ParameterInfo("partitions", TYPED_CURSOR, DIRECTION_OUT, PARTITIONS_CURSOR)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { fingerprint, rowCount, partitions } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String query = (String) args[0] ;
+		int keyColumns = (args[1] == null) ? 0 : ((Integer) args[1]).intValue() ;
+		int partitionCount = (args[2] == null) ? 0 : ((Integer) args[2]).intValue() ;
+
+		if (query == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter query_string must be provided.") ;
+		}
+		if (keyColumns < 0 || partitionCount < 0) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameters keyColumns and partitionCount may not be negative.") ;
+		}
+
+		// -- index 0 is the whole result, 1 to partitionCount the partitions
+		long[] sumHi = new long[partitionCount + 1] ;
+		long[] sumLo = new long[partitionCount + 1] ;
+		long[] counts = new long[partitionCount + 1] ;
+
+		ResultSet rs = cjpenv.executeQuery(query, null) ;
+		try {
+			ResultSetMetaData md = rs.getMetaData() ;
+			int columnCount = md.getColumnCount() ;
+			int[] types = new int[columnCount] ;
+			for (int i = 0; i < columnCount; i++) {
+				types[i] = md.getColumnType(i + 1) ;
+			}
+			keyColumns = Math.min(keyColumns, columnCount) ;
+
+			ByteArrayBuilder row = new ByteArrayBuilder() ;
+			long[] h = new long[2] ;
+			while (rs.next()) {
+				row.reset() ;
+				int keyLength = 0 ;
+				for (int i = 0; i < columnCount; i++) {
+					encode(rs, i + 1, types[i], row) ;
+					if (i + 1 == keyColumns) {
+						keyLength = row.length() ;
+					}
+				}
+
+				long partitionHash = 0 ;
+				if (partitionCount > 0 && keyColumns > 0) {
+					partitionHash = Murmur3.hash64(row.array(), 0, keyLength, 0, h) ;
+				}
+				Murmur3.hash128(row.array(), 0, row.length(), 0, h) ;
+				add(sumHi, sumLo, counts, 0, h) ;
+
+				if (partitionCount > 0) {
+					if (keyColumns == 0) {
+						partitionHash = h[0] ;
+					}
+					add(sumHi, sumLo, counts, 1 + (int) ((partitionHash >>> 1) % partitionCount), h) ;
+				}
+			}
+		}
+		finally {
+			rs.close() ;
+		}
+
+		fingerprint = fingerprint(sumHi[0], sumLo[0], counts[0]) ;
+		rowCount = Long.valueOf(counts[0]) ;
+		partitions = new PartitionCursor(sumHi, sumLo, counts) ;
+
+		log(LOG_DEBUG, getName() + ": " + rowCount + " rows, fingerprint " + fingerprint) ;
+		return 0 ;
+	}
+
+	/**
+	 * Adds a row hash to the 128 bit sum (hi, lo) of a partition.
+	 */
+	private static void add(long[] sumHi, long[] sumLo, long[] counts, int p, long[] h) {
+		long lo = sumLo[p] + h[1] ;
+		// -- carry when the unsigned sum wrapped around
+		long carry = ((lo ^ Long.MIN_VALUE) < (h[1] ^ Long.MIN_VALUE)) ? 1 : 0 ;
+		sumHi[p] += h[0] + carry ;
+		sumLo[p] = lo ;
+		counts[p]++ ;
+	}
+
+	private static String fingerprint(long hi, long lo, long count) {
+		ByteArrayBuilder b = new ByteArrayBuilder(24) ;
+		b.appendLong(hi).appendLong(lo).appendLong(count) ;
+		long[] h = new long[2] ;
+		Murmur3.hash128(b.array(), 0, b.length(), 0, h) ;
+		return Murmur3.toHex(h[0], h[1]) ;
+	}
+
+	/**
+	 * Appends the encoding of a column value to the row: a type tag followed by the value, with a
+	 * length in front of variable length values so that adjacent columns can't run into each other.
+	 */
+	private static void encode(ResultSet rs, int column, int type, ByteArrayBuilder row) throws SQLException, IOException, NoSuchAlgorithmException {
+		switch (type) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT: {
+				long v = rs.getLong(column) ;
+				if (rs.wasNull()) {
+					row.append(NULL) ;
+				} else {
+					row.append(EXACT).appendInt(0).appendLong(v) ;
+				}
+				break ;
+			}
+			case Types.DECIMAL:
+			case Types.NUMERIC: {
+				BigDecimal v = rs.getBigDecimal(column) ;
+				if (v == null) {
+					row.append(NULL) ;
+				} else if (v.signum() == 0) {
+					row.append(EXACT).appendInt(0).appendLong(0) ;
+				} else {
+					v = v.stripTrailingZeros() ;
+					int scale = v.scale() ;
+					BigInteger unscaled = v.unscaledValue() ;
+					if (scale < 0) {
+						unscaled = unscaled.multiply(BigInteger.TEN.pow(-scale)) ;
+						scale = 0 ;
+					}
+					if (unscaled.compareTo(LONG_MIN) >= 0 && unscaled.compareTo(LONG_MAX) <= 0) {
+						row.append(EXACT).appendInt(scale).appendLong(unscaled.longValue()) ;
+					} else {
+						byte[] b = unscaled.toByteArray() ;
+						row.append(BIG_EXACT).appendInt(scale).appendInt(b.length).append(b, 0, b.length) ;
+					}
+				}
+				break ;
+			}
+			case Types.FLOAT:
+			case Types.REAL:
+			case Types.DOUBLE: {
+				double v = rs.getDouble(column) ;
+				if (rs.wasNull()) {
+					row.append(NULL) ;
+				} else {
+					// -- + 0.0 turns -0.0 into 0.0
+					row.append(APPROXIMATE).appendLong(Double.doubleToLongBits(v + 0.0)) ;
+				}
+				break ;
+			}
+			case Types.BOOLEAN:
+			case Types.BIT: {
+				boolean v = rs.getBoolean(column) ;
+				if (rs.wasNull()) {
+					row.append(NULL) ;
+				} else {
+					row.append(BOOLEAN).append((byte) (v ? 1 : 0)) ;
+				}
+				break ;
+			}
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY: {
+				byte[] v = rs.getBytes(column) ;
+				if (v == null) {
+					row.append(NULL) ;
+				} else {
+					row.append(BINARY).appendInt(v.length).append(v, 0, v.length) ;
+				}
+				break ;
+			}
+			case Types.BLOB: {
+				Blob v = rs.getBlob(column) ;
+				if (v == null) {
+					row.append(NULL) ;
+				} else {
+					// -- hashed as it's read in chunks (see DigestEngine.hashBlob()), only the length and the 32 hex
+					//    digit digest go into the row, so a BLOB of any size takes constant memory
+					row.append(LOB).appendLong(v.length()).appendUtf8(DigestEngine.getInstance().hashBlob(DigestEngine.MD5, v)) ;
+				}
+				break ;
+			}
+			default: {
+				String v = rs.getString(column) ;
+				if (v == null) {
+					row.append(NULL) ;
+				} else {
+					row.append(STRING).appendInt(v.length()).appendUtf8(v) ;
+				}
+			}
+		}
+	}
+
+	public class PartitionCursor implements CustomCursor {
+		private final long[] sumHi ;
+		private final long[] sumLo ;
+		private final long[] counts ;
+		private int partition = 1 ;
+
+		public PartitionCursor(long[] sumHi, long[] sumLo, long[] counts) {
+			this.sumHi = sumHi ;
+			this.sumLo = sumLo ;
+			this.counts = counts ;
+		}
+
+		public ParameterInfo[] getColumnInfo() {
+			return PARTITIONS_CURSOR ;
+		}
+
+		public Object[] next() throws CustomProcedureException, SQLException {
+			if (partition >= counts.length) {
+				return null ;
+			}
+			Object[] row = new Object[] {
+				Integer.valueOf(partition - 1),
+				Long.valueOf(counts[partition]),
+				fingerprint(sumHi[partition], sumLo[partition], counts[partition])
+			} ;
+			partition++ ;
+			return row ;
+		}
+
+		public void close() throws CustomProcedureException, SQLException {
+			partition = counts.length ;
+		}
+	}
+}
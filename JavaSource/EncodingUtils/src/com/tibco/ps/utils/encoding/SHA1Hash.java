@@ -46,8 +46,6 @@ SHA1Hash:
 
 import com.compositesw.extension.*;
 
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
 import java.sql.*;
 import java.security.*;
 
@@ -85,33 +83,18 @@ public class SHA1Hash implements CustomProcedure {
 	public void invoke(Object[] inputValues) throws CustomProcedureException,
 			SQLException {
 		
-		StringBuffer pad = new StringBuffer();
 		String inputString = (String)inputValues[0];
-		byte[] inputBytes = null;
-		try {
-			inputBytes = inputString.getBytes("UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new CustomProcedureException(e.getMessage());
+		if (inputString == null) {
+			result = null;
+			return;
 		}
-		
-		MessageDigest m = null;
+
+		// -- the engine reuses this thread's MessageDigest and always returns the full length hex digest
 		try {
-			m = MessageDigest.getInstance("SHA1");
+			result = DigestEngine.getInstance().hashString(DigestEngine.SHA1, inputString);
 		} catch (NoSuchAlgorithmException e) {
 			throw new CustomProcedureException(e.getMessage());
-		} 
-		m.reset(); 
-		m.update(inputBytes); 
-		byte[] digest = m.digest(); 
-		BigInteger bigInt = new BigInteger(1,digest); 
-		
-		result = bigInt.toString(16); 
-		// -- pad as needed to length of 32 characters
-		for (int i = result.length(); i < 32; i++) {
-			pad.append("0");
 		}
-		pad.append(result);
-		result = pad.toString();
 
 	}
 
@@ -0,0 +1,299 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+/*
+SecurityProviderInventory:
+
+    Description:
+        Snapshot of the JCE providers and services of the CIS JVM used by CISSecurityProviders and
+        IsSecurityAlgorithmAvailable. Walking every provider and service (and sorting them) is done once, when
+        the class is initialized, into an immutable snapshot: the sorted list of CISSecurityProviders records
+        and an index from "type.ALGORITHM" (upper case, including algorithm aliases) to the providers of the
+        service. A lookup checks the index for each provider in preference order, so the first provider it
+        returns is the one getInstance() would use, and its result is kept with the snapshot, so a repeated
+        lookup is a single map get.
+
+        A snapshot is replaced when the list of installed providers changes (e.g. a provider is added with
+        Security.addProvider()), which is detected by comparing the provider objects, or when refresh() is
+        called (e.g. after a provider changed its services.)
+
+        Cipher transformations ("AES/GCM/NoPadding") are resolved the way Cipher.getInstance() resolves them:
+        a service for the full transformation, "alg/mode", "alg//padding" or "alg" whose SupportedModes and
+        SupportedPaddings attributes (when present) include the mode and padding.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.PatternSyntaxException;
+
+public class SecurityProviderInventory {
+
+	private static final String ALIAS_PREFIX = "Alg.Alias." ;
+
+	// establish the max number of resolved lookups kept by a snapshot
+	private static final int MAX_LOOKUPS = 1024 ;
+
+	private static volatile SecurityProviderInventory current = new SecurityProviderInventory(Security.getProviders()) ;
+
+	private final Provider[] providers ;
+	private final List<CISSecurityProviders.ResultRecord> records ;
+	private final Map<String, List<Provider.Service>> services ;
+	private final List<String> types ;
+
+	// -- resolved lookups (Cipher transformations match attribute patterns), keyed by type.algorithm
+	private final Map<String, List<String>> lookups = new ConcurrentHashMap<String, List<String>>() ;
+
+	private SecurityProviderInventory(Provider[] providers) {
+		this.providers = providers ;
+
+		List<CISSecurityProviders.ResultRecord> rrl = new ArrayList<CISSecurityProviders.ResultRecord>() ;
+		Map<String, List<Provider.Service>> index = new HashMap<String, List<Provider.Service>>() ;
+		List<String> typeList = new ArrayList<String>() ;
+		for (Provider provider : providers) {
+			for (Provider.Service service : provider.getServices()) {
+				rrl.add(new CISSecurityProviders.ResultRecord(provider.toString(), service.getAlgorithm(), service.toString())) ;
+				add(index, key(service.getType(), service.getAlgorithm()), service) ;
+				if (!typeList.contains(service.getType())) {
+					typeList.add(service.getType()) ;
+				}
+			}
+			// -- aliases are only published as "Alg.Alias.type.alias" = algorithm properties
+			for (Enumeration<Object> keys = provider.keys(); keys.hasMoreElements(); ) {
+				Object k = keys.nextElement() ;
+				if (!(k instanceof String) || !((String) k).startsWith(ALIAS_PREFIX)) {
+					continue ;
+				}
+				String alias = ((String) k).substring(ALIAS_PREFIX.length()) ;
+				int dot = alias.indexOf('.') ;
+				if (dot <= 0) {
+					continue ;
+				}
+				String type = alias.substring(0, dot) ;
+				Provider.Service service = provider.getService(type, provider.getProperty((String) k)) ;
+				if (service != null) {
+					add(index, key(type, alias.substring(dot + 1)), service) ;
+				}
+			}
+		}
+		Collections.sort(rrl) ;
+
+		for (Map.Entry<String, List<Provider.Service>> e : index.entrySet()) {
+			e.setValue(Collections.unmodifiableList(e.getValue())) ;
+		}
+		this.records = Collections.unmodifiableList(rrl) ;
+		this.services = index ;
+		this.types = Collections.unmodifiableList(typeList) ;
+	}
+
+	/**
+	 * Returns the current snapshot, rebuilding it first if the installed providers changed.
+	 */
+	public static SecurityProviderInventory getInstance() {
+		SecurityProviderInventory inventory = current ;
+		Provider[] installed = Security.getProviders() ;
+		if (!sameProviders(inventory.providers, installed)) {
+			inventory = new SecurityProviderInventory(installed) ;
+			current = inventory ;
+		}
+		return inventory ;
+	}
+
+	/**
+	 * Rebuilds the snapshot.
+	 */
+	public static SecurityProviderInventory refresh() {
+		SecurityProviderInventory inventory = new SecurityProviderInventory(Security.getProviders()) ;
+		current = inventory ;
+		return inventory ;
+	}
+
+	/**
+	 * Returns the sorted provider, algorithm and service records (read only.)
+	 */
+	public List<CISSecurityProviders.ResultRecord> getRecords() {
+		return records ;
+	}
+
+	/**
+	 * Returns the names of the providers of a service in preference order, or an empty list (read only.) A
+	 * NULL type matches any service type.
+	 */
+	public List<String> getProviders(String type, String algorithm) {
+		if (algorithm == null) {
+			return Collections.emptyList() ;
+		}
+		String lookupKey = (type == null) ? "*." + algorithm : type + "." + algorithm ;
+		List<String> names = lookups.get(lookupKey) ;
+		if (names == null) {
+			// -- in provider preference order, so the first name is the provider getInstance() selects
+			names = new ArrayList<String>() ;
+			for (Provider provider : providers) {
+				boolean found = false ;
+				if (type != null) {
+					found = provides(provider, type, algorithm) ;
+				} else {
+					for (int i = 0; i < types.size() && !found; i++) {
+						found = provides(provider, types.get(i), algorithm) ;
+					}
+				}
+				if (found) {
+					addName(names, provider.getName()) ;
+				}
+			}
+			names = Collections.unmodifiableList(names) ;
+			// -- bounded by what callers ask for, which in practice is a handful of algorithms
+			if (lookups.size() < MAX_LOOKUPS) {
+				lookups.put(lookupKey, names) ;
+			}
+		}
+		return names ;
+	}
+
+	/**
+	 * Returns the first provider of a service in preference order, or NULL if it is not available.
+	 */
+	public String getProvider(String type, String algorithm) {
+		List<String> names = getProviders(type, algorithm) ;
+		return names.isEmpty() ? null : names.get(0) ;
+	}
+
+	public boolean isAvailable(String type, String algorithm) {
+		return getProvider(type, algorithm) != null ;
+	}
+
+	/**
+	 * Returns whether a provider has a service for an algorithm, or (for a Cipher transformation) a service
+	 * for "alg/mode", "alg//padding" or "alg" that supports the mode and padding.
+	 */
+	private boolean provides(Provider provider, String type, String algorithm) {
+		if (hasService(provider, services.get(key(type, algorithm)), null, null)) {
+			return true ;
+		}
+
+		if ("Cipher".equalsIgnoreCase(type) && algorithm.indexOf('/') > 0) {
+			String[] parts = algorithm.split("/", -1) ;
+			if (parts.length != 3) {
+				return false ;
+			}
+			String alg = parts[0].trim() ;
+			String mode = parts[1].trim() ;
+			String padding = parts[2].trim() ;
+			// -- "alg/mode" fixes the mode and "alg//padding" the padding
+			return hasService(provider, services.get(key(type, alg + "/" + mode)), null, padding)
+				|| hasService(provider, services.get(key(type, alg + "//" + padding)), mode, null)
+				|| hasService(provider, services.get(key(type, alg)), mode, padding) ;
+		}
+		return false ;
+	}
+
+	/**
+	 * Returns whether one of services is the provider's and supports the mode and padding (when not NULL.)
+	 */
+	private static boolean hasService(Provider provider, List<Provider.Service> services, String mode, String padding) {
+		if (services == null) {
+			return false ;
+		}
+		for (Provider.Service service : services) {
+			if (service.getProvider() == provider
+					&& (mode == null || supports(service, "SupportedModes", mode))
+					&& (padding == null || supports(service, "SupportedPaddings", padding))) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	private static boolean supports(Provider.Service service, String attribute, String value) {
+		if (value.length() == 0) {
+			return true ;
+		}
+		String supported = service.getAttribute(attribute) ;
+		if (supported == null) {
+			return true ;
+		}
+		// -- the attribute is a "|" separated list of patterns, e.g. "ECB|CBC|CFB[0-9]*"
+		String v = value.toUpperCase(Locale.ENGLISH) ;
+		for (String s : supported.toUpperCase(Locale.ENGLISH).split("\\|")) {
+			try {
+				if (v.equals(s.trim()) || v.matches(s.trim())) {
+					return true ;
+				}
+			}
+			catch (PatternSyntaxException e) {
+				// -- not a pattern, compared as is above
+			}
+		}
+		return false ;
+	}
+
+	private static void addName(List<String> names, String name) {
+		if (!names.contains(name)) {
+			names.add(name) ;
+		}
+	}
+
+	private static void add(Map<String, List<Provider.Service>> index, String key, Provider.Service service) {
+		List<Provider.Service> list = index.get(key) ;
+		if (list == null) {
+			list = new ArrayList<Provider.Service>(2) ;
+			index.put(key, list) ;
+		}
+		if (!list.contains(service)) {
+			list.add(service) ;
+		}
+	}
+
+	private static String key(String type, String algorithm) {
+		return type.toUpperCase(Locale.ENGLISH) + "." + algorithm.trim().toUpperCase(Locale.ENGLISH) ;
+	}
+
+	private static boolean sameProviders(Provider[] a, Provider[] b) {
+		if (a.length != b.length) {
+			return false ;
+		}
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return false ;
+			}
+		}
+		return true ;
+	}
+}
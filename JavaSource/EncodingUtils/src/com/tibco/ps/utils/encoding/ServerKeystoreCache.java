@@ -0,0 +1,215 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+ServerKeystoreCache:
+
+    Description:
+        Cache of the CIS server keystore keys used by EncryptDecryptX509 (EncryptWithCISPubKey and
+        DecryptWithCISPrivKey.) Finding the keys takes several procedure invocations to look up the server
+        version and the keystore location and alias (see ServerUtil.getServerAttributeAS) and then loading
+        and parsing the keystore file, which is far too expensive to do for every encrypted value.
+
+        The server attributes are looked up once (the keystore location and alias in a single
+        ServerUtil.getServerAttributes call) and kept for ATTRIBUTE_TTL milliseconds. Keystores are
+        cached by location, alias and password (a SHA-256 hash of it, not the password itself), so a wrong
+        password never gets a key out of the cache, and are loaded again when the keystore file's modification
+        time changes (checked at most every MODIFICATION_CHECK_INTERVAL milliseconds) or after ATTRIBUTE_TTL
+        milliseconds. invalidate() drops everything, e.g. after the server's keystore has been reconfigured.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.compositesw.extension.ExecutionEnvironment;
+
+public class ServerKeystoreCache {
+
+	public static final long ATTRIBUTE_TTL = 5 * 60 * 1000L ;
+	public static final long MODIFICATION_CHECK_INTERVAL = 5 * 1000L ;
+
+	/**
+	 * The keystore location and key alias of the server.
+	 */
+	public static class Location {
+		public final String version ;
+		public final String certFile ;
+		public final String alias ;
+		final long expires ;
+
+		Location(String version, String certFile, String alias, long expires) {
+			this.version = version ;
+			this.certFile = certFile ;
+			this.alias = alias ;
+			this.expires = expires ;
+		}
+	}
+
+	private static class Keys {
+		final KeyStore keystore ;
+		final long lastModified ;
+		final long expires ;
+		volatile long checked ;
+		volatile PublicKey publicKey ;
+		volatile PrivateKey privateKey ;
+
+		Keys(KeyStore keystore, long lastModified, long now) {
+			this.keystore = keystore ;
+			this.lastModified = lastModified ;
+			this.expires = now + ATTRIBUTE_TTL ;
+			this.checked = now ;
+		}
+	}
+
+	private static volatile Location location = null ;
+	private static final ConcurrentHashMap<String, Keys> keystores = new ConcurrentHashMap<String, Keys>() ;
+
+	private ServerKeystoreCache() {
+	}
+
+	/**
+	 * Returns the server's keystore location and key alias, looking them up when they aren't cached or
+	 * have expired.
+	 */
+	public static Location getLocation(ExecutionEnvironment env) throws Exception {
+		Location loc = location ;
+		long now = System.currentTimeMillis() ;
+		if (loc != null && now < loc.expires) {
+			return loc ;
+		}
+
+		String version = ServerUtil.getServerAttributeAS(env, ServerUtil.VERSION) ;
+		String certFile ;
+		String alias ;
+		if (env == null) {
+			certFile = strong(version) ? EncryptDecryptX509.STRONG_DEFAULT_CIS_KEYSTORE : EncryptDecryptX509.DEFAULT_CIS_KEYSTORE ;
+			alias = strong(version) ? EncryptDecryptX509.STRONG_DEFAULT_CIS_KEY_ALIAS : EncryptDecryptX509.DEFAULT_CIS_KEY_ALIAS ;
+		} else {
+			// -- the location and the alias are fetched in a single call
+			String locationAttr = strong(version) ? ServerUtil.STRONG_KEYSTORE_LOCATION_ATTR : ServerUtil.KEYSTORE_LOCATION_ATTR ;
+			String aliasAttr = strong(version) ? ServerUtil.STRONG_KEYSTORE_KEY_ALIAS_ATTR : ServerUtil.KEYSTORE_KEY_ALIAS_ATTR ;
+			Map<String, String> attrs = ServerUtil.getServerAttributes(env, locationAttr, aliasAttr) ;
+			certFile = attrs.get(locationAttr) ;
+			alias = attrs.get(aliasAttr) ;
+		}
+
+		if (loc != null && !(certFile.equals(loc.certFile) && alias.equals(loc.alias))) {
+			keystores.clear() ;
+		}
+		loc = new Location(version, certFile, alias, now + ATTRIBUTE_TTL) ;
+		location = loc ;
+		if (env != null) env.log(ServerUtil.LOG_TYPE, "ServerKeystoreCache: certFile=" + certFile + " alias=" + alias) ;
+		return loc ;
+	}
+
+	// Version 6 and 7 servers use the "strong" keystore
+	private static boolean strong(String version) {
+		return version.substring(0,1).equalsIgnoreCase("6") || version.substring(0,1).equalsIgnoreCase("7") ;
+	}
+
+	/**
+	 * Returns the public key of the server's certificate.
+	 */
+	public static PublicKey getPublicKey(ExecutionEnvironment env, String password) throws Exception {
+		Location loc = getLocation(env) ;
+		Keys k = getKeys(loc, password) ;
+		PublicKey key = k.publicKey ;
+		if (key == null) {
+			Certificate cert = k.keystore.getCertificate(loc.alias) ;
+			key = cert.getPublicKey() ;
+			k.publicKey = key ;
+		}
+		return key ;
+	}
+
+	/**
+	 * Returns the server's private key.
+	 */
+	public static PrivateKey getPrivateKey(ExecutionEnvironment env, String password) throws Exception {
+		Location loc = getLocation(env) ;
+		Keys k = getKeys(loc, password) ;
+		PrivateKey key = k.privateKey ;
+		if (key == null) {
+			key = (PrivateKey) k.keystore.getKey(loc.alias, password.toCharArray()) ;
+			k.privateKey = key ;
+		}
+		return key ;
+	}
+
+	/**
+	 * Drops the cached server attributes and keystores.
+	 */
+	public static void invalidate() {
+		location = null ;
+		keystores.clear() ;
+	}
+
+	private static Keys getKeys(Location loc, String password) throws Exception {
+		String id = loc.certFile + '|' + loc.alias + '|' + DigestEngine.getInstance().hashString(DigestEngine.SHA256, password) ;
+		Keys k = keystores.get(id) ;
+		long now = System.currentTimeMillis() ;
+
+		if (k != null && now < k.expires) {
+			if (now - k.checked < MODIFICATION_CHECK_INTERVAL) {
+				return k ;
+			}
+			k.checked = now ;
+			if (new File(loc.certFile).lastModified() == k.lastModified) {
+				return k ;
+			}
+		}
+
+		// -- (re)load the keystore. A wrong password fails here and nothing is cached.
+		long lastModified = new File(loc.certFile).lastModified() ;
+		KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType()) ;
+		InputStream inStream = new FileInputStream(loc.certFile) ;
+		try {
+			keystore.load(inStream, password.toCharArray()) ;
+		}
+		finally {
+			inStream.close() ;
+		}
+		k = new Keys(keystore, lastModified, now) ;
+		keystores.put(id, k) ;
+		return k ;
+	}
+}
@@ -24,15 +24,20 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
 import com.compositesw.extension.CustomProcedureException;
@@ -66,9 +71,61 @@ public class ServerUtil {
 	public static final String KEYSTORE_PASSWORD_ATTR = "/server/communications/keystorePassword";
 	public static final String KEYSTORE_KEY_ALIAS_ATTR = "/server/communications/keystoreKeyAlias";
 	
+	// Server attribute values are cached for attributeCacheTTL milliseconds (5 minutes unless the system
+	//		property below is set) since every lookup is a procedure invocation. Set it to 0 to disable the cache.
+	public static final String ATTRIBUTE_CACHE_TTL_PROPERTY = "com.tibco.ps.utils.encoding.ServerUtil.attributeCacheTTL";
+	private static volatile long attributeCacheTTL = Long.getLong(ATTRIBUTE_CACHE_TTL_PROPERTY, 5 * 60 * 1000L).longValue();
+
+	private static class CachedAttribute {
+		final String value;
+		final long expires;
+
+		CachedAttribute(String value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+	private static final ConcurrentHashMap<String, CachedAttribute> attributeCache = new ConcurrentHashMap<String, CachedAttribute>();
+
+	public static long getAttributeCacheTTL() {
+		return attributeCacheTTL;
+	}
+
+	public static void setAttributeCacheTTL(long ttl) {
+		attributeCacheTTL = ttl;
+		if (ttl <= 0) {
+			attributeCache.clear();
+		}
+	}
+
+	// Drop all cached server attribute values, e.g. after the server configuration has been changed.
+	public static void invalidateServerAttributes() {
+		attributeCache.clear();
+	}
+
+	private static String getCachedAttribute(String path) {
+		CachedAttribute c = attributeCache.get(path);
+		if (c != null && System.currentTimeMillis() < c.expires) {
+			return c.value;
+		}
+		return null;
+	}
+
+	private static void cacheAttribute(String path, String value) {
+		// -- NULL means the lookup failed, which isn't cached
+		if (value != null && attributeCacheTTL > 0) {
+			attributeCache.put(path, new CachedAttribute(value, System.currentTimeMillis() + attributeCacheTTL));
+		}
+	}
+
 	// Get the server attribute using the ASAssets getServerAttribute which returns a string value instead of XML.
 	public static String getServerAttributeAS(ExecutionEnvironment ee, String request) throws CustomProcedureException, SQLException {
 
+		String cached = getCachedAttribute(request);
+		if (cached != null) {
+			return cached;
+		}
+
 		String procName = "getServerAttributeAS";
 		ProcedureReference webapi = ee.lookupProcedure(ServerUtil.GET_SERVER_ATTRIBUTES_AS_PROCEDURE);
 		ee.log(LOG_TYPE, "(a)ASAssets."+procName+" invoke="+ServerUtil.GET_SERVER_ATTRIBUTES_AS_PROCEDURE);
@@ -85,6 +142,7 @@ public class ServerUtil {
 		} finally {
 			webapi.close();
 		}
+		cacheAttribute(request, result);
 		return result;
 	}
 
@@ -92,6 +150,11 @@ public class ServerUtil {
 	// It does not return the response from a procedure with an XML output.
 	public static String getServerAttribute(ExecutionEnvironment ee, String a) throws CustomProcedureException, SQLException {
 
+		String cached = getCachedAttribute(a);
+		if (cached != null) {
+			return cached;
+		}
+
 		String procName = "getServerAttribute";
 		ProcedureReference webapi = ee.lookupProcedure(GET_SERVER_ATTRIBUTES_PROCEDURE);
 		String request = GET_SERVER_ATTRIBUTES_REQUEST.replace(SERVER_ATTRIBUTE_TAG, a);
@@ -119,6 +182,63 @@ public class ServerUtil {
 		} finally {
 			webapi.close();
 		}
+		cacheAttribute(a, result);
+		return result;
+	}
+
+	// Get several server attributes at once. Cached values are used and all the others are requested in a
+	//		single getServerAttributes call. Attributes that call doesn't return are looked up one at a time
+	//		with getServerAttributeAS. Returns a map of attribute path to value (NULL when not found.)
+	public static Map<String, String> getServerAttributes(ExecutionEnvironment ee, String... paths) throws CustomProcedureException, SQLException {
+
+		String procName = "getServerAttributes";
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		StringBuilder request = null;
+		for (String path : paths) {
+			String cached = getCachedAttribute(path);
+			result.put(path, cached);
+			if (cached == null) {
+				if (request == null) {
+					request = new StringBuilder("<server:getServerAttributes xmlns:server=\"http://www.compositesw.com/services/system/admin/server\">	<server:paths>");
+				}
+				request.append("		<server:path>").append(path).append("</server:path>");
+			}
+		}
+		if (request == null) {
+			return result;
+		}
+		request.append("	</server:paths></server:getServerAttributes>");
+
+		ProcedureReference webapi = ee.lookupProcedure(GET_SERVER_ATTRIBUTES_PROCEDURE);
+		ee.log(LOG_TYPE, "(a)ServerUtil."+procName+" request="+request);
+		try {
+			webapi.invoke(new Object[] { request.toString() });
+			final Object[] response = webapi.getOutputValues();
+			if (response != null) {
+				for (int i=0; i < response.length; i++) {
+					if (response[i] != null) {
+						Map<String, String> values = parseGetServerAttributesResponseAll(response[i].toString());
+						for (Map.Entry<String, String> e : values.entrySet()) {
+							if (result.containsKey(e.getKey()) && result.get(e.getKey()) == null && e.getValue() != null) {
+								result.put(e.getKey(), e.getValue());
+								cacheAttribute(e.getKey(), e.getValue());
+							}
+						}
+					}
+				}
+			}
+		} catch (Exception e) {
+			ee.log(LOG_TYPE, "(p)ServerUtil."+procName+" failed, falling back to getServerAttributeAS: "+e);
+		} finally {
+			webapi.close();
+		}
+
+		for (Map.Entry<String, String> e : result.entrySet()) {
+			if (e.getValue() == null) {
+				e.setValue(getServerAttributeAS(ee, e.getKey()));
+			}
+		}
+		ee.log(LOG_TYPE, "(p)ServerUtil."+procName+" result="+result);
 		return result;
 	}
 
@@ -201,6 +321,30 @@ public class ServerUtil {
 		return val;
 	}
 
+	// XPath objects aren't thread-safe, so each thread keeps one
+	private static final ThreadLocal<XPath> xpaths = new ThreadLocal<XPath>() {
+		@Override
+		protected XPath initialValue() {
+			XPath x = XPathFactory.newInstance().newXPath();
+			x.setNamespaceContext(new ResourceNamespaceContext());
+			return x;
+		}
+	};
+
+	// Returns all the attribute names and values of a getServerAttributes response. A response that can't be
+	// parsed throws, so that getServerAttributes() falls back to getServerAttributeAS().
+	public static Map<String, String> parseGetServerAttributesResponseAll(String xml) throws XPathExpressionException {
+		Map<String, String> values = new LinkedHashMap<String, String>();
+		XPath x = xpaths.get();
+		InputSource source = new InputSource(new ByteArrayInputStream(xml.getBytes()));
+		NodeList nodes = (NodeList) x.evaluate("//common:attribute", source, XPathConstants.NODESET);
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node n = nodes.item(i);
+			values.put(x.evaluate("common:name/text()", n), x.evaluate("common:value/text()", n));
+		}
+		return values;
+	}
+
 	public static void main(String[] args) {
 		String result = parseGetServerAttributesResponse("<server:getServerAttributesResponse xmlns:server=\"http://www.compositesw.com/services/system/admin/server\">\n"
 			+ "<server:attributes>\n"
@@ -0,0 +1,109 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+/*
+Tokenize:
+
+    Description:
+        Returns a deterministic token for a value, for masking sensitive data (e.g. in non-production copies.)
+        The token is derived from the HMAC-SHA256 of the value under a secret key, so the same value always
+        gets the same token under the same key and masked tables can still be joined on the masked columns
+        (unlike EncryptWithAES, whose output depends on the IV.) The value can't be recovered from its token.
+        Intended to be called per row, so each thread reuses the Mac of recently used keys. See HmacTokenizer.
+
+        To mask a whole column in one pass use TokenizeBatch.
+
+
+    Input:
+        inputString - The value to tokenize.
+            Values: Any text value
+
+        key - The secret tokenization key. Use the same key wherever tokens must match.
+            Values: Any non-empty text value
+
+        format - The token format.
+            Values: HEX (or NULL) for the 64 character hex HMAC of the value.
+                    PRESERVE for a token with the same length and layout as the value: digits are replaced by
+                    digits, letters by letters of the same case and other characters are kept. Distinct values
+                    get distinct tokens (see HmacTokenizer.)
+
+
+    Output:
+        token - The token.
+            Values: NULL if inputString is NULL
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when the key is not provided or the format is unknown.
+
+ */
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class Tokenize extends EncodingUtilTemplate {
+
+	private String token = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns a deterministic, join preserving HMAC-SHA256 token (hex or format preserving) for a value" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("inputString", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("key", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("format", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("token", Types.VARCHAR, DIRECTION_OUT)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { token } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String inputString = (String) args[0] ;
+		String key = (String) args[1] ;
+		int format = HmacTokenizer.getFormat((String) args[2]) ;
+
+		if (key == null || key.length() == 0) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter key must be provided.") ;
+		}
+
+		if (inputString != null) {
+			token = HmacTokenizer.forKey(key).tokenize(inputString, format) ;
+		}
+		return 0 ;
+	}
+}
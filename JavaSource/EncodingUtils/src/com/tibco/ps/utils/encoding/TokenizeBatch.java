@@ -0,0 +1,185 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+/*
+TokenizeBatch:
+
+    Description:
+        Tokenizes a column of a query result. This is the batch form of Tokenize: the query is executed once and
+        its rows are tokenized one at a time as the output cursor is read, with one Mac for the whole batch, so
+        large tables can be masked in a single pass without invoking a CJP per row. Memory use doesn't depend on
+        the number of rows.
+
+        The first column of the query is tokenized. If the query returns a second column (e.g. the primary key
+        of the table) it is returned as rowKey so the tokens can be matched to their rows; otherwise rowKey is NULL,
+        so the output never contains the values themselves. Tokens are returned in the order of the query rows.
+
+        Tokens are the same as the ones returned by Tokenize for the same key and format. See HmacTokenizer.
+
+
+    Input:
+        query_string - The query returning the values to tokenize in its first column and optionally a row key
+                       in its second.
+            Values: Any CIS query
+
+        key - The secret tokenization key. Use the same key wherever tokens must match.
+            Values: Any non-empty text value
+
+        format - The token format.
+            Values: HEX (or NULL) or PRESERVE (see Tokenize.)
+
+
+    Output:
+        result - The tokens.
+            CURSOR (
+                rowKey      VARCHAR     -- the second column of the query, or NULL if there is none
+                token       VARCHAR     -- NULL when the value is NULL
+            )
+
+
+    Exceptions:
+        CustomProcedureException - Thrown when query_string or key is not provided, the format is unknown, or the
+                                   query fails.
+
+ */
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class TokenizeBatch extends EncodingUtilTemplate {
+
+	private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+		new ParameterInfo("rowKey", Types.VARCHAR, DIRECTION_NONE),
+		new ParameterInfo("token", Types.VARCHAR, DIRECTION_NONE)
+	} ;
+
+	private TokenCursor outputCursor = null ;
+
+	@Override
+	public String getName() {
+		procName = getClass().getSimpleName() ;
+		return procName ;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Returns deterministic, join preserving HMAC-SHA256 tokens for the first column of a query" ;
+	}
+
+	@Override
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("query_string", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("key", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("format", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("result", TYPED_CURSOR, DIRECTION_OUT, OUTPUT_CURSOR)
+		} ;
+	}
+
+	@Override
+	public Object[] getOutputValues() throws CustomProcedureException, SQLException {
+		return new Object[] { outputCursor } ;
+	}
+
+	@Override
+	public int execute(Object[] args) throws Exception {
+		String query = (String) args[0] ;
+		String key = (String) args[1] ;
+		int format = HmacTokenizer.getFormat((String) args[2]) ;
+
+		if (query == null) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter query_string must be provided.") ;
+		}
+		if (key == null || key.length() == 0) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter key must be provided.") ;
+		}
+
+		// -- create the Mac before running the query, so a bad key fails early
+		HmacTokenizer tokenizer = new HmacTokenizer(key) ;
+		outputCursor = new TokenCursor(cjpenv.executeQuery(query.trim(), null), tokenizer, format) ;
+		return 0 ;
+	}
+
+	@Override
+	public void close() {
+		super.close() ;
+		if (outputCursor != null) {
+			try {
+				outputCursor.close() ;
+			}
+			catch (Exception e) {
+				log(LOG_DEBUG, getName() + ": error closing the query: " + e) ;
+			}
+		}
+	}
+
+	public class TokenCursor implements CustomCursor {
+		private final ResultSet rs ;
+		private final HmacTokenizer tokenizer ;
+		private final int format ;
+		private final boolean hasRowKey ;
+		private boolean closed = false ;
+		private long rowCount = 0 ;
+
+		public TokenCursor(ResultSet rs, HmacTokenizer tokenizer, int format) throws SQLException {
+			this.rs = rs ;
+			this.tokenizer = tokenizer ;
+			this.format = format ;
+			this.hasRowKey = rs.getMetaData().getColumnCount() > 1 ;
+		}
+
+		public ParameterInfo[] getColumnInfo() {
+			return OUTPUT_CURSOR ;
+		}
+
+		public Object[] next() throws CustomProcedureException, SQLException {
+			if (closed) {
+				return null ;
+			}
+			if (!rs.next()) {
+				log(LOG_DEBUG, getName() + ": tokenized " + rowCount + " rows") ;
+				close() ;
+				return null ;
+			}
+			rowCount++ ;
+
+			String value = rs.getString(1) ;
+			String rowKey = hasRowKey ? rs.getString(2) : null ;
+			try {
+				return new Object[] { rowKey, tokenizer.tokenize(value, format) } ;
+			}
+			catch (Exception e) {
+				throw new CustomProcedureException("Error in CJP " + getName() + ": tokenization failed: " + e.getMessage(), e) ;
+			}
+		}
+
+		public void close() throws CustomProcedureException, SQLException {
+			if (!closed) {
+				closed = true ;
+				rs.close() ;
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.tibco.ps.utils.encoding;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+XxHash64:
+
+    Description:
+        xxHash (64 bit variant, XXH64) by Yann Collet, a very fast non-cryptographic hash with good
+        distribution, for bucketing and deduplication keys. The result matches the reference
+        implementation (XXH64 in libxxhash.)
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        None
+
+ */
+
+public class XxHash64 {
+
+	private static final long P1 = 0x9E3779B185EBCA87L ;
+	private static final long P2 = 0xC2B2AE3D27D4EB4FL ;
+	private static final long P3 = 0x165667B19E3779F9L ;
+	private static final long P4 = 0x85EBCA77C2B2AE63L ;
+	private static final long P5 = 0x27D4EB2F165667C5L ;
+
+	private XxHash64() {
+	}
+
+	/**
+	 * Returns the hash of len bytes of b starting at off.
+	 */
+	public static long hash(byte[] b, int off, int len, long seed) {
+		int end = off + len ;
+		int p = off ;
+		long h ;
+
+		if (len >= 32) {
+			long v1 = seed + P1 + P2 ;
+			long v2 = seed + P2 ;
+			long v3 = seed ;
+			long v4 = seed - P1 ;
+			int limit = end - 32 ;
+			do {
+				v1 = round(v1, getLong(b, p)) ;
+				v2 = round(v2, getLong(b, p + 8)) ;
+				v3 = round(v3, getLong(b, p + 16)) ;
+				v4 = round(v4, getLong(b, p + 24)) ;
+				p += 32 ;
+			} while (p <= limit) ;
+
+			h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18) ;
+			h = mergeRound(h, v1) ;
+			h = mergeRound(h, v2) ;
+			h = mergeRound(h, v3) ;
+			h = mergeRound(h, v4) ;
+		} else {
+			h = seed + P5 ;
+		}
+
+		h += len ;
+
+		while (p + 8 <= end) {
+			h ^= round(0, getLong(b, p)) ;
+			h = Long.rotateLeft(h, 27) * P1 + P4 ;
+			p += 8 ;
+		}
+		if (p + 4 <= end) {
+			h ^= (getInt(b, p) & 0xFFFFFFFFL) * P1 ;
+			h = Long.rotateLeft(h, 23) * P2 + P3 ;
+			p += 4 ;
+		}
+		while (p < end) {
+			h ^= (b[p] & 0xFFL) * P5 ;
+			h = Long.rotateLeft(h, 11) * P1 ;
+			p++ ;
+		}
+
+		h ^= h >>> 33 ;
+		h *= P2 ;
+		h ^= h >>> 29 ;
+		h *= P3 ;
+		h ^= h >>> 32 ;
+		return h ;
+	}
+
+	private static long round(long acc, long input) {
+		acc += input * P2 ;
+		acc = Long.rotateLeft(acc, 31) ;
+		return acc * P1 ;
+	}
+
+	private static long mergeRound(long acc, long v) {
+		acc ^= round(0, v) ;
+		return acc * P1 + P4 ;
+	}
+
+	private static long getLong(byte[] b, int i) {
+		return (getInt(b, i) & 0xFFFFFFFFL) | ((long) getInt(b, i + 4) << 32) ;
+	}
+
+	private static int getInt(byte[] b, int i) {
+		return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24 ;
+	}
+}
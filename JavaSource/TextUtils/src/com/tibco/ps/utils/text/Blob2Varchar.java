@@ -26,9 +26,15 @@ Blob2Varchar:
 Description:
   Converts a BLOB data type to a VARCHAR. Use CAST to cast CLOB data types to VARCHAR.
 
+  The BLOB is decoded in blocks with a CharsetDecoder (see BlobDecoder) instead of being copied
+  whole and read one character at a time. Use Blob2VarcharPrefix to convert only the start of a
+  BLOB, or Blob2VarcharChunks to return a large BLOB as a cursor of smaller pieces.
+
 
 Inputs:
   BlobVal      - A BLOB value to convert.
+  charset      - The character set of the BLOB's bytes, e.g. UTF-8 or ISO-8859-1. NULL uses the
+                 CIS server's default character set (as before this parameter was added.)
 
 
 Output:
@@ -36,7 +42,7 @@ Output:
 
 
 Exceptions:
-  CustomProcedureException - If supplied input can not be converted
+  CustomProcedureException - If supplied input can not be converted or the character set is not supported
 
 
 Modified Date:	Modified By:		CSW Version:	Reason:
@@ -48,21 +54,11 @@ Modified Date:	Modified By:		CSW Version:	Reason:
 
 import com.compositesw.extension.*;
 import java.sql.*;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 public class Blob2Varchar implements CustomProcedure
 {
     private ExecutionEnvironment qenv;
-    private Object result;
-    private Blob inputBlob;
-    private InputStream is;
-    private BufferedReader bufReader;
-    private int data;
-    private StringBuffer stringBuf;
     private String resultString;
 
     public Blob2Varchar()
@@ -88,6 +84,7 @@ public class Blob2Varchar implements CustomProcedure
         return new ParameterInfo[]
         {
             new ParameterInfo("BlobVal", Types.BLOB, DIRECTION_IN),
+            new ParameterInfo("charset", Types.VARCHAR, DIRECTION_IN),
             new ParameterInfo("result", Types.LONGVARCHAR, DIRECTION_OUT)
         };
     }
@@ -108,42 +105,15 @@ public class Blob2Varchar implements CustomProcedure
         {
             try
             {
-                result = inputValues[0];
-                inputBlob = (Blob)result;
-                //
-                // Blob.getBinaryStream() not implemented in CIS JDBC driver
-                //
-                //is = inputBlob.getBinaryStream();
-                is = new ByteArrayInputStream(inputBlob.getBytes(1L, new Long(inputBlob.length()).intValue()));
-
-                bufReader = new BufferedReader(new InputStreamReader(is));
-                stringBuf = new StringBuffer();
-                data = bufReader.read();
-                while(data != -1)
-                {
-                    char theChar = (char) data;
-                    stringBuf.append(theChar);
-                    data = bufReader.read();
-                }
-                resultString = stringBuf.toString();
+                resultString = BlobDecoder.decode((Blob)inputValues[0], (String)inputValues[1], -1);
             }
-            catch(IOException ioe)
+            catch(IllegalArgumentException iae)
             {
-                throw new CustomProcedureException(ioe);
+                throw new CustomProcedureException(iae);
             }
-            finally
+            catch(IOException ioe)
             {
-                try
-                {
-                    if(bufReader != null)
-                    {
-                        bufReader.close();
-                    }
-                }
-                catch(IOException ignored)
-                {
-                    ;
-                }
+                throw new CustomProcedureException(ioe);
             }
         }
     }
@@ -0,0 +1,187 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+	Description:
+	  Returns the text of a BLOB as a cursor of pieces of at most chunkSize characters, decoding the BLOB
+	  one block at a time as the cursor is read (see BlobDecoder.) Use this instead of Blob2Varchar for
+	  BLOB's whose text is too large to handle as a single value. A piece never ends in the middle of a
+	  surrogate pair, so each piece is valid text on its own.
+
+
+	Inputs:
+	  BlobVal   - A BLOB value to convert.
+	  charset   - The character set of the BLOB's bytes, e.g. UTF-8. NULL uses the CIS server's default character set.
+	  chunkSize - The maximum number of characters per row. NULL defaults to DEFAULT_CHUNK_SIZE (32000.)
+
+
+	Outputs:
+	  result (
+	    chunkNumber INTEGER     - The 1 based number of the piece.
+	    chunk       LONGVARCHAR - The text of the piece.
+	  )
+	  No rows are returned when BlobVal is NULL.
+
+
+	Exceptions:
+	  CustomProcedureException - If the BLOB can't be read, chunkSize isn't positive or the character set is not supported.
+
+*/
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class Blob2VarcharChunks
+    extends TextUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "Blob2VarcharChunks";
+        logger = Logger.getLogger(Blob2VarcharChunks.class.getName());
+    }
+
+    protected static final int DEFAULT_CHUNK_SIZE = 32000;
+
+    private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+        new ParameterInfo("chunkNumber", Types.INTEGER,     DIRECTION_OUT),
+        new ParameterInfo("chunk",       Types.LONGVARCHAR, DIRECTION_OUT)
+    };
+
+    private ChunkCursor outputCursor = null;
+
+    public Blob2VarcharChunks() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("BlobVal",   Types.BLOB,    DIRECTION_IN),
+            new ParameterInfo("charset",   Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("chunkSize", Types.INTEGER, DIRECTION_IN),
+            new ParameterInfo("result",    TYPED_CURSOR,  DIRECTION_OUT, OUTPUT_CURSOR)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+            logger.debug("Invoked with charset   : " + (null==inputValues[1]?"[null]":inputValues[1].toString()));
+            logger.debug("             chunkSize : " + (null==inputValues[2]?"[null]":inputValues[2].toString()));
+        }
+
+        int chunkSize = (inputValues[2] == null) ? DEFAULT_CHUNK_SIZE : ((Integer) inputValues[2]).intValue();
+        if (chunkSize < 2) {
+            throw new CustomProcedureException("Blob2VarcharChunks: chunkSize must be at least 2: " + chunkSize);
+        }
+
+        BlobDecoder decoder = null;
+        if (inputValues[0] != null) {
+            try {
+                decoder = new BlobDecoder((Blob) inputValues[0], (String) inputValues[1]);
+            }
+            catch (IllegalArgumentException iae) {
+                throw new CustomProcedureException("Blob2VarcharChunks: " + iae.getMessage(), iae);
+            }
+        }
+
+        outputCursor = new ChunkCursor(decoder, chunkSize);
+    }
+
+    public Object[] getOutputValues() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outputCursor };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Returns the text of a BLOB in the specified character set as a cursor of pieces.";
+    }
+
+    private static class ChunkCursor implements CustomCursor {
+        private BlobDecoder decoder;
+        private final CharBuffer buffer;
+        private int chunkNumber = 0;
+
+        ChunkCursor(BlobDecoder decoder, int chunkSize) {
+            this.decoder = decoder;
+            this.buffer = CharBuffer.allocate(chunkSize);
+        }
+
+        public ParameterInfo[] getColumnInfo() {
+            return OUTPUT_CURSOR;
+        }
+
+        public Object[] next() throws CustomProcedureException, SQLException {
+            if (decoder == null) {
+                return null;
+            }
+
+            try {
+                // buffer may start with the high surrogate held back from the previous piece.
+                //
+                decoder.read(buffer);
+            }
+            catch (IOException ioe) {
+                throw new CustomProcedureException("Blob2VarcharChunks: " + ioe.getMessage(), ioe);
+            }
+
+            int len = buffer.position();
+            if (len == 0) {
+                close();
+                return null;
+            }
+
+            boolean holdBack = !decoder.isDone() && Character.isHighSurrogate(buffer.get(len - 1));
+            String chunk = new String(buffer.array(), 0, holdBack ? len - 1 : len);
+
+            buffer.clear();
+            if (holdBack) {
+                buffer.put(buffer.get(len - 1));
+            }
+
+            chunkNumber++;
+            return new Object[] { Integer.valueOf(chunkNumber), chunk };
+        }
+
+        public void close() {
+            decoder = null;
+        }
+    }
+}
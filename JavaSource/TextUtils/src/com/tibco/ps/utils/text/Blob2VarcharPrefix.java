@@ -0,0 +1,126 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+	Description:
+	  Returns at most maxChars characters from the start of a BLOB's text. Only as much of the BLOB as
+	  is needed to produce those characters is read and decoded (see BlobDecoder), so this is a cheap
+	  way to preview or index large documents.
+
+
+	Inputs:
+	  BlobVal  - A BLOB value to convert.
+	  charset  - The character set of the BLOB's bytes, e.g. UTF-8. NULL uses the CIS server's default character set.
+	  maxChars - The maximum number of characters to return. NULL returns the whole text (as Blob2Varchar.)
+
+
+	Outputs:
+	  result   - The start of the BLOB's text (one character shorter than maxChars if the last character would be
+	             half of a surrogate pair.) NULL when BlobVal is NULL.
+
+
+	Exceptions:
+	  CustomProcedureException - If the BLOB can't be read, maxChars is negative or the character set is not supported.
+
+*/
+
+import java.io.IOException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class Blob2VarcharPrefix
+    extends TextUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "Blob2VarcharPrefix";
+        logger = Logger.getLogger(Blob2VarcharPrefix.class.getName());
+    }
+
+    private String outValue = null;
+
+    public Blob2VarcharPrefix() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("BlobVal",  Types.BLOB,        DIRECTION_IN),
+            new ParameterInfo("charset",  Types.VARCHAR,     DIRECTION_IN),
+            new ParameterInfo("maxChars", Types.INTEGER,     DIRECTION_IN),
+            new ParameterInfo("result",   Types.LONGVARCHAR, DIRECTION_OUT)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+            logger.debug("Invoked with charset  : " + (null==inputValues[1]?"[null]":inputValues[1].toString()));
+            logger.debug("             maxChars : " + (null==inputValues[2]?"[null]":inputValues[2].toString()));
+        }
+
+        Blob blob = (Blob) inputValues[0];
+        if (blob == null) {
+            return;  // Nothing to do, outValue will be returned as null;
+        }
+
+        int maxChars = (inputValues[2] == null) ? -1 : ((Integer) inputValues[2]).intValue();
+        if (inputValues[2] != null && maxChars < 0) {
+            throw new CustomProcedureException("Blob2VarcharPrefix: maxChars must not be negative: " + maxChars);
+        }
+
+        try {
+            outValue = BlobDecoder.decode(blob, (String) inputValues[1], maxChars);
+        }
+        catch (IllegalArgumentException iae) {
+            throw new CustomProcedureException("Blob2VarcharPrefix: " + iae.getMessage(), iae);
+        }
+        catch (IOException ioe) {
+            throw new CustomProcedureException("Blob2VarcharPrefix: " + ioe.getMessage(), ioe);
+        }
+    }
+
+    public Object[] getOutputValues() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outValue };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Returns the first maxChars characters of a BLOB's text in the specified character set.";
+    }
+}
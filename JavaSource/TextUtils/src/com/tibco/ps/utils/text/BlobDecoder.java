@@ -0,0 +1,163 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  Decodes the bytes of a BLOB into text with an explicit character set. Used by Blob2Varchar,
+  Blob2VarcharPrefix and Blob2VarcharChunks.
+
+  The BLOB is read in BLOCK_SIZE byte chunks (see BlobInputStream) and each chunk is decoded by a
+  CharsetDecoder straight into the caller's CharBuffer, so there is no intermediate copy of the whole
+  value and no per character Reader call. decode() presizes its CharBuffer from the BLOB's length and
+  the character set's maximum characters per byte, so the text is built in a single array.
+
+  Malformed and unmappable input is replaced with the character set's replacement character, as an
+  InputStreamReader does.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  IllegalArgumentException - Thrown when the character set name is not supported.
+
+*/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+public class BlobDecoder {
+
+    // number of bytes read from the BLOB at a time.
+    //
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BLOCK_SIZE);
+    private final long length;
+    private boolean endOfInput = false;
+    private boolean flushed = false;
+
+    /**
+     * Creates a decoder for a BLOB. A NULL charset name means the JVM's default character set.
+     */
+    public BlobDecoder(Blob blob, String charsetName) throws SQLException {
+        Charset charset = (charsetName == null) ? Charset.defaultCharset() : Charset.forName(charsetName.trim());
+
+        this.in = new BlobInputStream(blob, BLOCK_SIZE);
+        this.length = blob.length();
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        bytes.flip();   // start out empty
+    }
+
+    /**
+     * Returns the whole text of a BLOB, or at most maxChars characters of it when maxChars isn't negative.
+     */
+    public static String decode(Blob blob, String charsetName, long maxChars) throws SQLException, IOException {
+        BlobDecoder bd = new BlobDecoder(blob, charsetName);
+
+        // every char comes from at least 1 / maxCharsPerByte bytes, so this is enough for the whole BLOB.
+        //
+        long size = (long) Math.ceil(bd.length * (double) bd.decoder.maxCharsPerByte());
+        if (maxChars >= 0 && maxChars < size) {
+            size = maxChars;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The text of the BLOB is too long to return as a single value (" + size + " characters.)");
+        }
+
+        CharBuffer out = CharBuffer.allocate((int) size);
+        bd.read(out);
+        return new String(out.array(), 0, out.position());
+    }
+
+    /**
+     * Decodes as many characters as fit into out (or as are left.) Returns false once all of the BLOB has
+     * been decoded and nothing was added to out.
+     */
+    public boolean read(CharBuffer out) throws IOException {
+        int start = out.position();
+
+        while (out.hasRemaining() && !flushed) {
+            if (!endOfInput && bytes.remaining() < BLOCK_SIZE / 2) {
+                fill();
+            }
+
+            CoderResult cr = decoder.decode(bytes, out, endOfInput);
+            if (cr.isOverflow()) {
+                break;
+            }
+            if (cr.isError()) {
+                cr.throwException();
+            }
+
+            // underflow: more input is needed, or there is none left.
+            //
+            if (endOfInput) {
+                if (decoder.flush(out).isOverflow()) {
+                    break;
+                }
+                flushed = true;
+            }
+        }
+
+        return out.position() > start || !flushed;
+    }
+
+    /**
+     * Returns true when all of the BLOB has been decoded.
+     */
+    public boolean isDone() {
+        return flushed;
+    }
+
+    /**
+     * Moves any undecoded bytes to the start of the buffer and reads more bytes after them.
+     */
+    private void fill() throws IOException {
+        bytes.compact();
+
+        int n = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        if (n < 0) {
+            endOfInput = true;
+        } else {
+            bytes.position(bytes.position() + n);
+        }
+
+        bytes.flip();
+    }
+}
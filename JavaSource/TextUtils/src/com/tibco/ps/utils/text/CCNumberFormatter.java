@@ -85,16 +85,12 @@ public class CCNumberFormatter
         	outValue = null ;
         	return ;
         }
-        String out = null ;
-        try {
-        	String num = FormattingUtil.cleanseCCNumber(in) ;
-        	if (logger.isDebug()) {
-        		logger.debug("CCNumberFormatter: cleansed CC number - " + num) ;
-        	}
-        	out = FormattingUtil.formatCCNumber(null, num) ;
+        String out = FormattingUtil.getDigitFormatter().formatCCNumber(in) ;
+        if ( out == null ) {
+            throw new CustomProcedureException("CCNumberFormatter: Invalid number", new IllegalArgumentException("[" + in + "]")) ;
         }
-        catch(IllegalArgumentException iae) {
-            throw new CustomProcedureException("CCNumberFormatter: Invalid number", iae) ;
+        if (logger.isDebug()) {
+            logger.debug("CCNumberFormatter: formatted CC number - " + out) ;
         }
         outValue = out ;
     }
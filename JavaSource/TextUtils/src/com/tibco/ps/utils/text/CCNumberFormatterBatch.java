@@ -0,0 +1,125 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+	Description:
+	  Formats a column of credit card numbers. This is the batch form of CCNumberFormatter: the query is executed once and its
+	  rows are formatted one at a time as the output cursor is read, reusing one DigitFormatter for the
+	  whole batch, so large tables can be formatted without invoking a CJP per row.
+
+	  Unlike CCNumberFormatter an invalid value does not raise an exception (which would fail the whole
+	  batch), it is returned with a NULL formatted value instead.
+
+
+	Inputs:
+	  query_string   - The query returning the values to format in its first column.
+	    values: Any valid CIS query.
+
+
+	Outputs:
+	  result (
+	    inCCNumber     VARCHAR - The value read from the query.
+	    outCCNumber    VARCHAR - The formatted value. NULL when the input isn't a valid Visa, MasterCard, Discover or
+	                               American Express number (including the Luhn check.)
+	  )
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when the query fails.
+
+*/
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class CCNumberFormatterBatch
+    extends TextUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "CCNumberFormatterBatch";
+        logger = Logger.getLogger(CCNumberFormatterBatch.class.getName());
+    }
+
+    private static final ParameterInfo[] OUTPUT_CURSOR = new ParameterInfo[] {
+        new ParameterInfo("inCCNumber", Types.VARCHAR, DIRECTION_OUT),
+        new ParameterInfo("outCCNumber", Types.VARCHAR, DIRECTION_OUT)
+    };
+
+    private DigitFormatter.BatchCursor outputCursor = null;
+
+    public CCNumberFormatterBatch() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("query_string",   Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("result",         TYPED_CURSOR,  DIRECTION_OUT, OUTPUT_CURSOR)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+        }
+
+        if (inputValues[0] == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter query_string must be provided.");
+        }
+
+        outputCursor = new DigitFormatter.BatchCursor(qenv.executeQuery(((String) inputValues[0]).trim(), null),
+            DigitFormatter.CC_NUMBER, null, OUTPUT_CURSOR);
+    }
+
+    public Object[] getOutputValues() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outputCursor };
+    }
+
+    public void close() throws SQLException {
+        super.close();
+
+        if (outputCursor != null) {
+            outputCursor.close();
+        }
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Validates and formats a query's column of Credit Card numbers.";
+    }
+}
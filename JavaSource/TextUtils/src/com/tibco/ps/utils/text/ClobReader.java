@@ -0,0 +1,104 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  A Reader over a java.sql.Clob that reads the Clob in fixed size chunks with Clob.getSubString(),
+  so that only one chunk of the Clob is held in memory (see BlobInputStream.)
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  IOException - Thrown (wrapping the SQLException) when the Clob can't be read.
+
+*/
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.SQLException;
+
+public class ClobReader extends Reader {
+
+    private final Clob clob;
+    private final long length;
+    private final int chunkSize;
+
+    private long position = 0;   // number of chars of the Clob read so far
+    private String chunk = null;
+    private int chunkPos = 0;
+
+    public ClobReader(Clob clob, int chunkSize) throws SQLException {
+        this.clob = clob;
+        this.length = clob.length();
+        this.chunkSize = chunkSize;
+    }
+
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+
+        int n = Math.min(len, chunk.length() - chunkPos);
+        chunk.getChars(chunkPos, chunkPos + n, cbuf, off);
+        chunkPos += n;
+        return n;
+    }
+
+    public void close() {
+        chunk = null;
+    }
+
+    /**
+     * Makes sure there are unread chars in the current chunk. Returns false at the end of the Clob.
+     */
+    private boolean fill() throws IOException {
+        if (chunk != null && chunkPos < chunk.length()) {
+            return true;
+        }
+        if (position >= length) {
+            return false;
+        }
+
+        try {
+            chunk = clob.getSubString(position + 1, (int) Math.min(chunkSize, length - position));
+        } catch (SQLException e) {
+            throw new IOException("Unable to read CLOB at position " + (position + 1) + ": " + e.getMessage());
+        }
+
+        if (chunk.length() == 0) {
+            return false;
+        }
+
+        chunkPos = 0;
+        position += chunk.length();
+        return true;
+    }
+}
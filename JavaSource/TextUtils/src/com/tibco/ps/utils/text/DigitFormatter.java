@@ -0,0 +1,283 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  The formatting engine behind the PhoneNumberFormatter, SSNumberFormatter and CCNumberFormatter
+  CJP's (and their *Batch forms.)
+
+  A value is formatted with a single scan: the digits of the input are copied into a reusable
+  char array (everything else is skipped) and the formatted value is then written from that array
+  into a second reusable char array, from which the result string is created. No regular expressions,
+  substrings or java.util.Formatter's are involved unless the caller supplies its own format string.
+
+  Credit card numbers are checked with the Luhn algorithm directly over the digit array.
+
+  An instance keeps state between calls and must only be used by one thread at a time.
+  FormattingUtil.getDigitFormatter() returns the calling thread's instance.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+*/
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.compositesw.extension.CustomCursor;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class DigitFormatter {
+
+    // identifier kinds
+    //
+    public static final int PHONE_NUMBER = 0;
+    public static final int SSN = 1;
+    public static final int CC_NUMBER = 2;
+
+    // digit group sizes of the default formats: 999-999-9999, 999-99-9999, 9999 9999 9999 9999 and 9999 999999 99999.
+    //
+    private static final int[] PHONE_NUMBER_GROUPS = { 3, 3, 4 };
+    private static final int[] SSN_GROUPS = { 3, 2, 4 };
+    private static final int[] CC_NUMBER_GROUPS = { 4, 4, 4, 4 };
+    private static final int[] AMEX_NUMBER_GROUPS = { 4, 6, 5 };
+
+    private static final int MAX_DIGITS = 16;
+
+    private final char[] digits = new char[MAX_DIGITS];
+    private final char[] buffer = new char[MAX_DIGITS * 2];
+    private int digitCount;
+
+    public DigitFormatter() {}
+
+    /**
+     * Formats a 10 digit phone number. A NULL or empty format gives 999-999-9999, otherwise the format
+     * is passed to String.format() with the digits from positions 0, 3 and 6 onwards (as before.)
+     * Returns NULL if the input doesn't contain exactly 10 digits.
+     */
+    public String formatPhoneNumber(String format, String s) {
+        if (!extractDigits(s, 10)) {
+            return null;
+        }
+
+        if (format == null || format.length() == 0) {
+            return group(PHONE_NUMBER_GROUPS, '-');
+        }
+
+        return String.format(format, new String(digits, 0, 10), new String(digits, 3, 7), new String(digits, 6, 4));
+    }
+
+    /**
+     * Formats a 9 digit social security number as 999-99-9999. Returns NULL if the input doesn't contain
+     * exactly 9 digits.
+     */
+    public String formatSSN(String s) {
+        if (!extractDigits(s, 9)) {
+            return null;
+        }
+
+        return group(SSN_GROUPS, '-');
+    }
+
+    /**
+     * Validates and formats a credit card number: 16 digit Visa, MasterCard and Discover numbers as
+     * 9999 9999 9999 9999 and 15 digit American Express numbers as 9999 999999 99999. Returns NULL if
+     * the number isn't one of those or fails the Luhn check.
+     */
+    public String formatCCNumber(String s) {
+        if (s == null || s.length() < 15) {
+            return null;
+        }
+
+        extractDigits(s, MAX_DIGITS);
+
+        if (digitCount == 16) {
+            char d0 = digits[0];
+            char d1 = digits[1];
+            boolean known = d0 == '4'
+                || (d0 == '5' && d1 >= '1' && d1 <= '5')
+                || (d0 == '6' && d1 == '0' && digits[2] == '1' && digits[3] == '1');
+
+            return (known && checkLuhn()) ? group(CC_NUMBER_GROUPS, ' ') : null;
+        }
+
+        if (digitCount == 15) {
+            boolean known = digits[0] == '3' && (digits[1] == '4' || digits[1] == '7');
+
+            return (known && checkLuhn()) ? group(AMEX_NUMBER_GROUPS, ' ') : null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Formats a value of the given kind (the format is only used for phone numbers.)
+     */
+    public String format(int kind, String format, String s) {
+        switch (kind) {
+        case PHONE_NUMBER:
+            return formatPhoneNumber(format, s);
+        case SSN:
+            return formatSSN(s);
+        default:
+            return formatCCNumber(s);
+        }
+    }
+
+    /**
+     * Returns the digits of a value as a string, or NULL if it doesn't contain exactly length digits.
+     */
+    public String cleanse(String s, int length) {
+        return extractDigits(s, length) ? new String(digits, 0, length) : null;
+    }
+
+    /**
+     * Copies the digits of s into the digit array. Returns true if s contains exactly length digits
+     * (length must not exceed MAX_DIGITS.)
+     */
+    private boolean extractDigits(String s, int length) {
+        digitCount = 0;
+
+        if (s == null) {
+            return false;
+        }
+
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitCount == length) {
+                    digitCount++;
+                    return false;
+                }
+                digits[digitCount++] = c;
+            }
+        }
+
+        return digitCount == length;
+    }
+
+    /**
+     * Writes the digits in groups of the given sizes separated by the separator.
+     */
+    private String group(int[] groups, char separator) {
+        int pos = 0;
+        int d = 0;
+
+        for (int g = 0; g < groups.length; g++) {
+            if (g > 0) {
+                buffer[pos++] = separator;
+            }
+            for (int i = 0; i < groups[g]; i++) {
+                buffer[pos++] = digits[d++];
+            }
+        }
+
+        return new String(buffer, 0, pos);
+    }
+
+    /**
+     * Luhn check of the digit array: every second digit counting from the rightmost one is doubled.
+     */
+    private boolean checkLuhn() {
+        int checksum = 0;
+        boolean doubled = false;
+
+        for (int i = digitCount - 1; i >= 0; i--) {
+            int n = digits[i] - '0';
+            if (doubled) {
+                n *= 2;
+                if (n > 9) {
+                    n -= 9;
+                }
+            }
+            checksum += n;
+            doubled = !doubled;
+        }
+
+        return checksum % 10 == 0;
+    }
+
+    /**
+     * Output cursor of the *FormatterBatch CJP's. Formats the first column of each row of a result set
+     * and returns (input value, formatted value.) Invalid values are returned with a NULL formatted value
+     * so that one bad row doesn't fail the whole batch.
+     */
+    public static class BatchCursor implements CustomCursor {
+        private final ResultSet rs;
+        private final int kind;
+        private final String format;
+        private final ParameterInfo[] columns;
+        private final DigitFormatter formatter = new DigitFormatter();
+        private boolean closed = false;
+
+        public BatchCursor(ResultSet rs, int kind, String format, ParameterInfo[] columns) {
+            this.rs = rs;
+            this.kind = kind;
+            this.format = format;
+            this.columns = columns;
+        }
+
+        public ParameterInfo[] getColumnInfo() {
+            return columns;
+        }
+
+        public Object[] next() throws CustomProcedureException, SQLException {
+            if (closed) {
+                return null;
+            }
+
+            if (!rs.next()) {
+                close();
+                return null;
+            }
+
+            String value = rs.getString(1);
+            if (value == null || value.length() == 0) {
+                return new Object[] { value, null };
+            }
+
+            try {
+                return new Object[] { value, formatter.format(kind, format, value) };
+            } catch (IllegalArgumentException iae) {
+                // an invalid format string fails every row, so fail the batch.
+                //
+                throw new CustomProcedureException("Invalid output format " + format, iae);
+            }
+        }
+
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                rs.close();
+            }
+        }
+    }
+}
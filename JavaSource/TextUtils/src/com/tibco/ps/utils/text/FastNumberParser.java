@@ -0,0 +1,200 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  A parser for plain localized numbers (e.g. "-1,234,567.89" in en_US or "-1.234.567,89" in de_DE)
+  used by LocalNumberParser in front of the JDK's NumberFormat.parse().
+
+  NumberFormat.parse() allocates a ParsePosition, a DigitList and a string for Double.parseDouble()
+  on every call. This class reads the locale's minus sign, grouping separator and decimal separator
+  once and then parses a value with a single scan over its characters without allocating anything.
+
+  Only input that consists entirely of an optional minus sign, digits (with grouping separators
+  between them) and an optional decimal separator followed by digits, with at most 15 significant
+  digits and at most 22 fraction digits, is parsed here. Within those limits the digits and the
+  power of ten are both exact doubles, so dividing one by the other gives the same correctly rounded
+  result as the JDK. Anything else (exponents, currency symbols, trailing text, very long values,
+  ...) is handed to the NumberFormat unchanged, so the results are always the same as before.
+
+  Like the NumberFormat it wraps, an instance must only be used by one thread at a time. Instances
+  are cached by LocalFormatFactory.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+*/
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParseException;
+
+public class FastNumberParser {
+
+    // 10^0 .. 10^22 are all exactly representable as doubles.
+    //
+    private static final double[] POWERS_OF_TEN = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MAX_SIGNIFICANT_DIGITS = 15;
+
+    private final NumberFormat format;
+    private final boolean enabled;
+    private final boolean groupingUsed;
+    private final char minusSign;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+
+    protected FastNumberParser(NumberFormat format) {
+        this.format = format;
+
+        boolean ok = false;
+        boolean grouping = false;
+        char minus = '-';
+        char groupingChar = ',';
+        char decimalChar = '.';
+
+        // only plain decimal formats without a prefix or suffix other than a one character minus sign qualify.
+        //
+        if (format instanceof DecimalFormat) {
+            DecimalFormat df = (DecimalFormat) format;
+            DecimalFormatSymbols symbols = df.getDecimalFormatSymbols();
+            String negativePrefix = df.getNegativePrefix();
+
+            ok = df.getPositivePrefix().length() == 0
+                && df.getPositiveSuffix().length() == 0
+                && df.getNegativeSuffix().length() == 0
+                && negativePrefix.length() == 1
+                && df.getMultiplier() == 1
+                && !df.isParseBigDecimal()
+                && !df.isParseIntegerOnly()
+                && !isDigit(negativePrefix.charAt(0))
+                && !isDigit(symbols.getGroupingSeparator())
+                && !isDigit(symbols.getDecimalSeparator())
+                && symbols.getGroupingSeparator() != symbols.getDecimalSeparator();
+
+            grouping = df.isGroupingUsed();
+            minus = negativePrefix.length() > 0 ? negativePrefix.charAt(0) : minus;
+            groupingChar = symbols.getGroupingSeparator();
+            decimalChar = symbols.getDecimalSeparator();
+        }
+
+        this.enabled = ok;
+        this.groupingUsed = grouping;
+        this.minusSign = minus;
+        this.groupingSeparator = groupingChar;
+        this.decimalSeparator = decimalChar;
+    }
+
+    /**
+     * Parses a localized number, returning the same value as format.parse(value).doubleValue().
+     */
+    public double parse(String value) throws ParseException {
+        if (enabled) {
+            double d = scan(value);
+            if (!Double.isNaN(d)) {
+                return d;
+            }
+        }
+
+        return format.parse(value).doubleValue();
+    }
+
+    /**
+     * Returns the value of the input, or NaN if the input isn't in the simple form handled here.
+     */
+    private double scan(String value) {
+        int len = value.length();
+        int i = 0;
+        boolean negative = false;
+
+        if (len > 0 && value.charAt(0) == minusSign) {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean sawDigit = false;
+
+        // integer part. a grouping separator is only accepted between two digits.
+        //
+        for (; i < len; i++) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                if ((mantissa != 0 || c != '0') && ++significantDigits > MAX_SIGNIFICANT_DIGITS) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                sawDigit = true;
+            } else if (c == groupingSeparator && groupingUsed && sawDigit && i + 1 < len && isDigit(value.charAt(i + 1))) {
+                continue;
+            } else {
+                break;
+            }
+        }
+
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+
+        // fraction part. it must run to the end of the input.
+        //
+        if (i < len) {
+            if (value.charAt(i) != decimalSeparator || i + 1 == len) {
+                return Double.NaN;
+            }
+
+            for (i++; i < len; i++) {
+                char c = value.charAt(i);
+                if (!isDigit(c)) {
+                    return Double.NaN;
+                }
+                if ((mantissa != 0 || c != '0') && ++significantDigits > MAX_SIGNIFICANT_DIGITS) {
+                    return Double.NaN;
+                }
+                if (++fractionDigits >= POWERS_OF_TEN.length) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        }
+
+        double d = (fractionDigits == 0) ? (double) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -d : d;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,439 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  A parser for localized timestamps used by LocalTimestampParser in front of the JDK's
+  DateFormat.parse().
+
+  The MEDIUM and SHORT date and time styles of most locales only contain numeric fields, month
+  names, AM/PM markers and literal text (e.g. "M/d/yy, h:mm a" or "dd.MM.y, HH:mm:ss".) When the
+  DateFormat's pattern is made up of those pieces only, it is compiled once into a list of fields
+  and literals, and a value is then parsed with a single scan over its characters that doesn't
+  allocate anything. The fields are applied to the DateFormat's own Calendar, so the time zone,
+  daylight saving time and two digit year handling are the same as the JDK's.
+
+  Only input that matches the pattern exactly and whose fields are all within their normal ranges
+  is parsed here. Anything else (extra or missing whitespace, trailing text, out of range values
+  that a lenient DateFormat would roll over, patterns containing time zones or day names, ...) is
+  handed to the DateFormat unchanged, so the results are always the same as before.
+
+  Like the DateFormat it wraps, an instance must only be used by one thread at a time. Instances
+  are cached by LocalFormatFactory.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+*/
+
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+public class FastTimestampParser {
+
+    // token types
+    //
+    private static final int LITERAL = 0;
+    private static final int YEAR = 1;
+    private static final int MONTH = 2;
+    private static final int MONTH_NAME = 3;
+    private static final int DAY = 4;
+    private static final int HOUR_OF_DAY = 5;   // H, 0-23
+    private static final int HOUR = 6;          // h, 1-12
+    private static final int MINUTE = 7;
+    private static final int SECOND = 8;
+    private static final int MILLISECOND = 9;
+    private static final int AM_PM = 10;
+
+    // returned by scan() when the input has to be parsed by the DateFormat.
+    //
+    private static final long NO_MATCH = Long.MIN_VALUE;
+
+    // numeric fields longer than this are left to the DateFormat.
+    //
+    private static final int MAX_FIELD_DIGITS = 9;
+
+    // dates before the Gregorian cutover are left to the DateFormat.
+    //
+    private static final int MIN_YEAR = 1583;
+
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    private final DateFormat format;
+    private final Calendar calendar;
+    private final boolean enabled;
+
+    private final int[] types;
+    private final int[] counts;
+    private final String[] literals;
+
+    private final String[] months;
+    private final String[] shortMonths;
+    private final String[] amPmStrings;
+
+    // two digit years are placed in the 100 years starting at the format's default century start.
+    //
+    private final int centuryStartYear;
+
+    // index of the string matched by the last call to matchLongest().
+    //
+    private int matchedIndex;
+
+    protected FastTimestampParser(DateFormat format) {
+        this.format = format;
+        this.calendar = format.getCalendar();
+
+        List<Integer> typeList = new ArrayList<Integer>();
+        List<Integer> countList = new ArrayList<Integer>();
+        List<String> literalList = new ArrayList<String>();
+        String[] monthNames = null;
+        String[] shortMonthNames = null;
+        String[] amPm = null;
+        int centuryStart = 0;
+
+        boolean ok = format instanceof SimpleDateFormat
+            && calendar instanceof GregorianCalendar
+            && format.isLenient();
+
+        if (ok) {
+            SimpleDateFormat sdf = (SimpleDateFormat) format;
+            DateFormatSymbols symbols = sdf.getDateFormatSymbols();
+            monthNames = symbols.getMonths();
+            shortMonthNames = symbols.getShortMonths();
+            amPm = symbols.getAmPmStrings();
+
+            Calendar c = (Calendar) calendar.clone();
+            c.setTime(sdf.get2DigitYearStart());
+            centuryStart = c.get(Calendar.YEAR);
+
+            ok = compile(sdf.toPattern(), typeList, countList, literalList);
+        }
+
+        int n = ok ? typeList.size() : 0;
+        types = new int[n];
+        counts = new int[n];
+        literals = new String[n];
+        for (int i = 0; i < n; i++) {
+            types[i] = typeList.get(i).intValue();
+            counts[i] = countList.get(i).intValue();
+            literals[i] = literalList.get(i);
+        }
+
+        this.enabled = ok;
+        this.months = monthNames;
+        this.shortMonths = shortMonthNames;
+        this.amPmStrings = amPm;
+        this.centuryStartYear = centuryStart;
+    }
+
+    /**
+     * Parses a localized timestamp, returning the same value as format.parse(value).getTime().
+     */
+    public long parse(String value) throws ParseException {
+        if (enabled) {
+            long millis = scan(value);
+            if (millis != NO_MATCH) {
+                return millis;
+            }
+        }
+
+        return format.parse(value).getTime();
+    }
+
+    /**
+     * Splits a SimpleDateFormat pattern into fields and literals. Returns false if the pattern
+     * contains anything that isn't handled by scan().
+     */
+    private static boolean compile(String pattern, List<Integer> types, List<Integer> counts, List<String> literals) {
+        StringBuilder literal = new StringBuilder();
+        boolean hasHour = false;
+        boolean hasAmPm = false;
+        int len = pattern.length();
+
+        for (int i = 0; i < len; ) {
+            char c = pattern.charAt(i);
+
+            if (c == '\'') {
+                // quoted text. two quotes in a row (inside or outside of quoted text) are a quote.
+                //
+                if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                for (i++; i < len; i++) {
+                    c = pattern.charAt(i);
+                    if (c == '\'') {
+                        if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+                            literal.append('\'');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        literal.append(c);
+                    }
+                }
+                i++;
+                continue;
+            }
+
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int count = 1;
+            while (i + count < len && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            i += count;
+
+            int type;
+            switch (c) {
+            case 'y': type = YEAR; break;
+            case 'M':
+            case 'L': type = (count >= 3) ? MONTH_NAME : MONTH; break;
+            case 'd': type = DAY; break;
+            case 'H': type = HOUR_OF_DAY; break;
+            case 'h': type = HOUR; hasHour = true; break;
+            case 'm': type = MINUTE; break;
+            case 's': type = SECOND; break;
+            case 'S': type = MILLISECOND; break;
+            case 'a': type = AM_PM; hasAmPm = true; break;
+            default:
+                return false;
+            }
+
+            // two fields without anything between them need the DateFormat's field width handling.
+            //
+            if (literal.length() > 0) {
+                types.add(Integer.valueOf(LITERAL));
+                counts.add(Integer.valueOf(0));
+                literals.add(literal.toString());
+                literal.setLength(0);
+            } else if (!types.isEmpty()) {
+                return false;
+            }
+
+            types.add(Integer.valueOf(type));
+            counts.add(Integer.valueOf(count));
+            literals.add(null);
+        }
+
+        if (literal.length() > 0) {
+            types.add(Integer.valueOf(LITERAL));
+            counts.add(Integer.valueOf(0));
+            literals.add(literal.toString());
+        }
+
+        return hasHour == hasAmPm;
+    }
+
+    /**
+     * Returns the epoch milliseconds of the input, or NO_MATCH if the input doesn't match the pattern exactly.
+     */
+    private long scan(String value) {
+        int len = value.length();
+        int pos = 0;
+
+        int year = -1;
+        int month = -1;
+        int day = -1;
+        int hour = 0;
+        int pm = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+
+        for (int t = 0; t < types.length; t++) {
+            int type = types[t];
+
+            if (type == LITERAL) {
+                String literal = literals[t];
+                if (!value.startsWith(literal, pos)) {
+                    return NO_MATCH;
+                }
+                pos += literal.length();
+                continue;
+            }
+
+            if (type == MONTH_NAME) {
+                int end = matchLongest(value, pos, months);
+                if (end < 0) {
+                    end = matchLongest(value, pos, shortMonths);
+                }
+                if (end < 0) {
+                    return NO_MATCH;
+                }
+                month = matchedIndex;
+                pos = end;
+                continue;
+            }
+
+            if (type == AM_PM) {
+                int end = matchLongest(value, pos, amPmStrings);
+                if (end < 0) {
+                    return NO_MATCH;
+                }
+                pm = matchedIndex;
+                pos = end;
+                continue;
+            }
+
+            // numeric field
+            //
+            int start = pos;
+            int n = 0;
+            while (pos < len && pos - start < MAX_FIELD_DIGITS) {
+                char c = value.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                n = n * 10 + (c - '0');
+                pos++;
+            }
+            if (pos == start || (pos < len && isDigit(value.charAt(pos)))) {
+                return NO_MATCH;
+            }
+
+            switch (type) {
+            case YEAR:
+                if (counts[t] <= 2 && pos - start == 2) {
+                    // same rule as SimpleDateFormat. a two digit year equal to that of the century start
+                    // also depends on the rest of the date, so it's left to the DateFormat.
+                    //
+                    int ambiguousTwoDigitYear = centuryStartYear % 100;
+                    if (n == ambiguousTwoDigitYear) {
+                        return NO_MATCH;
+                    }
+                    n += (centuryStartYear / 100) * 100 + (n < ambiguousTwoDigitYear ? 100 : 0);
+                }
+                year = n;
+                break;
+            case MONTH:
+                if (n < 1 || n > 12) {
+                    return NO_MATCH;
+                }
+                month = n - 1;
+                break;
+            case DAY:
+                if (n < 1 || n > 31) {
+                    return NO_MATCH;
+                }
+                day = n;
+                break;
+            case HOUR_OF_DAY:
+                if (n > 23) {
+                    return NO_MATCH;
+                }
+                hour = n;
+                break;
+            case HOUR:
+                if (n < 1 || n > 12) {
+                    return NO_MATCH;
+                }
+                hour = (n == 12) ? 0 : n;
+                break;
+            case MINUTE:
+                if (n > 59) {
+                    return NO_MATCH;
+                }
+                minute = n;
+                break;
+            case SECOND:
+                if (n > 59) {
+                    return NO_MATCH;
+                }
+                second = n;
+                break;
+            case MILLISECOND:
+                if (n > 999) {
+                    return NO_MATCH;
+                }
+                millis = n;
+                break;
+            default:
+                return NO_MATCH;
+            }
+        }
+
+        if (pos != len || year < MIN_YEAR || month < 0 || day < 0 || day > daysInMonth(year, month)) {
+            return NO_MATCH;
+        }
+
+        calendar.clear();
+        calendar.set(year, month, day, hour + pm * 12, minute, second);
+        calendar.set(Calendar.MILLISECOND, millis);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Finds the longest of the strings that matches (ignoring case) the input at pos, like the
+     * DateFormat does for month names and AM/PM markers. Returns the position following the match
+     * or -1 if there is no match.
+     */
+    private int matchLongest(String value, int pos, String[] strings) {
+        int best = -1;
+        int bestLength = 0;
+
+        for (int i = 0; i < strings.length; i++) {
+            int length = strings[i].length();
+            if (length > bestLength && value.regionMatches(true, pos, strings[i], 0, length)) {
+                best = i;
+                bestLength = length;
+            }
+        }
+
+        if (best < 0) {
+            return -1;
+        }
+
+        matchedIndex = best;
+        return pos + bestLength;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 1 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month];
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -41,6 +41,22 @@ package com.tibco.ps.utils.text;
 
 public class FormattingUtil {
 
+	// each thread reuses one DigitFormatter (and its char arrays) across calls.
+	//
+	private static final ThreadLocal<DigitFormatter> digitFormatter = new ThreadLocal<DigitFormatter>() {
+		@Override
+		protected DigitFormatter initialValue() {
+			return new DigitFormatter() ;
+		}
+	};
+
+	/**
+	 * Returns the calling thread's DigitFormatter.
+	 */
+	public static DigitFormatter getDigitFormatter() {
+		return digitFormatter.get() ;
+	}
+
 	public static String cleansePhoneNumber(String s) throws IllegalArgumentException {
 		return cleanseNumber(s,10) ;
 	}
@@ -113,11 +129,8 @@ public class FormattingUtil {
 		return formatted ;
 	}
 	private static String cleanseNumber(String s,int reqLength) {
-		if ( s == null || s.length() < reqLength ) {
-			throw new IllegalArgumentException("[" + s + "]") ;
-		}
-		String cleansed = s.replaceAll("\\D", "");     
-		if ( cleansed.length() != reqLength ) {
+		String cleansed = getDigitFormatter().cleanse(s, reqLength) ;
+		if ( cleansed == null ) {
 			throw new IllegalArgumentException("[" + s + "]") ;
 		}
 		return cleansed ;
@@ -0,0 +1,228 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+Description:
+  Table driven hexadecimal encoder/decoder used by HexToRaw, RawToHex, HexToRawFile and RawToHexFile.
+
+  Encoding looks up both hex digits of a byte with a single index into a 512 entry table and decoding
+  looks up each digit in a 128 entry table, checking both digits of a byte with one comparison, so
+  there are no per digit switch statements or branches on the digit value.
+
+  The streaming methods convert a stream in CHUNK_SIZE byte chunks using two buffers allocated once
+  per call, so values of any size can be converted with constant memory.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  IllegalArgumentException - Thrown when a value to decode contains a character that isn't a hex digit.
+
+*/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+public class HexCodec {
+
+    // number of bytes converted per chunk by the streaming methods.
+    //
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // ENCODE[2 * b] and ENCODE[2 * b + 1] are the two hex digits of byte b.
+    //
+    private static final char[] ENCODE = new char[512];
+
+    // the value of a hex digit, or -1 for any other character below 128.
+    //
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            ENCODE[2 * b] = DIGITS[b >>> 4];
+            ENCODE[2 * b + 1] = DIGITS[b & 0xF];
+        }
+
+        for (int c = 0; c < DECODE.length; c++) {
+            DECODE[c] = -1;
+        }
+        for (int i = 0; i < 10; i++) {
+            DECODE['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DECODE['A' + i] = (byte) (10 + i);
+            DECODE['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {}
+
+    /**
+     * Returns the upper case hex digits of a byte array.
+     */
+    public static String encode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        encode(bytes, 0, bytes.length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the hex digits of len bytes of src into dst. Returns the number of chars written.
+     */
+    public static int encode(byte[] src, int off, int len, char[] dst, int dstOff) {
+        int j = dstOff;
+        int end = off + len;
+
+        for (int i = off; i < end; i++) {
+            int k = (src[i] & 0xFF) << 1;
+            dst[j++] = ENCODE[k];
+            dst[j++] = ENCODE[k + 1];
+        }
+
+        return j - dstOff;
+    }
+
+    /**
+     * Decodes a string of hex digits. An odd number of digits is treated as if it had a leading 0.
+     */
+    public static byte[] decode(String hex) {
+        int len = hex.length();
+        byte[] bytes = new byte[(len + 1) / 2];
+        int i = 0;
+        int j = 0;
+
+        if (len % 2 != 0) {
+            bytes[j++] = (byte) pair('0', hex.charAt(i++));
+        }
+
+        while (i < len) {
+            bytes[j++] = (byte) pair(hex.charAt(i), hex.charAt(i + 1));
+            i += 2;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Reads bytes from in until it's exhausted and writes their hex digits to out. Returns the number
+     * of chars written. Neither stream is closed.
+     */
+    public static long encode(InputStream in, Writer out) throws IOException {
+        byte[] bytes = new byte[CHUNK_SIZE];
+        char[] chars = new char[CHUNK_SIZE * 2];
+        long total = 0;
+        int n;
+
+        while ((n = read(in, bytes)) > 0) {
+            int len = encode(bytes, 0, n, chars, 0);
+            out.write(chars, 0, len);
+            total += len;
+        }
+
+        return total;
+    }
+
+    /**
+     * Reads hex digits from in until it's exhausted and writes the decoded bytes to out. Whitespace
+     * (e.g. line breaks in a hex dump) is skipped. Returns the number of bytes written. Neither stream
+     * is closed.
+     */
+    public static long decode(Reader in, OutputStream out) throws IOException {
+        char[] chars = new char[CHUNK_SIZE * 2];
+        byte[] bytes = new byte[CHUNK_SIZE];
+        long total = 0;
+        int hi = -1;
+        int n;
+
+        while ((n = in.read(chars, 0, chars.length)) >= 0) {
+            int len = 0;
+            int i = 0;
+
+            while (i < n) {
+                char c = chars[i];
+                if (isWhitespace(c)) {
+                    i++;
+                } else if (hi >= 0) {
+                    // the second digit of a byte split by whitespace or a chunk boundary.
+                    //
+                    bytes[len++] = (byte) ((hi << 4) | pair('0', c));
+                    hi = -1;
+                    i++;
+                } else if (i + 1 < n && !isWhitespace(chars[i + 1])) {
+                    bytes[len++] = (byte) pair(c, chars[i + 1]);
+                    i += 2;
+                } else {
+                    hi = pair('0', c);
+                    i++;
+                }
+            }
+
+            out.write(bytes, 0, len);
+            total += len;
+        }
+
+        if (hi >= 0) {
+            throw new IllegalArgumentException("Hex value has an odd number of digits");
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the byte value of two hex digits (hi may be '0' to decode a single digit.)
+     */
+    private static int pair(char hi, char lo) {
+        int h = (hi < 128) ? DECODE[hi] : -1;
+        int l = (lo < 128) ? DECODE[lo] : -1;
+        if ((h | l) < 0) {
+            throw new IllegalArgumentException("Hex digits must be 0-9 and A-F or a-f");
+        }
+        return (h << 4) | l;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Fills as much of the buffer as the stream allows. Returns the number of bytes read, 0 at the end of the stream.
+     */
+    private static int read(InputStream in, byte[] buffer) throws IOException {
+        int len = 0;
+        int n;
+
+        while (len < buffer.length && (n = in.read(buffer, len, buffer.length - len)) >= 0) {
+            len += n;
+        }
+
+        return len;
+    }
+}
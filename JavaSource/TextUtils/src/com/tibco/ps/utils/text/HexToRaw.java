@@ -105,138 +105,17 @@ public class HexToRaw implements CustomProcedure {
 		log(LOG_DEBUG, "HexToRaw.invoke called");
 
 		String hexVal = (String)inputValues[0] ;
-		if ( hexVal.length() % 2 != 0 ) {
-			hexVal = "0".concat(hexVal) ;
-		}
-		char[] digits = hexVal.toCharArray();
-
-		b = new byte[digits.length / 2];
-
-		int i = 0;
-		while (i < digits.length) {
-			int val = 0;
-			switch (digits[i++]) {
-			case '0':
-				val += 0;
-				break;
-			case '1':
-				val += 1;
-				break;
-			case '2':
-				val += 2;
-				break;
-			case '3':
-				val += 3;
-				break;
-			case '4':
-				val += 4;
-				break;
-			case '5':
-				val += 5;
-				break;
-			case '6':
-				val += 6;
-				break;
-			case '7':
-				val += 7;
-				break;
-			case '8':
-				val += 8;
-				break;
-			case '9':
-				val += 9;
-				break;
-			case 'a':
-			case 'A':
-				val += 0xA;
-				break;
-			case 'b':
-			case 'B':
-				val += 0xB;
-				break;
-			case 'c':
-			case 'C':
-				val += 0xC;
-				break;
-			case 'd':
-			case 'D':
-				val += 0xD;
-				break;
-			case 'e':
-			case 'E':
-				val += 0xE;
-				break;
-			case 'f':
-			case 'F':
-				val += 0xF;
-				break;
-			default:
-				throw new CustomProcedureException(
-						"Hex digits must be 0-9 and A-F or a-f");
-			}
-			val = val << 4;
-			switch (digits[i++]) {
-			case '0':
-				val += 0;
-				break;
-			case '1':
-				val += 1;
-				break;
-			case '2':
-				val += 2;
-				break;
-			case '3':
-				val += 3;
-				break;
-			case '4':
-				val += 4;
-				break;
-			case '5':
-				val += 5;
-				break;
-			case '6':
-				val += 6;
-				break;
-			case '7':
-				val += 7;
-				break;
-			case '8':
-				val += 8;
-				break;
-			case '9':
-				val += 9;
-				break;
-			case 'a':
-			case 'A':
-				val += 0xA;
-				break;
-			case 'b':
-			case 'B':
-				val += 0xB;
-				break;
-			case 'c':
-			case 'C':
-				val += 0xC;
-				break;
-			case 'd':
-			case 'D':
-				val += 0xD;
-				break;
-			case 'e':
-			case 'E':
-				val += 0xE;
-				break;
-			case 'f':
-			case 'F':
-				val += 0xF;
-				break;
-			default:
-				throw new CustomProcedureException(
-						"Hex digits must be 0-9 and A-F or a-f");
-			}
-			b[i / 2 - 1] = (byte) val;
+		if ( hexVal == null ) {
+			b = null ;
+			return ;
 		}
 
+		try {
+			b = HexCodec.decode(hexVal) ;
+		}
+		catch ( IllegalArgumentException iae ) {
+			throw new CustomProcedureException(iae.getMessage()) ;
+		}
 	}
 
 	public Object[] getOutputValues() {
@@ -0,0 +1,167 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+	Description:
+	  Streaming form of HexToRaw. Decodes a hex string into a binary file without holding the string
+	  (or the decoded bytes) in memory: the input is read in chunks of 2 * HexCodec.CHUNK_SIZE characters
+	  and each chunk is decoded and written before the next one is read.
+
+	  The hex string is either a CLOB (read in chunks with Clob.getSubString()) or the contents of a
+	  file on the CIS server. Whitespace (e.g. the line breaks of a hex dump) is skipped. Unlike HexToRaw
+	  an odd number of hex digits is an error, as the length of the input isn't known in advance.
+
+
+	Inputs:
+	  hexVal         - The CLOB of hex digits to decode. Ignored if inputFilePath is provided.
+	  inputFilePath  - The path of a file on the CIS server containing the hex digits.
+	  outputFilePath - The path of the file to write the decoded bytes to. An existing file is replaced.
+
+
+	Outputs:
+	  bytesWritten   - The number of bytes written.
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when neither hexVal nor inputFilePath is provided, no outputFilePath
+	                             is provided, the input contains characters other than hex digits and
+	                             whitespace or an odd number of hex digits, or a file can't be read or written.
+
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class HexToRawFile
+    extends TextUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "HexToRawFile";
+        logger = Logger.getLogger(HexToRawFile.class.getName());
+    }
+
+    private Long outValue = null;
+
+    public HexToRawFile() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("hexVal",         Types.CLOB,    DIRECTION_IN),
+            new ParameterInfo("inputFilePath",  Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("outputFilePath", Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("bytesWritten",   Types.BIGINT,  DIRECTION_OUT)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+            logger.debug("Invoked with inputFilePath  : " + (null==inputValues[1]?"[null]":inputValues[1].toString()));
+            logger.debug("             outputFilePath : " + (null==inputValues[2]?"[null]":inputValues[2].toString()));
+        }
+
+        Clob hexVal = (Clob) inputValues[0];
+        String inputFilePath = (String) inputValues[1];
+        String outputFilePath = (String) inputValues[2];
+
+        if (hexVal == null && inputFilePath == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter hexVal or inputFilePath must be provided.");
+        }
+        if (outputFilePath == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter outputFilePath must be provided.");
+        }
+
+        Reader in = null;
+        OutputStream out = null;
+
+        try {
+            in = (inputFilePath != null)
+                ? new InputStreamReader(new FileInputStream(inputFilePath), "US-ASCII")
+                : new ClobReader(hexVal, HexCodec.CHUNK_SIZE * 2);
+            out = new BufferedOutputStream(new FileOutputStream(outputFilePath), HexCodec.CHUNK_SIZE);
+
+            outValue = Long.valueOf(HexCodec.decode(in, out));
+            out.close();
+            out = null;
+        }
+        catch (IllegalArgumentException iae) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": " + iae.getMessage());
+        }
+        catch (IOException ioe) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": " + ioe.toString());
+        }
+        finally {
+            close(in);
+            close(out);
+        }
+
+        if (logger.isDebug()) {
+            logger.debug(className + ": wrote " + outValue + " bytes to " + outputFilePath);
+        }
+    }
+
+    private static void close(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException ignored) {
+                ;
+            }
+        }
+    }
+
+    public Object[] getOutputValues() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outValue };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Decodes the hex digits of a CLOB or a file into a binary file.";
+    }
+}
@@ -47,7 +47,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.NumberFormat;
 
 public class LocalCurrencyFormatter
@@ -96,23 +95,7 @@ public class LocalCurrencyFormatter
             return;  // Nothing to do, outValue will be returned as null;
         }
         
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        NumberFormat nf = NumberFormat.getCurrencyInstance(locale);
-
-        if (null != fracLength) {
-            nf.setMaximumFractionDigits(fracLength.intValue());
-            nf.setMinimumFractionDigits(fracLength.intValue());
-        }
+        NumberFormat nf = LocalFormatFactory.getCurrencyInstance(iso639LangCode, iso3166CountryCode, fracLength);
 
         outValue = nf.format(value);
     }
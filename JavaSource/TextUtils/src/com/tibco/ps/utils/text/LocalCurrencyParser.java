@@ -45,7 +45,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.NumberFormat;
 import java.text.ParseException;
 
@@ -92,18 +91,7 @@ public class LocalCurrencyParser
             return;  // Nothing to do, outValue will be returned as null;
         }
         
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        NumberFormat nf = NumberFormat.getCurrencyInstance(locale);
+        NumberFormat nf = LocalFormatFactory.getCurrencyInstance(iso639LangCode, iso3166CountryCode, null);
 
         try {
             outValue = new Double(nf.parse(value).doubleValue());
@@ -47,7 +47,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.DateFormat;
 
 public class LocalDateFormatter
@@ -112,18 +111,7 @@ public class LocalDateFormatter
         else
             throw new CustomProcedureException("LocalDateFormatter:Invalid style specified, must be FULL|LONG|MEDIUM|SHORT");
 
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        DateFormat df = DateFormat.getDateInstance(style,locale);
+        DateFormat df = LocalFormatFactory.getDateInstance(style, iso639LangCode, iso3166CountryCode);
 
         outValue = df.format(value);
 
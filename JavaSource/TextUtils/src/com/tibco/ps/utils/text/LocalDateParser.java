@@ -47,7 +47,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.DateFormat;
 import java.text.ParseException;
 
@@ -114,18 +113,7 @@ public class LocalDateParser
         else
             throw new CustomProcedureException("LocalDateParser:Invalid style specified, must be FULL|LONG|MEDIUM|SHORT");
 
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        DateFormat df = DateFormat.getDateInstance(style,locale);
+        DateFormat df = LocalFormatFactory.getDateInstance(style, iso639LangCode, iso3166CountryCode);
 
         try {
             outValue = new Date(df.parse(value).getTime());
@@ -0,0 +1,194 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+Description:
+  This utility class hands out the DateFormat and NumberFormat instances used by the Local*Formatter
+  and Local*Parser CJP's. DateFormat.get*Instance() and NumberFormat.get*Instance() look up and
+  clone the locale's data on every call, which is expensive when a CJP is applied to every row of
+  a result set, so previously created formats are reused.
+
+  DateFormat and NumberFormat are not thread-safe, so each thread has its own cache of formats
+  (a RegexPatternCache, so that the least recently used format is dropped once MAX_ENTRIES formats
+  are cached.) A format is only ever used by the thread that obtained it and must not be modified
+  by the caller (the fraction digits of a number format are part of its key instead.)
+
+  Formats are keyed by (kind, style(s), language, country, fraction digits.)
+
+  The FastNumberParser and FastTimestampParser used by LocalNumberParser and LocalTimestampParser
+  are cached the same way (under their own kinds) together with the format they wrap.
+
+Inputs:
+  N/A
+
+Outputs:
+  N/A
+
+Exceptions:
+  None
+
+*/
+
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+
+public class LocalFormatFactory {
+
+    // establish the max number of formats cached by each thread
+    //
+    protected static final int MAX_ENTRIES = 64;
+
+    // format kinds
+    //
+    protected static final char DATE = 'D';
+    protected static final char TIME = 'T';
+    protected static final char DATE_TIME = 'S';
+    protected static final char NUMBER = 'N';
+    protected static final char CURRENCY = 'C';
+    protected static final char NUMBER_PARSER = 'n';
+    protected static final char DATE_TIME_PARSER = 's';
+
+    // each thread gets its own LRU map of formats so no synchronization is needed to use them.
+    //
+    private static final ThreadLocal<Map<String, Object>> formatCache = new ThreadLocal<Map<String, Object>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Map<String, Object> initialValue() {
+            return new RegexPatternCache(MAX_ENTRIES, 0.75f, true);
+        }
+    };
+
+    /**
+     * Returns the locale for an ISO 639 language code and an optional ISO 3166 country code, or the
+     * default locale if the language code is NULL.
+     */
+    protected static Locale getLocale(String iso639LangCode, String iso3166CountryCode) {
+        if (iso639LangCode == null) {
+            return Locale.getDefault();
+        }
+        if (iso3166CountryCode == null) {
+            return new Locale(iso639LangCode);
+        }
+        return new Locale(iso639LangCode, iso3166CountryCode);
+    }
+
+    protected static DateFormat getDateInstance(int style, String iso639LangCode, String iso3166CountryCode) {
+        return (DateFormat) getFormat(DATE, style, -1, iso639LangCode, iso3166CountryCode, -1);
+    }
+
+    protected static DateFormat getTimeInstance(int style, String iso639LangCode, String iso3166CountryCode) {
+        return (DateFormat) getFormat(TIME, -1, style, iso639LangCode, iso3166CountryCode, -1);
+    }
+
+    protected static DateFormat getDateTimeInstance(int dateStyle, int timeStyle, String iso639LangCode, String iso3166CountryCode) {
+        return (DateFormat) getFormat(DATE_TIME, dateStyle, timeStyle, iso639LangCode, iso3166CountryCode, -1);
+    }
+
+    /**
+     * Returns a number format. fractionDigits fixes the number of fraction digits (NULL uses the locale's default, a negative value means 0.)
+     */
+    protected static NumberFormat getNumberInstance(String iso639LangCode, String iso3166CountryCode, Integer fractionDigits) {
+        return (NumberFormat) getFormat(NUMBER, -1, -1, iso639LangCode, iso3166CountryCode, fractionDigits(fractionDigits));
+    }
+
+    /**
+     * Returns a currency format. fractionDigits fixes the number of fraction digits (NULL uses the currency's default, a negative value means 0.)
+     */
+    protected static NumberFormat getCurrencyInstance(String iso639LangCode, String iso3166CountryCode, Integer fractionDigits) {
+        return (NumberFormat) getFormat(CURRENCY, -1, -1, iso639LangCode, iso3166CountryCode, fractionDigits(fractionDigits));
+    }
+
+    protected static FastNumberParser getNumberParser(String iso639LangCode, String iso3166CountryCode) {
+        return (FastNumberParser) getFormat(NUMBER_PARSER, -1, -1, iso639LangCode, iso3166CountryCode, -1);
+    }
+
+    protected static FastTimestampParser getDateTimeParser(int dateStyle, int timeStyle, String iso639LangCode, String iso3166CountryCode) {
+        return (FastTimestampParser) getFormat(DATE_TIME_PARSER, dateStyle, timeStyle, iso639LangCode, iso3166CountryCode, -1);
+    }
+
+    // -1 (the locale's default) is only used for NULL, a negative number of digits means 0 digits as it
+    // does for NumberFormat.setMaximumFractionDigits().
+    //
+    private static int fractionDigits(Integer fractionDigits) {
+        return (fractionDigits == null) ? -1 : Math.max(0, fractionDigits.intValue());
+    }
+
+    private static Object getFormat(char kind, int dateStyle, int timeStyle, String iso639LangCode, String iso3166CountryCode, int fractionDigits) {
+        // a NULL language means the default locale, which is part of the key in case it's changed.
+        //
+        String lang = iso639LangCode;
+        String country = iso3166CountryCode;
+        if (lang == null) {
+            Locale def = Locale.getDefault();
+            lang = def.getLanguage();
+            country = def.getCountry();
+        }
+
+        StringBuilder sb = new StringBuilder(24);
+        sb.append(kind).append(dateStyle).append(':').append(timeStyle).append(':')
+          .append(fractionDigits).append(':').append(lang).append('_');
+        if (country != null) {
+            sb.append(country);
+        }
+        String key = sb.toString();
+
+        Map<String, Object> cache = formatCache.get();
+        Object f = cache.get(key);
+
+        if (f == null) {
+            switch (kind) {
+            case NUMBER_PARSER:
+                f = new FastNumberParser(getNumberInstance(iso639LangCode, iso3166CountryCode, null));
+                break;
+            case DATE_TIME_PARSER:
+                f = new FastTimestampParser(getDateTimeInstance(dateStyle, timeStyle, iso639LangCode, iso3166CountryCode));
+                break;
+            default:
+                f = createFormat(kind, dateStyle, timeStyle, getLocale(iso639LangCode, iso3166CountryCode), fractionDigits);
+            }
+            cache.put(key, f);
+        }
+
+        return f;
+    }
+
+    private static Format createFormat(char kind, int dateStyle, int timeStyle, Locale locale, int fractionDigits) {
+        switch (kind) {
+        case DATE:
+            return DateFormat.getDateInstance(dateStyle, locale);
+        case TIME:
+            return DateFormat.getTimeInstance(timeStyle, locale);
+        case DATE_TIME:
+            return DateFormat.getDateTimeInstance(dateStyle, timeStyle, locale);
+        default:
+            NumberFormat nf = (kind == CURRENCY) ? NumberFormat.getCurrencyInstance(locale) : NumberFormat.getNumberInstance(locale);
+            if (fractionDigits >= 0) {
+                nf.setMaximumFractionDigits(fractionDigits);
+                nf.setMinimumFractionDigits(fractionDigits);
+            }
+            return nf;
+        }
+    }
+}
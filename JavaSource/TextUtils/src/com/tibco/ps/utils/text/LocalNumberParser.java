@@ -46,8 +46,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
-import java.text.NumberFormat;
 import java.text.ParseException;
 
 public class LocalNumberParser
@@ -93,21 +91,10 @@ public class LocalNumberParser
             return;  // Nothing to do, outValue will be returned as null;
         }
         
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        NumberFormat nf = NumberFormat.getNumberInstance(locale);
+        FastNumberParser np = LocalFormatFactory.getNumberParser(iso639LangCode, iso3166CountryCode);
 
         try {
-            outValue = new Double(nf.parse(value).doubleValue());
+            outValue = new Double(np.parse(value));
         }
         catch (ParseException pe) {
             throw new CustomProcedureException("Error while parsing string " + value);
@@ -47,7 +47,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.DateFormat;
 
 public class LocalTimeFormatter
@@ -113,18 +112,7 @@ public class LocalTimeFormatter
         else
             throw new CustomProcedureException("LocalTimeFormatter:Invalid timeStyle specified, must be FULL|LONG|MEDIUM|SHORT");
 
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        DateFormat df = DateFormat.getTimeInstance(timeStyle,locale);
+        DateFormat df = LocalFormatFactory.getTimeInstance(timeStyle, iso639LangCode, iso3166CountryCode);
 
         outValue = df.format(value);
 
@@ -48,7 +48,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.DateFormat;
 
 public class LocalTimestampFormatter
@@ -134,18 +133,7 @@ public class LocalTimestampFormatter
         else
             throw new CustomProcedureException("LocalTimestampFormatter:Invalid timeStyle specified, must be FULL|LONG|MEDIUM|SHORT");
 
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        DateFormat df = DateFormat.getDateTimeInstance(dateStyle,timeStyle,locale);
+        DateFormat df = LocalFormatFactory.getDateTimeInstance(dateStyle, timeStyle, iso639LangCode, iso3166CountryCode);
 
         outValue = df.format(value);
 
@@ -48,7 +48,6 @@ import com.compositesw.extension.*;
 import com.compositesw.common.logging.Logger;
 
 import java.sql.*;
-import java.util.Locale;
 import java.text.DateFormat;
 import java.text.ParseException;
 
@@ -135,21 +134,10 @@ public class LocalTimestampParser
         else
             throw new CustomProcedureException("LocalTimestampParser:Invalid timeStyle specified, must be FULL|LONG|MEDIUM|SHORT");
 
-        Locale locale = Locale.getDefault();
-
-        if (iso639LangCode != null) {
-           if (iso3166CountryCode != null) {
-               locale = new Locale(iso639LangCode, iso3166CountryCode);
-           }
-           else {
-               locale = new Locale(iso639LangCode);
-           }
-        }
-
-        DateFormat df = DateFormat.getDateTimeInstance(dateStyle,timeStyle,locale);
+        FastTimestampParser tp = LocalFormatFactory.getDateTimeParser(dateStyle, timeStyle, iso639LangCode, iso3166CountryCode);
 
         try {
-            outValue = new Timestamp(df.parse(value).getTime());
+            outValue = new Timestamp(tp.parse(value));
         }
         catch (ParseException pe) {
             throw new CustomProcedureException("Error parsing time " + value);
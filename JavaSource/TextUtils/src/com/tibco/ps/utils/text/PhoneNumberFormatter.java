@@ -90,15 +90,17 @@ public class PhoneNumberFormatter
         String inOutFormat = (String)inputValues[1] ;
         String out = null ;
         try {
-        	String numPhone = FormattingUtil.cleansePhoneNumber(in) ;
-        	if (logger.isDebug()) {
-        		logger.debug("PhoneNumberFormatter: cleansed phone - " + numPhone) ;
-        	}
-        	out = FormattingUtil.formatPhoneNumber(inOutFormat, numPhone) ;
+        	out = FormattingUtil.getDigitFormatter().formatPhoneNumber(inOutFormat, in) ;
         }
         catch(IllegalArgumentException iae) {
             throw new CustomProcedureException("PhoneNumberFormatter: Invalid phone number", iae) ;
         }
+        if ( out == null ) {
+            throw new CustomProcedureException("PhoneNumberFormatter: Invalid phone number", new IllegalArgumentException("[" + in + "]")) ;
+        }
+        if (logger.isDebug()) {
+            logger.debug("PhoneNumberFormatter: formatted phone - " + out) ;
+        }
         outValue = out ;
     }
 
@@ -74,7 +74,7 @@ import com.compositesw.extension.ParameterInfo;
 public class RawToHex implements CustomProcedure {
 
 	private ExecutionEnvironment qenv;
-	private char[] c;
+	private String c;
 
 	public RawToHex() {
 	}
@@ -105,120 +105,11 @@ public class RawToHex implements CustomProcedure {
 		log(LOG_DEBUG, "RawToHex.invoke called");
 
 		byte[] rawVal = (byte[]) inputValues[0];
-		c = new char[rawVal.length * 2];
-
-		int i = 0;
-		for (byte b : rawVal) {
-			switch ((b >>> 4) & 0xF) {
-			case 0:
-				c[i++] = '0';
-				break;
-			case 1:
-				c[i++] = '1';
-				break;
-			case 2:
-				c[i++] = '2';
-				break;
-			case 3:
-				c[i++] = '3';
-				break;
-			case 4:
-				c[i++] = '4';
-				break;
-			case 5:
-				c[i++] = '5';
-				break;
-			case 6:
-				c[i++] = '6';
-				break;
-			case 7:
-				c[i++] = '7';
-				break;
-			case 8:
-				c[i++] = '8';
-				break;
-			case 9:
-				c[i++] = '9';
-				break;
-			case 0xA:
-				c[i++] = 'A';
-				break;
-			case 0xB:
-				c[i++] = 'B';
-				break;
-			case 0xC:
-				c[i++] = 'C';
-				break;
-			case 0xD:
-				c[i++] = 'D';
-				break;
-			case 0xE:
-				c[i++] = 'E';
-				break;
-			case 0xF:
-				c[i++] = 'F';
-				break;
-//			default:
-//				c[i++] = '?' ;
-			}
-			switch (b & 0xF) {
-			case 0:
-				c[i++] = '0';
-				break;
-			case 1:
-				c[i++] = '1';
-				break;
-			case 2:
-				c[i++] = '2';
-				break;
-			case 3:
-				c[i++] = '3';
-				break;
-			case 4:
-				c[i++] = '4';
-				break;
-			case 5:
-				c[i++] = '5';
-				break;
-			case 6:
-				c[i++] = '6';
-				break;
-			case 7:
-				c[i++] = '7';
-				break;
-			case 8:
-				c[i++] = '8';
-				break;
-			case 9:
-				c[i++] = '9';
-				break;
-			case 0xA:
-				c[i++] = 'A';
-				break;
-			case 0xB:
-				c[i++] = 'B';
-				break;
-			case 0xC:
-				c[i++] = 'C';
-				break;
-			case 0xD:
-				c[i++] = 'D';
-				break;
-			case 0xE:
-				c[i++] = 'E';
-				break;
-			case 0xF:
-				c[i++] = 'F';
-				break;
-//			default:
-//				c[i++] = '?' ;
-			}
-		}
-
+		c = ( rawVal == null ) ? null : HexCodec.encode(rawVal);
 	}
 
 	public Object[] getOutputValues() {
-		return new Object[] { new String(c) };
+		return new Object[] { c };
 	}
 
 	public int getNumAffectedRows() {
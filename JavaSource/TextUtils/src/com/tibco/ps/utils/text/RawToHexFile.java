@@ -0,0 +1,160 @@
+package com.tibco.ps.utils.text;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+
+/*
+	Description:
+	  Streaming form of RawToHex. Writes the upper case hex digits of a binary value to a file without
+	  holding the value (or its hex string) in memory: the input is read in HexCodec.CHUNK_SIZE byte
+	  chunks and each chunk is converted and written before the next one is read.
+
+	  The binary value is either a BLOB (read in chunks with Blob.getBytes()) or the contents of a file
+	  on the CIS server.
+
+
+	Inputs:
+	  rawVal         - The BLOB to convert. Ignored if inputFilePath is provided.
+	  inputFilePath  - The path of a file on the CIS server whose contents are converted.
+	  outputFilePath - The path of the file to write the hex digits to. An existing file is replaced.
+
+
+	Outputs:
+	  charsWritten   - The number of hex digits written (twice the number of bytes converted.)
+
+
+	Exceptions:
+	  CustomProcedureException - Thrown when neither rawVal nor inputFilePath is provided, no outputFilePath
+	                             is provided or the input can't be read or the output can't be written.
+
+*/
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class RawToHexFile
+    extends TextUtilTemplate
+    implements CustomProcedure
+{
+    static {
+        className = "RawToHexFile";
+        logger = Logger.getLogger(RawToHexFile.class.getName());
+    }
+
+    private Long outValue = null;
+
+    public RawToHexFile() {}
+
+    public ParameterInfo[] getParameterInfo() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getParameterInfo called");
+        }
+
+        return new ParameterInfo[] {
+            new ParameterInfo("rawVal",         Types.BLOB,    DIRECTION_IN),
+            new ParameterInfo("inputFilePath",  Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("outputFilePath", Types.VARCHAR, DIRECTION_IN),
+            new ParameterInfo("charsWritten",   Types.BIGINT,  DIRECTION_OUT)
+        };
+    }
+
+    public void invoke(Object[] inputValues)
+        throws CustomProcedureException, SQLException {
+        if (logger.isDebug()) {
+            logger.debug(className + ".invoke called");
+            logger.debug("Invoked with inputFilePath  : " + (null==inputValues[1]?"[null]":inputValues[1].toString()));
+            logger.debug("             outputFilePath : " + (null==inputValues[2]?"[null]":inputValues[2].toString()));
+        }
+
+        Blob rawVal = (Blob) inputValues[0];
+        String inputFilePath = (String) inputValues[1];
+        String outputFilePath = (String) inputValues[2];
+
+        if (rawVal == null && inputFilePath == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter rawVal or inputFilePath must be provided.");
+        }
+        if (outputFilePath == null) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameter outputFilePath must be provided.");
+        }
+
+        InputStream in = null;
+        Writer out = null;
+
+        try {
+            in = (inputFilePath != null) ? new FileInputStream(inputFilePath) : new BlobInputStream(rawVal, HexCodec.CHUNK_SIZE);
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFilePath), "US-ASCII"), HexCodec.CHUNK_SIZE * 2);
+
+            outValue = Long.valueOf(HexCodec.encode(in, out));
+            out.close();
+            out = null;
+        }
+        catch (IOException ioe) {
+            throw new CustomProcedureException("Error in CJP " + getName() + ": " + ioe.toString());
+        }
+        finally {
+            close(in);
+            close(out);
+        }
+
+        if (logger.isDebug()) {
+            logger.debug(className + ": wrote " + outValue + " hex digits to " + outputFilePath);
+        }
+    }
+
+    private static void close(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException ignored) {
+                ;
+            }
+        }
+    }
+
+    public Object[] getOutputValues() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getOutputValues called");
+        }
+
+        return new Object[] { outValue };
+    }
+
+    public String getDescription() {
+        if (logger.isDebug()) {
+            logger.debug(className + ".getDescription called");
+        }
+        return "Writes the hex digits of a BLOB or a file to a file.";
+    }
+}
@@ -82,16 +82,12 @@ public class SSNumberFormatter
         	outValue = null ;
         	return ;
         }
-         String out = null ;
-        try {
-        	String num = FormattingUtil.cleanseSSN(in) ;
-        	if (logger.isDebug()) {
-        		logger.debug("SSNumberFormatter: cleansed SSN - " + num) ;
-        	}
-        	out = FormattingUtil.formatSSN(null, num) ;
+        String out = FormattingUtil.getDigitFormatter().formatSSN(in) ;
+        if ( out == null ) {
+            throw new CustomProcedureException("SSNumberFormatter: Invalid SSN", new IllegalArgumentException("[" + in + "]")) ;
         }
-        catch(IllegalArgumentException iae) {
-            throw new CustomProcedureException("SSNumberFormatter: Invalid SSN", iae) ;
+        if (logger.isDebug()) {
+            logger.debug("SSNumberFormatter: formatted SSN - " + out) ;
         }
         outValue = out ;
     }
@@ -0,0 +1,120 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+BlobInputStream:
+
+    Description:
+        An InputStream over a java.sql.Blob that reads the Blob in fixed size chunks with Blob.getBytes(). Used by
+        the XMLUtils CJPs that take an XML document as a BLOB (the same class as in EncodingUtils, which this
+        module doesn't depend on.)
+
+        Blob.getBinaryStream() isn't implemented by the CIS JDBC driver (see Blob2Varchar in TextUtils), and reading the
+        whole value with a single getBytes() call needs as much heap as the value itself. This stream only
+        ever holds one chunk of the Blob in memory.
+
+
+    Input:
+        N/A
+
+
+    Output:
+        N/A
+
+
+    Exceptions:
+        IOException - Thrown (wrapping the SQLException) when the Blob can't be read.
+
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+public class BlobInputStream extends InputStream {
+
+	private final Blob blob;
+	private final long length;
+	private final int chunkSize;
+
+	private long position = 0;   // number of bytes of the Blob read so far
+	private byte[] chunk = null;
+	private int chunkPos = 0;
+
+	public BlobInputStream(Blob blob, int chunkSize) throws SQLException {
+		this.blob = blob;
+		this.length = blob.length();
+		this.chunkSize = chunkSize;
+	}
+
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return chunk[chunkPos++] & 0xFF;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+
+		int n = Math.min(len, chunk.length - chunkPos);
+		System.arraycopy(chunk, chunkPos, b, off, n);
+		chunkPos += n;
+		return n;
+	}
+
+	public int available() {
+		return (chunk == null) ? 0 : chunk.length - chunkPos;
+	}
+
+	/**
+	 * Makes sure there are unread bytes in the current chunk. Returns false at the end of the Blob.
+	 */
+	private boolean fill() throws IOException {
+		if (chunk != null && chunkPos < chunk.length) {
+			return true;
+		}
+		if (position >= length) {
+			return false;
+		}
+
+		try {
+			chunk = blob.getBytes(position + 1, (int) Math.min(chunkSize, length - position));
+		} catch (SQLException e) {
+			throw new IOException("Unable to read BLOB at position " + (position + 1) + ": " + e.getMessage());
+		}
+
+		if (chunk.length == 0) {
+			return false;
+		}
+
+		chunkPos = 0;
+		position += chunk.length;
+		return true;
+	}
+}
@@ -22,8 +22,13 @@ package com.tibco.ps.utils.xml;
 
 /*
 	CSVFromXMLToFile:
-	  Function to parse an XML string and convert the result set to a CSV string.
+	  Function to parse an XML string (or file) and convert the result set to a CSV string.
 	  Write the result to a file.
+
+	  The XML is read with a streaming (StAX) parser and the rows are written through a single
+	  buffered writer as they are read, so memory use doesn't depend on the size of the document
+	  (see XMLRowStreamer.) To export a large document, pass its path as xml_file_path instead of
+	  passing its content as xml_string.
 	
 	  Note:  For best results, the XML string should be formatted with repeated rows 
 	  		 containing all expected columns in each row.   Deviation from this pattern may result
@@ -64,7 +69,7 @@ package com.tibco.ps.utils.xml;
 			
 	Inputs:
 	  xml_string          - The XML to parse through to create a CSV file
-	    values: Any valid XML string.
+	    values: Any valid XML string or NULL when xml_file_path is provided.
 	
 	  separator_character   - The character used to separate values.
 	    values: Any single character or NULL (defaults to ','.)
@@ -85,6 +90,20 @@ package com.tibco.ps.utils.xml;
 	  
 	  append - 0=do not append file, 1=append file.						Types.SMALLINT, DIRECTION_IN
 	
+	  xml_file_path - Full path to a file containing the XML to parse.	Types.VARCHAR, DIRECTION_IN
+	    values: NULL to parse xml_string. Either xml_string or xml_file_path must be provided.
+	
+	  row_xpath - Mapping mode: the XPath of the row elements.				Types.VARCHAR, DIRECTION_IN
+	    values: NULL to take the rows and columns from the leaf elements as described above, or a
+	            simple path of element names, either absolute or starting with // (e.g. /p1:Customer/row
+	            or //row.) Namespace prefixes are ignored.
+	
+	  column_xpaths - Mapping mode: the comma separated XPaths of the columns, relative to the row element.
+	    values: e.g. customerID, companyName, address/city, @type, concat(contactFirstName, ' ', contactLastName)
+	            Required with row_xpath. Names are local names (without namespace prefixes) and a column whose
+	            XPath selects nothing is empty. The XPaths are also the column headers. total_columns may be
+	            NULL in mapping mode; if it is provided it must match the number of column XPaths.
+	
 	Output:
 	  error  - 0=success, 1=error
 	    values: 0 or 1
@@ -110,19 +129,13 @@ import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringReader;
-import java.sql.ResultSet;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.List;
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
-import org.xml.sax.InputSource;
+
+import javax.xml.stream.XMLStreamException;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -130,7 +143,6 @@ import com.compositesw.extension.ParameterInfo;
 public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure {
   String loginfo = "Done.";
   int error = 0;
-  ResultSet rs = null;
 
   static {
 	className = "CSVFromXMLToFile";
@@ -138,7 +150,7 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
   }
 
   public String getDescription() {
-    return "This procedure takes in an XML string, parses it and converts the results to a CSV string and writes the result to a file.";
+    return "This procedure takes in an XML string or file, parses it and converts the results to a CSV string and writes the result to a file.";
   }
 
   public String getName() {
@@ -158,6 +170,9 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
       new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
       new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("row_xpath", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("column_xpaths", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
     };
   }
@@ -165,6 +180,8 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
   public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
     try {
       String xmlString = null;
+      String xmlFilePath = null;
+      XPathRowMapping mapping = null;
       String separator = ",";
       String qualifier = "\"";
       boolean createHeaders = false;
@@ -176,33 +193,32 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
       /*
        * VALIDATE Input parameters
        */
-  	  if (inputs[0] == null) {
-  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_string must be provided.");
+  	  if (inputs[0] == null && (inputs.length < 8 || inputs[7] == null)) {
+  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_string or xml_file_path must be provided.");
   	  }
-   	  if (inputs[4] == null) {
+   	  if (inputs[4] == null && (inputs.length < 9 || inputs[8] == null)) {
    		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter total_columns must be provided.");
    	  }
    	  if (inputs[5] == null) {
  		    throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter file_Path must be provided.");
       }
-/* -- not strictly needed with default value above and check for null below.
- 	    if (inputs[6] == null) {
- 		    throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter append must be provided.");
- 	    }
-*/
 
       /*
        * RETREIVE Input parameters
        */
-     // Get queryString from input
-      if (inputs[0] != null) {
+      // Get xmlFilePath from input (takes precedence over xmlString)
+      if (inputs.length > 7 && inputs[7] != null) {
+    	  xmlFilePath = inputs[7].toString().trim();
+      } 
+      // Get xmlString from input
+      else if (inputs[0] != null) {
     	  xmlString = ((String) inputs[0]).trim();
       } 
       // Get separator from input
       if (inputs[1] != null) {
     	  separator = (String) inputs[1];
       }
-      // Get createHeaders from input
+      // Get qualifier from input
       if (inputs[2] != null) {
     	  qualifier = ((String) inputs[2]).trim();
       }
@@ -224,6 +240,20 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
           append = (appendNum==1)?true:false;
       }
       
+      // Get the row and column XPaths from input (mapping mode)
+      if (inputs.length > 8 && inputs[8] != null) {
+    	  if (inputs[9] == null) {
+    		  throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter column_xpaths must be provided with row_xpath.");
+    	  }
+    	  mapping = XPathRowMapping.get(inputs[8].toString(), inputs[9].toString());
+    	  if (inputs[4] == null) {
+    		  totalColumns = mapping.getColumnCount();
+    	  } else if (((Integer) inputs[4]).intValue() != mapping.getColumnCount()) {
+    		  throw new IllegalArgumentException ("The number of column XPaths ["+mapping.getColumnCount()+"] does not match the expected total_columns ["+inputs[4]+"].");
+    	  }
+      }
+      
+      // -- the XML itself isn't logged, it may be very large
       loginfo += "DEBUG: \nARGS" +
            "\nSeparator Character: " + separator +
            "\nQualifier Character: " + qualifier +
@@ -231,7 +261,10 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
            "\nTotal Columns: " + totalColumns +
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
-           "\nXML String: " + xmlString + 
+           "\nXML File Path: " + xmlFilePath + 
+           "\nRow XPath: " + (mapping == null ? null : inputs[8]) + 
+           "\nColumn XPaths: " + (mapping == null ? null : inputs[9]) + 
+           "\nXML String Length: " + (xmlString == null ? 0 : xmlString.length()) + 
            "\n";
      
       /*
@@ -243,20 +276,11 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
       if (qualifier.length() > 1) {
     	  throw new IllegalArgumentException ("The qualifier character must be either null (defaults to '\"') or a single character like '\"'");
       }
-      if (separator == qualifier) {
+      if (separator.equals(qualifier)) {
     	  throw new IllegalArgumentException ("The separator and qualifier characters may not be the same: " + separator);
       }
 
-      // if "append" input is false, zero out the input file and change "append"
-      // to true so that all subsequent calls to createFileAscii DO append to the file.
-      // (otherwise all you get is a file with the last written line, i.e. "")
-      //
-      if (! append) {
-        createFileAscii (filePath, false, "");
-        append = true;
-      }
-
-      processXMLStringDelimited(xmlString, separator, qualifier, createHeaders, totalColumns, filePath, append);
+      processXMLDelimited(xmlString, xmlFilePath, mapping, separator, qualifier, createHeaders, totalColumns, filePath, append);
       
     } catch (Throwable t) {
       error = 1;
@@ -282,200 +306,113 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
 	 ****************************************************************/
   
 	/****************************************************************
-	 * processXMLStringDelimited - parse the XML string and write it to a CSV formatted file 
+	 * processXMLDelimited - stream the XML string or file and write it to a CSV formatted file 
+	 * 
+	 * The file is written the way it was when each line was written by a separate call: every
+	 * line (including the first) is preceded by a line separator and a blank line ends the file.
 	 * 
-	 * @param xmlString - The XML string to parse
+	 * @param xmlString - The XML string to parse (when xmlFilePath is null)
+	 * @param xmlFilePath - Full path to a file containing the XML to parse
+	 * @param mapping - The row and column XPaths (mapping mode) or null
 	 * @param separator - The character used to separate values.
 	 * @param qualifier - The character used to qualify values when they contain a separator character.
 	 * @param createHeaders - Indicates whether to create a column headers row as the first row of the output.
 	 * @param totalColumns - Total number of columns to produce.  This is a validation against the number of fields discovered in the XML.
 	 * @param outputFilePath - Full path to a file that is to be created.	
-	 * @param append - 0=do not append file, 1=append file.
+	 * @param append - false=do not append file, true=append file.
 	 * @throws CustomProcedureException 
-	 * @throws SQLException 
 	 ****************************************************************/
-	@SuppressWarnings("unchecked")
-	private void processXMLStringDelimited(String xmlString, String separator, String qualifier, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException, SQLException {
-	
-		Element rootElement = null;
-		try {
-			rootElement = getDocumentFromString(xmlString);
-        
-			if(rootElement != null){
-				
-				try {
-					List<Element> nodes = rootElement.getChildren();
-					StringBuffer sb = new StringBuffer();
-					
-					if (createHeaders) {
-						sb = processHeaderDelimited(nodes, sb, separator, qualifier, totalColumns, outputFilePath, append);
-						append = true;					
-					}
-	
-					int rowCount = 0;
-					sb = new StringBuffer();
-					sb = processChildNodesDelimited(nodes, sb, separator, qualifier, totalColumns, outputFilePath, append, rowCount);
-					if (sb.toString() != null) {
-						// Add a blank line for the last line in the file.
-						createFileAscii(outputFilePath, append, "");					
-					}
-		
-				} catch (Exception ex) {
-					throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-				}
-			}
-		} catch (SQLException ex) {
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}
-	}
+	private void processXMLDelimited(String xmlString, String xmlFilePath, XPathRowMapping mapping, final String separator, final String qualifier, final boolean createHeaders, final int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
 
-	@SuppressWarnings("unchecked")
-	private StringBuffer processHeaderDelimited(List<Element> childNodes, StringBuffer sb, String separator, String qualifier, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException{
-		
-		int elementCount = 0;
-		int rowCount = 0;
-		
-		for (Element element : childNodes) {
-			// Break out of the loop once the first row header is constructed
-			if (rowCount == 1) {
-				break;
-			}
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				if (elementCount > 0) {
-					sb.append (separator);
-				}
-				sb.append (element.getName());
+		InputStream in = null;
+		BufferedWriter out = null;
+		try {
+			in = (xmlFilePath == null) ? null : XMLRowStreamer.openFile(xmlFilePath);
+			out = new BufferedWriter(new FileWriter(outputFilePath, append), XMLRowStreamer.BUFFER_SIZE);
+			final BufferedWriter writer = out;
+			final StringBuilder sb = new StringBuilder();
 
-				elementCount++;
-				// Break out of the loop once the total number of columns is met from the current column list
-				if (elementCount == totalColumns) {
-					try {
-						createFileAscii(outputFilePath, append, sb.toString());
-					} catch (Exception ex) {
-						throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-					}
-				}
-				// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-				if (elementCount > totalColumns) {
-					throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is greater than the expected total elements ["+totalColumns+"].");
-				}
+			XMLRowStreamer streamer = (mapping == null) ? new XMLRowStreamer(totalColumns) : new XMLRowStreamer(mapping);
+			long rows = streamer.stream(
+				(in == null) ? XMLRowStreamer.createReader(xmlString) : XMLRowStreamer.createReader(in),
+				new XMLRowStreamer.RowHandler() {
+					boolean headerWritten = !createHeaders;
 
-			}else{
-				rowCount++;
-				sb = processHeaderDelimited(element.getChildren(), sb, separator, qualifier, totalColumns, outputFilePath, append);
-			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
-			}
-		}
-		return sb;
-	}
-	
-	@SuppressWarnings("unchecked")
-	private StringBuffer processChildNodesDelimited(List<Element> childNodes, StringBuffer sb, String separator, String qualifier, int totalColumns, String outputFilePath, boolean append, int rowCount) throws CustomProcedureException{
-		
-		sb = new StringBuffer();	
-		String resultTmp = "";
-		int elementCount = 0;
+					public void row(String[] names, String[] values, int count, int rowNumber) throws CustomProcedureException, IOException {
+						if (!headerWritten) {
+							checkColumnCount("Header", count, totalColumns);
+							sb.setLength(0);
+							for (int i = 0; i < count; i++) {
+								if (i > 0) {
+									sb.append(separator);
+								}
+								sb.append(names[i]);
+							}
+							writeLine(writer, sb);
+							headerWritten = true;
+						}
 
-		for (Element element : childNodes) {
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				if (elementCount > 0) {
-					sb.append (separator);
-				}
-				
-				resultTmp = element.getValue();
-				
-				if(resultTmp != null){
-			              
-					// If the string representation of the result contains a separator, then it needs to be qualified. Any existing
-					// qualifier characters in the result string need to be escaped (doubled). 
-					//
-					if (element.getValue().contains (separator)) {
-						resultTmp = resultTmp.replace (qualifier, qualifier + qualifier);
-						resultTmp = qualifier + resultTmp + qualifier;
-					}        
-					sb.append (resultTmp);
+						checkColumnCount("ROW["+rowNumber+"]", count, totalColumns);
+						sb.setLength(0);
+						for (int i = 0; i < count; i++) {
+							if (i > 0) {
+								sb.append(separator);
+							}
+							String resultTmp = values[i];
 
-					elementCount++;
-					// Write the row to the file once the number of elements extracted matches the total number of elements expected
-					if (elementCount == totalColumns) {
-						try {
-							createFileAscii(outputFilePath, append, sb.toString());
-						} catch (Exception ex) {
-							throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+							// If the string representation of the result contains a separator, then it needs to be qualified. Any existing
+							// qualifier characters in the result string need to be escaped (doubled). 
+							//
+							if (resultTmp.contains (separator)) {
+								resultTmp = resultTmp.replace (qualifier, qualifier + qualifier);
+								resultTmp = qualifier + resultTmp + qualifier;
+							}        
+							sb.append(resultTmp);
 						}
+						writeLine(writer, sb);
 					}
-					// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-					if (elementCount > totalColumns) {
-						throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
-					}
-				}
+				});
 
-			}else{
-				rowCount++;
-				sb = processChildNodesDelimited(element.getChildren(), sb, separator, qualifier, totalColumns, outputFilePath, append, rowCount);
-			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
+			// Add a blank line for the last line in the file.
+			out.newLine();
+			out.close();
+			out = null;
+
+			loginfo += "Wrote " + rows + " rows to file \"" + outputFilePath + "\"\n";
+		} catch (XMLStreamException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} catch (IOException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} finally {
+			XMLRowStreamer.closeQuietly(in);
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException ex) {
+					// -- already failing
+				}
 			}
 		}
-		return sb;
 	}
-	
+
 	/****************************************************************
 	 * COMMON METHODS
 	 ****************************************************************/
 
-	// -- returns root element of XML document
-	private Element getDocumentFromString(String xmlString) throws CustomProcedureException, SQLException  {
-		
-		Element retval=null;	
-		InputSource inStream = new InputSource();
-		inStream.setCharacterStream(new StringReader(xmlString));
-		Document document = null;
-		try {
-			document = (new SAXBuilder()).build(inStream);
-	        retval = document.getRootElement();
-		} catch(JDOMException e) {
-			throw new CustomProcedureException(e);
-		} catch (IOException e) {
-			throw new CustomProcedureException(e);
+	private static void checkColumnCount(String row, int elementCount, int totalColumns) throws CustomProcedureException {
+		// Throw an exception if the number of elements retrieved is not the total number of elements expected
+		if (elementCount > totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+elementCount+"] is greater than the expected total elements ["+totalColumns+"].");
+		}
+		if (elementCount < totalColumns) {
+			throw new CustomProcedureException(row+"::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
 		}
-		
-		return retval;
 	}
 
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-	throws CustomProcedureException, SQLException {
-    loginfo += "writing to file \"" + fileName + "\": " + fileContent + "\n";
-    
-		try {
-			File file = new File(fileName);
-			// if its not there create it
-			if(!file.isFile()){
-				file.createNewFile();
-			}				
-				
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-			if (append) {
-				out.newLine();
-			}
-			out.write(fileContent);
-			out.close();
-			//System.out.println("Your file has been written");        	
-		}
-		catch(IOException ex)
-		{
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}	        
-	}  
+	private static void writeLine(BufferedWriter out, CharSequence line) throws IOException {
+		out.newLine();
+		out.append(line);
+	}
 	
 	public static void main(String[] args) {
 		int xmlChoice = 1; //1=correct XML, 2=extra column, 3=one less column (1st row), 4=one less column (2nd row), 4=one less column (3rd row)
@@ -491,6 +428,9 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
 		      new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
 		      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
 		      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+		      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+		      new ParameterInfo("row_xpath", Types.VARCHAR, DIRECTION_IN),
+		      new ParameterInfo("column_xpaths", Types.VARCHAR, DIRECTION_IN),
 		      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
 		 */
 		String xml_string = null;
@@ -531,6 +471,9 @@ public class CSVFromXMLToFile extends XMLUtilTemplate implements CustomProcedure
 	        		new Integer (total_columns),
 	        		new String (file_Path),
 	        		new Integer (append),
+	        		null,
+	        		null,
+	        		null,
 	        });
        
 	        String result = cp.getOutputValues()[0].toString();
@@ -22,8 +22,13 @@ package com.tibco.ps.utils.xml;
 
 /*
 	FixedFromXMLToFile:
-	  Function to parse an XML string and convert the result set to a Fixed length (variable field) string.
+	  Function to parse an XML string (or file) and convert the result set to a Fixed length (variable field) string.
 	  Write the result to a file.
+
+	  The XML is read with a streaming (StAX) parser and the rows are written through a single
+	  buffered writer as they are read, so memory use doesn't depend on the size of the document
+	  (see XMLRowStreamer.) To export a large document, pass its path as xml_file_path instead of
+	  passing its content as xml_string.
 	
 	  Note:  For best results, the XML string should be formatted with repeated rows 
 	  		 containing all expected columns in each row.   Deviation from this pattern may result
@@ -64,7 +69,7 @@ package com.tibco.ps.utils.xml;
 			
 	Inputs:
 	  xml_string      - The XML to parse through to create a CSV file
-	    values: Any valid XML string.
+	    values: Any valid XML string or NULL when xml_file_path is provided.
 	
 	  format_string   - A string of pipe separated sizes (widths) for each column.  
 	  	format: col1_Size|col2_Size|...|coln_Size
@@ -82,6 +87,20 @@ package com.tibco.ps.utils.xml;
 	  append - 0=do not append file, 1=append file.						Types.SMALLINT, DIRECTION_IN
 		default=false
 	
+	  xml_file_path - Full path to a file containing the XML to parse.	Types.VARCHAR, DIRECTION_IN
+	    values: NULL to parse xml_string. Either xml_string or xml_file_path must be provided.
+	
+	  row_xpath - Mapping mode: the XPath of the row elements.				Types.VARCHAR, DIRECTION_IN
+	    values: NULL to take the rows and columns from the leaf elements as described above, or a
+	            simple path of element names, either absolute or starting with // (e.g. /p1:Customer/row
+	            or //row.) Namespace prefixes are ignored.
+	
+	  column_xpaths - Mapping mode: the comma separated XPaths of the columns, relative to the row element.
+	    values: e.g. customerID, companyName, address/city, @type, concat(contactFirstName, ' ', contactLastName)
+	            Required with row_xpath. Names are local names (without namespace prefixes) and a column whose
+	            XPath selects nothing is empty. The XPaths are also the column headers. total_columns may be
+	            NULL in mapping mode; if it is provided it must match the number of column XPaths.
+	
 	Output:
 	  error  - 0=success, 1=error
 	    values: 0 or 1
@@ -107,21 +126,14 @@ import com.compositesw.common.logging.Logger;
 import com.compositesw.extension.CustomProcedure;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringReader;
-import java.sql.ResultSet;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.List;
 import java.util.StringTokenizer;
 
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
-import org.xml.sax.InputSource;
+import javax.xml.stream.XMLStreamException;
 
 import com.compositesw.extension.CustomProcedureException;
 import com.compositesw.extension.ParameterInfo;
@@ -129,7 +141,6 @@ import com.compositesw.extension.ParameterInfo;
 public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedure {
   String loginfo = "Done.";
   int error = 0;
-  ResultSet rs = null;
   
   static {
     className = "FixedFromXMLToFile";
@@ -137,7 +148,7 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
   }
 
   public String getDescription() {
-    return "This procedure takes in an XML string, parses it and converts the results to a Fixed length (variable column) string and writes the result to a file.";
+    return "This procedure takes in an XML string or file, parses it and converts the results to a Fixed length (variable column) string and writes the result to a file.";
   }
 
   public String getName() {
@@ -156,6 +167,9 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
       new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
       new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("row_xpath", Types.VARCHAR, DIRECTION_IN),
+      new ParameterInfo("column_xpaths", Types.VARCHAR, DIRECTION_IN),
       new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
     };
   }
@@ -163,6 +177,8 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
   public void invoke(Object[] inputs) throws CustomProcedureException, SQLException {
     try {
       String xmlString = null;
+      String xmlFilePath = null;
+      XPathRowMapping mapping = null;
       String formatString = null;
       boolean createHeaders = false;
       int totalColumns = 0;
@@ -173,13 +189,13 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
       /*
        * VALIDATE Input parameters for null
        */
-  	  if (inputs[0] == null) {
- 		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_string must be provided.");
+  	  if (inputs[0] == null && (inputs.length < 7 || inputs[6] == null)) {
+ 		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter xml_string or xml_file_path must be provided.");
  	  }
   	  if (inputs[1] == null) {
  		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter format_string must be provided.");
  	  }
-  	  if (inputs[3] == null) {
+  	  if (inputs[3] == null && (inputs.length < 8 || inputs[7] == null)) {
   		 throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter total_columns must be provided.");
   	  }
   	  if (inputs[4] == null) {
@@ -189,7 +205,10 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
       /*
        * RETREIVE Input parameters
        */
-      if (inputs[0] != null) {
+      if (inputs.length > 6 && inputs[6] != null) {
+    	  xmlFilePath = inputs[6].toString().trim();
+      } 
+      else if (inputs[0] != null) {
     	  xmlString = ((String) inputs[0]).trim();
       } 
       
@@ -214,13 +233,30 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
           append = (appendNum==1)?true:false;
       }
       
+      // Get the row and column XPaths from input (mapping mode)
+      if (inputs.length > 7 && inputs[7] != null) {
+    	  if (inputs[8] == null) {
+    		  throw new CustomProcedureException("Error in CJP "+getName()+": IN Parameter column_xpaths must be provided with row_xpath.");
+    	  }
+    	  mapping = XPathRowMapping.get(inputs[7].toString(), inputs[8].toString());
+    	  if (inputs[3] == null) {
+    		  totalColumns = mapping.getColumnCount();
+    	  } else if (((Integer) inputs[3]).intValue() != mapping.getColumnCount()) {
+    		  throw new IllegalArgumentException ("The number of column XPaths ["+mapping.getColumnCount()+"] does not match the expected total_columns ["+inputs[3]+"].");
+    	  }
+      }
+      
+      // -- the XML itself isn't logged, it may be very large
       loginfo += "DEBUG: \nARGS" +
            "\nFormat String: " + formatString +
            "\nCreate Column Headers: " + createHeaders +
            "\nTotal Columns: " + totalColumns +
            "\nFile Path: " + filePath +
            "\nAppend: " + append +
-           "\nXML String: " + xmlString + 
+           "\nXML File Path: " + xmlFilePath + 
+           "\nRow XPath: " + (mapping == null ? null : inputs[7]) + 
+           "\nColumn XPaths: " + (mapping == null ? null : inputs[8]) + 
+           "\nXML String Length: " + (xmlString == null ? 0 : xmlString.length()) + 
            "\n";
  
       /*
@@ -237,16 +273,7 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
           throw new IllegalArgumentException ("The number of sizes(widths) in the format string ["+tokenCount+"] does not match the expected total_columns ["+totalColumns+"].");
       }
 
-      // if "append" input is false, zero out the input file and change "append"
-      // to true so that all subsequent calls to createFileAscii DO append to the file.
-      // (otherwise all you get is a file with the last written line, i.e. "")
-      //
-      if (! append) {
-        createFileAscii (filePath, false, "");
-        append = true;
-      }
-
-      processXMLStringFixed(xmlString, formatString, createHeaders, totalColumns, filePath, append);		
+      processXMLFixed(xmlString, xmlFilePath, mapping, getSizes(formatString), createHeaders, totalColumns, filePath, append);		
       
     } catch (Throwable t) {
         error = 1;
@@ -272,189 +299,124 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 	 ****************************************************************/
 
   	/****************************************************************
-  	 * processXMLStringFixed - 
+  	 * processXMLFixed - stream the XML string or file and write it to a fixed length formatted file
   	 * 
-	 * @param xmlString - The XML string to parse
-	 * @param formatString - A string of pipe separated sizes (widths) for each column.  format: col1_Size|col2_Size|...|coln_Size
+	 * The file is written the way it was when each line was written by a separate call: every
+	 * line (including the first) is preceded by a line separator and a blank line ends the file.
+	 * Columns beyond the sizes in the format string are ignored.
+	 * 
+	 * @param xmlString - The XML string to parse (when xmlFilePath is null)
+	 * @param xmlFilePath - Full path to a file containing the XML to parse
+	 * @param mapping - The row and column XPaths (mapping mode) or null
+	 * @param sizes - The size (width) of each column.
 	 * @param createHeaders - Indicates whether to create a column headers row as the first row of the output.
 	 * @param totalColumns - Total number of columns to produce.  This is a validation against the number of fields discovered in the XML.
 	 * @param outputFilePath - Full path to a file that is to be created.	
-	 * @param append - 0=do not append file, 1=append file.
+	 * @param append - false=do not append file, true=append file.
 	 * @throws CustomProcedureException 
-	 * @throws SQLException 
 	 ****************************************************************/
-	@SuppressWarnings("unchecked")
-	private void processXMLStringFixed(String xmlString, String formatString, boolean createHeaders, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
-	
-		Element rootElement = null;
+	private void processXMLFixed(String xmlString, String xmlFilePath, XPathRowMapping mapping, final int[] sizes, final boolean createHeaders, final int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException {
+
+		InputStream in = null;
+		BufferedWriter out = null;
 		try {
-			rootElement = getDocumentFromString(xmlString);
-			if(rootElement != null){
-				
-				try {
-					List<Element> nodes = rootElement.getChildren();
-					StringBuffer sb = new StringBuffer();
-					
-					if (createHeaders) {
-						sb = processHeaderFixed(nodes, sb, formatString, totalColumns, outputFilePath, append);
-						append = true;					
-					}
+			in = (xmlFilePath == null) ? null : XMLRowStreamer.openFile(xmlFilePath);
+			out = new BufferedWriter(new FileWriter(outputFilePath, append), XMLRowStreamer.BUFFER_SIZE);
+			final BufferedWriter writer = out;
+			final StringBuilder sb = new StringBuilder();
+
+			XMLRowStreamer streamer = (mapping == null) ? new XMLRowStreamer(totalColumns) : new XMLRowStreamer(mapping);
+			long rows = streamer.stream(
+				(in == null) ? XMLRowStreamer.createReader(xmlString) : XMLRowStreamer.createReader(in),
+				new XMLRowStreamer.RowHandler() {
+					boolean headerWritten = !createHeaders;
+
+					public void row(String[] names, String[] values, int count, int rowNumber) throws CustomProcedureException, IOException {
+						if (!headerWritten) {
+							// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
+							if (count > totalColumns) {
+								throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+count+"] is more than the expected total elements ["+totalColumns+"].");
+							}
+							if (count < totalColumns) {
+								throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+count+"] is less than the expected total elements ["+totalColumns+"].");
+							}
+							sb.setLength(0);
+							for (int i = 0; i < count; i++) {
+								appendFixed(sb, names[i], sizes[i]);
+							}
+							writeLine(writer, sb);
+							headerWritten = true;
+						}
 
-					int rowCount = 0;
-					sb = new StringBuffer();
-					sb = processChildNodesFixed(nodes, sb, formatString, totalColumns, outputFilePath, append, rowCount);
-					if (sb.toString() != null) {
-						// Add a blank line for the last line in the file.
-						createFileAscii(outputFilePath, append, "");					
+						// Columns without a size in the format string are not output
+						if (count < totalColumns) {
+							throw new CustomProcedureException("ROW["+rowNumber+"]::The Number of elements extracted from the XML ["+count+"] is less than the expected total elements ["+totalColumns+"].");
+						}
+						sb.setLength(0);
+						for (int i = 0; i < totalColumns; i++) {
+							appendFixed(sb, values[i], sizes[i]);
+						}
+						writeLine(writer, sb);
 					}
-		
-				} catch (Exception ex) {
-					throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-				}
-			}
-		} catch (SQLException ex) {
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}
-	}
+				});
 
-	@SuppressWarnings("unchecked")
-	private StringBuffer processHeaderFixed(List<Element> childNodes, StringBuffer sb, String formatString, int totalColumns, String outputFilePath, boolean append) throws CustomProcedureException{
-		
-		int elementCount = 0;
-		int rowCount = 0;
-		
-		for (Element element : childNodes) {
-			// Break out of the loop once the first row header is constructed
-			if (rowCount == 1) {
-				break;
-			}
-			
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-				
-				String token = getToken(elementCount, formatString);
-				if (token != null) {
-						int size = Integer.parseInt(token);
-
-						String columnHeader = (element.getName());
-						if (columnHeader.length() > size) {
-							columnHeader = columnHeader.substring(0, size);
-						}
-						sb.append (rpad(columnHeader, size, " "));
-				}
+			// Add a blank line for the last line in the file.
+			out.newLine();
+			out.close();
+			out = null;
 
-				elementCount++;
-				// Break out of the loop once the total number of columns is met from the current column list
-				if (elementCount == totalColumns) {
-					try {
-						createFileAscii(outputFilePath, append, sb.toString());
-					} catch (Exception ex) {
-						throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-					}
-				}
-				// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-				if (elementCount > totalColumns) {
-					throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
+			loginfo += "Wrote " + rows + " rows to file \"" + outputFilePath + "\"\n";
+		} catch (XMLStreamException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} catch (IOException ex) {
+			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
+		} finally {
+			XMLRowStreamer.closeQuietly(in);
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException ex) {
+					// -- already failing
 				}
-
-			}else{
-				rowCount++;
-				sb = processHeaderFixed(element.getChildren(), sb, formatString, totalColumns, outputFilePath, append);
-			}
-		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("Header::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
 			}
 		}
-		return sb;
 	}
-	
-	@SuppressWarnings("unchecked")
-	private StringBuffer processChildNodesFixed(List<Element> childNodes, StringBuffer sb, String formatString, int totalColumns, String outputFilePath, boolean append, int rowCount) throws CustomProcedureException{
-		
-		sb = new StringBuffer();	
-		String resultTmp = "";
-		int elementCount = 0;
 
-		for (Element element : childNodes) {
-			if(element.getChildren() == null || element.getChildren().isEmpty()){
-
-				resultTmp = element.getValue();
-	
-				// Get the next token size from the format string
-				String token = getToken(elementCount, formatString);
-				if (token != null) {
-		        	  
-					int size = Integer.parseInt(token);
-		   
-					// Append if not null
-					if (resultTmp != null) {
-			
-						// Substring the result if larger than size
-						if (resultTmp.length() > size) {
-			        		resultTmp = resultTmp.substring(0, size);
-			        	}
-			        	// Apply padding on the result if needed
-			        	resultTmp = rpad(resultTmp,size," ");
-				        //if (logger.isDebug()) logger.debug ("main_loop::x="+formatString+"  size="+size+"  resultTmp=["+resultTmp+"]");
-				        // Comment this line out after debugging is completed
-				        //logger.info ("main_loop::x="+x+"  size="+size+"  resultTmp=["+resultTmp+"]");
-			            sb.append (resultTmp);
-
-						elementCount++;
-						// Write the row to the file once the number of elements extracted matches the total number of elements expected
-						if (elementCount == totalColumns) {
-							try {
-								createFileAscii(outputFilePath, append, sb.toString());
-							} catch (Exception ex) {
-								throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-							}
-						}
-						// Throw an exception if the number of elements retrieved is greater than the total number of elements expected
-						if (elementCount > totalColumns) {
-							throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is more than the expected total elements ["+totalColumns+"].");
-						}
-					}
-				}
-		          
-			}else{
-				rowCount++;
-				sb = processChildNodesFixed(element.getChildren(), sb, formatString, totalColumns, outputFilePath, append, rowCount);
-			}
+	/**
+	 * Appends a value truncated or padded with spaces to size characters.
+	 */
+	private static void appendFixed(StringBuilder sb, String value, int size) {
+		// Substring the result if larger than size
+		if (value.length() > size) {
+			sb.append(value, 0, size);
+			return;
 		}
-		if (elementCount > 0) {
-			if (elementCount < totalColumns) {
-				throw new CustomProcedureException("ROW["+rowCount+"]::The Number of elements extracted from the XML ["+elementCount+"] is less than the expected total elements ["+totalColumns+"].");
-			}
+		// Apply padding on the result if needed
+		sb.append(value);
+		for (int i = value.length(); i < size; i++) {
+			sb.append(' ');
 		}
-		return sb;
 	}
-	
 
 	/**
-	 * @return the nth token for a string value
+	 * @return the sizes in a tokenString
 	 * Example:
-	 * tokenNum=3
 	 * tokenString=4|5|8|9
-	 * tokenized string= 4 5 8 9
-	 * return the value "8"
+	 * return the values 4, 5, 8 and 9
 	 */
-	private String getToken(int tokenNum, String tokenString) {
+	private int[] getSizes(String tokenString) {
 		String separator = "|";
 		if (tokenString.contains(",")) {
 			separator = ",";
 		}
 		// Tokenize a path based on separator
 	    StringTokenizer st = new StringTokenizer(tokenString, separator);
+	    int[] sizes = new int[st.countTokens()];
 	    int i=0;
 	    while (st.hasMoreTokens()) {
-	    	String token = st.nextToken();
-	    	if (i == tokenNum) {
-	    		return token;
-	    	}	
-	    	i++;
+	    	sizes[i++] = Integer.parseInt(st.nextToken());
 	    }
-	    return null;
+	    return sizes;
 	}
 	
 	/**
@@ -486,62 +448,24 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 	 */
 	public static String rpad(String str, int totalPadAmount, String padChar) {
 		// Pad a string with spaces starting on the left
-		String padStr = str;
-		if (padStr.length() < totalPadAmount) {
-			String pad = "";
-			for (int i=padStr.length(); i < totalPadAmount; i++) {
-				pad = pad + padChar;
-			}
-			padStr = padStr + pad;
+		if (str.length() >= totalPadAmount) {
+			return str;
+		}
+		StringBuilder padStr = new StringBuilder(totalPadAmount);
+		padStr.append(str);
+		for (int i=str.length(); i < totalPadAmount; i++) {
+			padStr.append(padChar);
 		}
-		return padStr;
+		return padStr.toString();
 	}
 	
 	/****************************************************************
 	 * COMMON METHODS
 	 ****************************************************************/
 
-	// -- returns root element of XML document
-	private Element getDocumentFromString(String xmlString) throws CustomProcedureException, SQLException  {
-		
-		Element retval=null;
-		InputSource inStream = new InputSource();
-		inStream.setCharacterStream(new StringReader(xmlString));
-		Document document = null;
-		try {
-			document = (new SAXBuilder()).build(inStream);
-	        retval = document.getRootElement();
-		} catch(JDOMException e) {
-			throw new CustomProcedureException(e);
-		} catch (IOException e) {
-			throw new CustomProcedureException(e);
-		}
-		
-		return retval;
-	}
-
-	private void createFileAscii(String fileName, boolean append, String fileContent) 
-		throws CustomProcedureException, SQLException {
-
-		try {
-			File file = new File(fileName);
-			// if its not there create it
-			if(!file.isFile()){
-				file.createNewFile();
-			}				
-				
-			BufferedWriter out = new BufferedWriter(new FileWriter(fileName, append));
-			if (append) {
-				out.newLine();
-			}
-			out.write(fileContent);
-			out.close();
-			//System.out.println("Your file has been written");        	
-		}
-		catch(IOException ex)
-		{
-			throw new CustomProcedureException("Error in CJP "+getName()+": " + ex.toString());
-		}	        
+	private static void writeLine(BufferedWriter out, CharSequence line) throws IOException {
+		out.newLine();
+		out.append(line);
 	}
 	
 	public static void main(String[] args) {
@@ -556,6 +480,9 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 		      new ParameterInfo("total_columns", Types.INTEGER, DIRECTION_IN),
 		      new ParameterInfo("file_Path", Types.VARCHAR, DIRECTION_IN),
 		      new ParameterInfo("append", Types.SMALLINT, DIRECTION_IN),
+		      new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+		      new ParameterInfo("row_xpath", Types.VARCHAR, DIRECTION_IN),
+		      new ParameterInfo("column_xpaths", Types.VARCHAR, DIRECTION_IN),
 		      new ParameterInfo("result", Types.INTEGER, DIRECTION_OUT) 
 		 */
 		String xml_string = null;
@@ -595,6 +522,9 @@ public class FixedFromXMLToFile extends XMLUtilTemplate implements CustomProcedu
 	        		new Integer (total_columns),
 	        		new String (file_Path),
 	        		new Integer (append),
+	        		null,
+	        		null,
+	        		null,
 	        });
        
 	        String result = cp.getOutputValues()[0].toString();
@@ -76,7 +76,6 @@ import javax.xml.parsers.*;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 
 import javax.xml.transform.dom.DOMSource;
 
@@ -162,14 +161,14 @@ public class InsertElementDemoteChildren implements CustomProcedure {
       throw new CustomProcedureException (className + ": value of \"occurrance\" argument may not be zero.");
     }
 
-    qenv.log (LOG_DEBUG, className + ": Creating DocumentBuilderFactory");
-    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-    qenv.log (LOG_DEBUG, className + ": Setting DocumentBuilderFactory namespace awareness to true");
-    dbf.setNamespaceAware (true);
+    // the parser and the serializer come from this thread's pool (see XMLFactories) and are returned to it at the end
+    //
+    DocumentBuilder db = null;
+    Transformer idTransform = null;
 
     try {
-      qenv.log (LOG_DEBUG, className + ": Creating DocumentBuilder");
-      DocumentBuilder db = dbf.newDocumentBuilder();
+      qenv.log (LOG_DEBUG, className + ": Acquiring namespace aware DocumentBuilder");
+      db = XMLFactories.acquireDocumentBuilder();
 
       // the parser won't take a String as input so we have to convert it to an InputStream
       //
@@ -245,8 +244,7 @@ public class InsertElementDemoteChildren implements CustomProcedure {
       //
       qenv.log (LOG_DEBUG, className + ": Serializing resulting XML");
       StringWriter sw = new StringWriter();
-      TransformerFactory xformFactory = TransformerFactory.newInstance();
-      Transformer idTransform = xformFactory.newTransformer();
+      idTransform = XMLFactories.acquireTransformer();
       Source input = new DOMSource (doc);
       Result output = new StreamResult (sw);
       idTransform.transform (input, output);
@@ -255,6 +253,9 @@ public class InsertElementDemoteChildren implements CustomProcedure {
       
     } catch (Exception e) {
       throw new CustomProcedureException (e);
+    } finally {
+      XMLFactories.release (db);
+      XMLFactories.release (idTransform);
     }
   }
 
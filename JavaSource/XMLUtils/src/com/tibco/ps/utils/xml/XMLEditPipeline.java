@@ -0,0 +1,219 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/* 
+	XMLEditPipeline:
+	
+	This CJP applies an ordered list of element edits (the edits of DeleteElement, DeleteElementSpareChildren,
+	InsertElementDemoteChildren and renaming an element) to an XML document in a single streaming pass. Unlike
+	those CJPs it doesn't build a DOM tree of the document or serialize it once per edit, so chaining edits
+	costs one parse. See XMLEditor. To edit a large document, pass it as xml_file_path or xml_blob and write
+	the result to output_file_path: the document is then streamed from the input to the file and memory use
+	doesn't depend on its size.
+	
+	
+	Input:
+	  inXML - The XML document to modify.
+	    Values: Any XML document, or NULL when xml_file_path or xml_blob is provided.
+	
+	  operations - The edits to apply, in order, separated by new lines or semicolons. Each edit sees the result
+	               of the edits before it (e.g. an element renamed by one edit can be deleted by the next one.)
+	    Values: One or more of
+	              delete <element> [occurrence]                 - remove the element and its content
+	              unwrap <element> [occurrence]                 - remove the element but keep its content in its place
+	              wrap   <element> [occurrence] <new element>   - insert a new element into the element, holding all of its content
+	              rename <element> [occurrence] <new element>   - rename the element
+	            where an element is {namespaceURI}localName, localName for no namespace or {*}localName for any
+	            namespace, and the occurrence is the ordinal number of the matching element (negative values
+	            start at the end of the document, 0 or none means every matching element.) e.g.
+	              rename {urn:a}item {urn:a}entry; delete {urn:a}entry -1; unwrap {*}wrapper
+	            The document element can't be deleted or unwrapped.
+	
+	  xml_file_path - Full path to a file containing the XML document to modify.
+	    Values: Any file path, or NULL when inXML or xml_blob is provided.
+	
+	  xml_blob - The XML document to modify, as bytes (in the encoding given by its XML declaration.)
+	    Values: Any XML document, or NULL when inXML or xml_file_path is provided.
+	
+	  output_file_path - Full path to a file to write the modified document to (in UTF-8.) The file is
+	                     overwritten, and deleted when the edits fail.
+	    Values: NULL to return the modified document as result.
+	
+	
+	Output:
+	  result - The XML document with the edits applied. An edit whose element (or occurrence) isn't found
+	           doesn't change the document.
+	    Values: Any XML document, or NULL when output_file_path is provided.
+	
+	
+	Exceptions:
+	  CustomProcedureException - Thrown when the inputs are invalid, the operations can't be parsed or would
+	                             delete or unwrap the document element, the document is not well formed or a
+	                             file or BLOB can't be read or written.
+	
+*/
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class XMLEditPipeline extends XMLUtilTemplate implements CustomProcedure {
+
+	static {
+		className = "XMLEditPipeline";
+		logger = Logger.getLogger(XMLEditPipeline.class.getName());
+	}
+
+	private String result = null;
+
+	public XMLEditPipeline() {}
+
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("inXML", Types.LONGVARCHAR, DIRECTION_IN),
+			new ParameterInfo("operations", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("xml_blob", Types.BLOB, DIRECTION_IN),
+			new ParameterInfo("output_file_path", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("result", Types.LONGVARCHAR, DIRECTION_OUT)
+		};
+	}
+
+	public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException {
+		String inXMLString = (String) inputValues[0];
+		String operations = (String) inputValues[1];
+		String xmlFilePath = (inputValues.length > 2) ? (String) inputValues[2] : null;
+		final Object xmlBlob = (inputValues.length > 3) ? inputValues[3] : null;
+		String outputFilePath = (inputValues.length > 4) ? (String) inputValues[4] : null;
+
+		result = null;
+		int sources = (inXMLString == null ? 0 : 1) + (xmlFilePath == null ? 0 : 1) + (xmlBlob == null ? 0 : 1);
+		if (sources > 1) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": only one of the IN Parameters inXML, xml_file_path and xml_blob can be provided.");
+		}
+		if (inXMLString != null && outputFilePath == null && (operations == null || operations.trim().length() == 0)) {
+			result = inXMLString;
+			return;
+		}
+		if (sources == 0 || operations == null || operations.trim().length() == 0) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": IN Parameters operations and one of inXML, xml_file_path and xml_blob must be provided.");
+		}
+
+		XMLEditor editor;
+		try {
+			editor = new XMLEditor(operations);
+		} catch (IllegalArgumentException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.getMessage());
+		}
+
+		final String path = (xmlFilePath != null) ? xmlFilePath.trim() : null;
+		if (qenv != null) {
+			qenv.log(LOG_DEBUG, className + ": Applying " + editor.size() + " operations to " + (path != null ? "file \"" + path + "\"" : xmlBlob != null ? "BLOB" : inXMLString.length() + " characters of XML")
+					+ (outputFilePath != null ? ", writing file \"" + outputFilePath + "\"" : ""));
+		}
+
+		Writer out = null;
+		boolean ok = false;
+		try {
+			if (inXMLString != null && outputFilePath == null) {
+				result = editor.apply(inXMLString);
+				return;
+			}
+
+			// -- file and BLOB inputs are opened again by the extra passes of negative occurrences
+			XMLEditor.Input in;
+			if (path != null) {
+				in = new XMLEditor.Input() {
+					public Closeable open() throws IOException {
+						return XMLRowStreamer.openFile(path);
+					}
+				};
+			} else if (xmlBlob != null) {
+				in = new XMLEditor.Input() {
+					public Closeable open() throws IOException {
+						try {
+							return (xmlBlob instanceof Blob) ? new BlobInputStream((Blob) xmlBlob, XMLRowStreamer.BUFFER_SIZE) : new ByteArrayInputStream((byte[]) xmlBlob);
+						} catch (SQLException e) {
+							throw new IOException("Can't read xml_blob: " + e.getMessage());
+						}
+					}
+				};
+			} else {
+				final String xml = inXMLString;
+				in = new XMLEditor.Input() {
+					public Closeable open() {
+						return new StringReader(xml);
+					}
+				};
+			}
+
+			if (outputFilePath != null) {
+				out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFilePath.trim()), "UTF-8"), XMLRowStreamer.BUFFER_SIZE);
+				editor.setOutputEncoding("UTF-8");
+				editor.apply(in, out);
+				out.close();
+				out = null;
+			} else {
+				StringWriter sw = new StringWriter();
+				editor.apply(in, sw);
+				result = sw.toString();
+			}
+			ok = true;
+		} catch (IllegalArgumentException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.getMessage());
+		} catch (XMLStreamException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.getMessage());
+		} catch (IOException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.toString());
+		} finally {
+			XMLRowStreamer.closeQuietly(out);
+			if (!ok && outputFilePath != null) {
+				new File(outputFilePath.trim()).delete();
+			}
+		}
+	}
+
+	public Object[] getOutputValues() {
+		return new Object[] { result };
+	}
+
+	public String getDescription() {
+		return "Applies an ordered list of delete, unwrap, wrap and rename element edits to an XML string, file or BLOB in a single streaming pass.";
+	}
+}
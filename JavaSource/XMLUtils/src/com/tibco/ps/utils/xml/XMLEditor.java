@@ -0,0 +1,502 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	XMLEditor:
+	  Streaming (StAX) engine of XMLEditPipeline. Applies an ordered list of element edits to an XML
+	  document in a single parse and serialization, without building a DOM tree, so memory use doesn't
+	  depend on the size of the document (only on its depth.) The operations are those of the DOM based
+	  edit CJPs:
+
+	    delete <element> [occurrence]                   - remove the element and its content (DeleteElement)
+	    unwrap <element> [occurrence]                   - remove the element but keep its content in its place
+	                                                      (DeleteElementSpareChildren, which moves the content
+	                                                      to the end of the parent instead)
+	    wrap   <element> [occurrence] <new element>     - insert a new element into the element, holding all
+	                                                      of its content (InsertElementDemoteChildren)
+	    rename <element> [occurrence] <new element>     - rename the element, keeping its attributes and content
+
+	  Operations are separated by new lines or semicolons. Elements are written {namespaceURI}localName, or
+	  localName for no namespace, or {*}localName for any namespace. The occurrence is the ordinal number of
+	  the matching element in document order; negative values count from the end of the document and 0 or
+	  no occurrence means every matching element.
+
+	  Each operation is a stage that sees the output of the operations before it, so the result (including
+	  which element is the n-th occurrence) is the same as applying the operations one after another. A
+	  negative occurrence can only be resolved once the matching elements have been counted, which costs
+	  an extra parse (but no serialization) of the document per such operation.
+
+	  New elements use the prefix bound to their namespace where they're inserted, or a new prefix that is
+	  declared on them. Namespace declarations are added to the output where an edit left a prefix unbound
+	  (e.g. in the content of an unwrapped element that declared it), see write().
+	
+	Inputs:
+	  N/A
+	
+	Output:
+	  N/A
+	
+	Exceptions:
+	  IllegalArgumentException - Thrown when the operations can't be parsed, or would delete or unwrap the
+	                             document element (which would leave no document, or several root elements.)
+	  XMLStreamException - Thrown when the document is not well formed.
+	  IOException - Thrown when the document can't be read or the result can't be written.
+	
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+public class XMLEditor {
+
+	public static final int DELETE = 0;
+	public static final int UNWRAP = 1;
+	public static final int WRAP = 2;
+	public static final int RENAME = 3;
+
+	private static final String[] OPERATIONS = { "delete", "unwrap", "wrap", "rename" };
+
+	private static final XMLInputFactory inputFactory = XMLFactories.getInputFactory(false);
+	private static final XMLOutputFactory outputFactory = XMLFactories.getOutputFactory();
+	private static final XMLEventFactory eventFactory = XMLFactories.getEventFactory();
+
+	// -- an edit operation and its state during a pass
+	private static class Operation {
+		final int type;
+		final String namespace;     // -- null for any namespace
+		final String localName;
+		final int occurrence;
+		final String newNamespace;
+		final String newLocalName;
+		final String newPrefix;
+
+		int target;                 // -- the occurrence to edit (0 for all, -1 for none)
+		int count;
+		int skipDepth;
+		final List<QName> stack = new ArrayList<QName>();
+
+		Operation(int type, String element, int occurrence, String newElement, int index) {
+			this.type = type;
+			String[] name = parseElement(element);
+			this.namespace = "*".equals(name[0]) ? null : name[0];
+			this.localName = name[1];
+			this.occurrence = occurrence;
+			if (newElement != null) {
+				name = parseElement(newElement);
+				if ("*".equals(name[0])) {
+					throw new IllegalArgumentException("A new element must have a namespace or none: " + newElement);
+				}
+				this.newNamespace = name[0];
+				this.newLocalName = name[1];
+			} else {
+				this.newNamespace = null;
+				this.newLocalName = null;
+			}
+			this.newPrefix = "ns" + (index + 1);
+		}
+
+		void reset() {
+			count = 0;
+			skipDepth = 0;
+			stack.clear();
+		}
+
+		boolean matches(StartElement start) {
+			QName name = start.getName();
+			return localName.equals(name.getLocalPart()) && (namespace == null || namespace.equals(name.getNamespaceURI()));
+		}
+
+		/**
+		 * Returns the name of the new element with the prefix bound to its namespace in a context.
+		 */
+		QName newName(NamespaceContext context) {
+			if (newNamespace.length() == 0) {
+				return new QName(newLocalName);
+			}
+			String prefix = context.getPrefix(newNamespace);
+			return new QName(newNamespace, newLocalName, (prefix == null) ? newPrefix : prefix);
+		}
+	}
+
+	private final Operation[] operations;
+
+	// -- the namespace bindings in scope in the output (prefix, URI pairs) and where each open element's start
+	private final List<String> bindings = new ArrayList<String>();
+	private int[] marks = new int[32];
+	private int depth;
+
+	private String outputEncoding = null;
+
+	/**
+	 * Creates an editor for a list of operations (see the description above.)
+	 */
+	public XMLEditor(String operations) {
+		List<Operation> list = new ArrayList<Operation>();
+		for (String line : operations.split("[\\r\\n;]+")) {
+			String[] tokens = line.trim().split("\\s+");
+			if (tokens.length == 0 || tokens[0].length() == 0) {
+				continue;
+			}
+			int type = -1;
+			for (int i = 0; i < OPERATIONS.length; i++) {
+				if (OPERATIONS[i].equalsIgnoreCase(tokens[0])) {
+					type = i;
+				}
+			}
+			if (type < 0) {
+				throw new IllegalArgumentException("Unknown operation \"" + tokens[0] + "\" in \"" + line.trim() + "\". Supported operations are delete, unwrap, wrap and rename.");
+			}
+
+			int p = 1;
+			String element = (p < tokens.length) ? tokens[p++] : null;
+			int occurrence = 0;
+			if (p < tokens.length && tokens[p].matches("[+-]?\\d+")) {
+				occurrence = Integer.parseInt(tokens[p++].replace("+", ""));
+			}
+			String newElement = (p < tokens.length) ? tokens[p++] : null;
+			boolean needsNew = (type == WRAP || type == RENAME);
+			if (element == null || p < tokens.length || (newElement == null) == needsNew) {
+				throw new IllegalArgumentException("Invalid operation \"" + line.trim() + "\". Expected: " + OPERATIONS[type] + " <element> [occurrence]" + (needsNew ? " <new element>" : ""));
+			}
+			list.add(new Operation(type, element, occurrence, newElement, list.size()));
+		}
+		if (list.isEmpty()) {
+			throw new IllegalArgumentException("No operations given.");
+		}
+		this.operations = list.toArray(new Operation[list.size()]);
+	}
+
+	/**
+	 * Returns the number of operations.
+	 */
+	public int size() {
+		return operations.length;
+	}
+
+	/**
+	 * A document to edit. It's opened once for the edit and once more (before that) for each operation
+	 * with a negative occurrence, to count the matching elements.
+	 */
+	public interface Input {
+		/**
+		 * Returns a Reader, or an InputStream whose encoding is detected from the document.
+		 */
+		Closeable open() throws IOException;
+	}
+
+	/**
+	 * Sets the encoding declared by the XML declaration of the output, e.g. when the output is written to
+	 * a file in another encoding than the input's. NULL (the default) writes the input's declaration.
+	 */
+	public void setOutputEncoding(String outputEncoding) {
+		this.outputEncoding = outputEncoding;
+	}
+
+	/**
+	 * Applies the operations to an XML string.
+	 */
+	public String apply(final String xml) throws XMLStreamException, IOException {
+		StringWriter out = new StringWriter(xml.length() + 64);
+		apply(new Input() {
+			public Closeable open() {
+				return new StringReader(xml);
+			}
+		}, out);
+		return out.toString();
+	}
+
+	/**
+	 * Applies the operations to a document read from a reader and writes the result. The operations must
+	 * not use negative occurrences, as the document can only be read once.
+	 */
+	public void apply(final Reader in, Writer out) throws XMLStreamException, IOException {
+		for (Operation op : operations) {
+			if (op.occurrence < 0) {
+				throw new IllegalArgumentException("Negative occurrences require a document that can be read more than once.");
+			}
+		}
+		apply(new Input() {
+			public Closeable open() {
+				return in;
+			}
+		}, out);
+	}
+
+	/**
+	 * Applies the operations to a document and writes the result. Only the output writer holds the result,
+	 * so memory use doesn't depend on the size of the document when it's read from and written to streams.
+	 */
+	public void apply(Input in, Writer out) throws XMLStreamException, IOException {
+		resolveOccurrences(in);
+		XMLEventWriter writer = outputFactory.createXMLEventWriter(out);
+		run(in, writer, operations.length, -1);
+		writer.flush();
+	}
+
+	/**
+	 * Sets the occurrence each operation edits, counting the matches of the operations with a negative
+	 * occurrence in a pass through the operations before them.
+	 */
+	private void resolveOccurrences(Input in) throws XMLStreamException, IOException {
+		for (int i = 0; i < operations.length; i++) {
+			Operation op = operations[i];
+			if (op.occurrence >= 0) {
+				op.target = op.occurrence;
+				continue;
+			}
+			run(in, null, i, i);
+			int target = op.count + op.occurrence + 1;
+			op.target = (target > 0) ? target : -1;
+		}
+	}
+
+	/**
+	 * Runs the events of a document through the first stages operations and writes them (if writer is not
+	 * null.) The counting stage only counts its matches.
+	 */
+	private void run(Input in, XMLEventWriter writer, int stages, int counting) throws XMLStreamException, IOException {
+		for (Operation op : operations) {
+			op.reset();
+		}
+		bindings.clear();
+		depth = 0;
+		Closeable stream = in.open();
+		try {
+			XMLEventReader reader = (stream instanceof Reader)
+				? inputFactory.createXMLEventReader((Reader) stream)
+				: inputFactory.createXMLEventReader((InputStream) stream);
+			while (reader.hasNext()) {
+				process(reader.nextEvent(), 0, stages, counting, writer);
+			}
+			reader.close();
+		}
+		finally {
+			stream.close();
+		}
+	}
+
+	private void process(XMLEvent event, int stage, int stages, int counting, XMLEventWriter writer) throws XMLStreamException {
+		if (stage == stages) {
+			if (stage == counting) {
+				Operation op = operations[stage];
+				if (event.isStartElement() && op.matches(event.asStartElement())) {
+					op.count++;
+				}
+			} else if (writer != null) {
+				write(event, writer);
+			}
+			return;
+		}
+
+		Operation op = operations[stage];
+		int next = stage + 1;
+
+		if (event.isStartElement()) {
+			StartElement start = event.asStartElement();
+			// -- occurrences are counted inside a deleted element too, like getElementsByTagNameNS() does
+			boolean matched = op.matches(start) && (op.target == 0 || ++op.count == op.target);
+			if (op.skipDepth > 0) {
+				op.skipDepth++;
+				return;
+			}
+			if (!matched) {
+				op.stack.add(null);
+				process(event, next, stages, counting, writer);
+				return;
+			}
+			if (op.stack.isEmpty() && (op.type == DELETE || op.type == UNWRAP)) {
+				// -- would leave no document element, or content that isn't a single element
+				throw new IllegalArgumentException("The document element " + start.getName() + " can't be " + (op.type == DELETE ? "deleted." : "unwrapped."));
+			}
+
+			switch (op.type) {
+			case DELETE:
+				op.skipDepth = 1;
+				break;
+			case UNWRAP:
+				op.stack.add(start.getName());
+				break;
+			case WRAP: {
+				QName name = op.newName(start.getNamespaceContext());
+				op.stack.add(name);
+				process(event, next, stages, counting, writer);
+				process(eventFactory.createStartElement(name, null, null), next, stages, counting, writer);
+				break;
+			}
+			default: {
+				QName name = op.newName(start.getNamespaceContext());
+				op.stack.add(name);
+				process(eventFactory.createStartElement(name, start.getAttributes(), start.getNamespaces()), next, stages, counting, writer);
+			}
+			}
+			return;
+		}
+
+		if (op.skipDepth > 0) {
+			if (event.isEndElement()) {
+				op.skipDepth--;
+			}
+			return;
+		}
+
+		if (event.isEndElement()) {
+			QName name = op.stack.remove(op.stack.size() - 1);
+			if (name == null) {
+				process(event, next, stages, counting, writer);
+				return;
+			}
+			switch (op.type) {
+			case UNWRAP:
+				break;
+			case WRAP:
+				process(eventFactory.createEndElement(name, null), next, stages, counting, writer);
+				process(event, next, stages, counting, writer);
+				break;
+			default: {
+				EndElement end = event.asEndElement();
+				process(eventFactory.createEndElement(name, end.getNamespaces()), next, stages, counting, writer);
+			}
+			}
+			return;
+		}
+
+		process(event, next, stages, counting, writer);
+	}
+
+	/**
+	 * Writes an event, declaring the namespaces of a start element (and of its attributes) that aren't bound
+	 * in the output. The namespace context of the event can't be used for this, as it's that of the input.
+	 */
+	private void write(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+		if (event.isStartDocument() && outputEncoding != null) {
+			StartDocument sd = (StartDocument) event;
+			event = sd.standaloneSet()
+				? eventFactory.createStartDocument(outputEncoding, sd.getVersion(), sd.isStandalone())
+				: eventFactory.createStartDocument(outputEncoding, sd.getVersion());
+		}
+		if (event.isStartElement()) {
+			StartElement start = event.asStartElement();
+			if (depth == marks.length) {
+				int[] grown = new int[depth * 2];
+				System.arraycopy(marks, 0, grown, 0, depth);
+				marks = grown;
+			}
+			marks[depth++] = bindings.size();
+
+			List<Namespace> namespaces = new ArrayList<Namespace>(2);
+			for (Iterator<?> it = start.getNamespaces(); it.hasNext(); ) {
+				Namespace ns = (Namespace) it.next();
+				namespaces.add(ns);
+				bindings.add(ns.getPrefix());
+				bindings.add(ns.getNamespaceURI());
+			}
+			int declared = namespaces.size();
+
+			QName name = start.getName();
+			declare(name.getPrefix(), name.getNamespaceURI(), namespaces);
+			for (Iterator<?> it = start.getAttributes(); it.hasNext(); ) {
+				QName attribute = ((Attribute) it.next()).getName();
+				if (attribute.getPrefix().length() > 0) {
+					declare(attribute.getPrefix(), attribute.getNamespaceURI(), namespaces);
+				}
+			}
+
+			if (namespaces.size() > declared) {
+				event = eventFactory.createStartElement(name, start.getAttributes(), namespaces.iterator());
+			}
+			writer.add(event);
+			return;
+		}
+
+		writer.add(event);
+		if (event.isEndElement()) {
+			int mark = marks[--depth];
+			while (bindings.size() > mark) {
+				bindings.remove(bindings.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds the declaration of a prefix to namespaces if it isn't bound to the namespace URI in the output.
+	 */
+	private void declare(String prefix, String namespaceURI, List<Namespace> namespaces) {
+		if ("xml".equals(prefix)) {
+			return;
+		}
+		String bound = (prefix.length() == 0) ? "" : null;
+		for (int i = bindings.size() - 2; i >= 0; i -= 2) {
+			if (bindings.get(i).equals(prefix)) {
+				bound = bindings.get(i + 1);
+				break;
+			}
+		}
+		if (!namespaceURI.equals(bound)) {
+			namespaces.add((prefix.length() == 0) ? eventFactory.createNamespace(namespaceURI) : eventFactory.createNamespace(prefix, namespaceURI));
+			bindings.add(prefix);
+			bindings.add(namespaceURI);
+		}
+	}
+
+	/**
+	 * Returns the namespace ("" for none, "*" for any) and the local name of {namespaceURI}localName.
+	 */
+	private static String[] parseElement(String element) {
+		String namespace = "";
+		String localName = element;
+		if (element.startsWith("{")) {
+			int end = element.indexOf('}');
+			if (end < 0) {
+				throw new IllegalArgumentException("Invalid element name (expected {namespaceURI}localName): " + element);
+			}
+			namespace = element.substring(1, end);
+			localName = element.substring(end + 1);
+		}
+		if (localName.length() == 0 || localName.indexOf(':') >= 0) {
+			throw new IllegalArgumentException("Invalid element name (expected {namespaceURI}localName): " + element);
+		}
+		return new String[] { namespace, localName };
+	}
+}
@@ -0,0 +1,337 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	XMLFactories:
+	  Shared XML parser, serializer and XPath objects of the XMLUtils CJPs. The JAXP newInstance() methods
+	  look the implementation up on the class path (a service loader scan that contends on class loader
+	  locks under concurrency), and creating a DocumentBuilder or Transformer from a factory is not cheap
+	  either, so a CJP called once per row shouldn't do either per call.
+
+	  The StAX factories are thread-safe once configured and are shared. DocumentBuilder, Transformer and
+	  XPath objects are not thread-safe: each thread has a pool of them (at most MAX_POOLED of each kind), an
+	  object is acquired from the calling thread's pool and reset() when it's released back to it. An object
+	  that isn't released is simply not reused. The JAXP factories are created once per thread.
+
+	  XMLReaders (newXMLReader()) are created for each use from the calling thread's SAXParserFactory, since
+	  a reader has no reset() and keeps the handlers of its last parse.
+
+	  The parsers don't load external DTDs or entities (XXE) and limit entity expansion, and the
+	  TransformerFactory uses secure processing (no extension functions) and doesn't access external DTDs
+	  or stylesheets, see XSLTemplatesCache for the includes of stylesheet files. Internal entities are
+	  still expanded.
+
+	  Usage:
+	    DocumentBuilder db = XMLFactories.acquireDocumentBuilder();
+	    try {
+	      ...
+	    } finally {
+	      XMLFactories.release(db);
+	    }
+	
+	Inputs:
+	  N/A
+	
+	Output:
+	  N/A
+	
+	Exceptions:
+	  IllegalStateException - Thrown when the JAXP implementation can't create a namespace aware parser or an
+	                          identity transformer (a configuration error.)
+	
+ */
+
+import java.util.ArrayDeque;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+public class XMLFactories {
+
+	// -- the max number of idle objects of each kind kept by each thread
+	public static final int MAX_POOLED = 4;
+
+	private static final XMLInputFactory inputFactory;
+	private static final XMLInputFactory coalescingInputFactory;
+	private static final XMLOutputFactory outputFactory;
+	private static final XMLEventFactory eventFactory;
+	static {
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		coalescingInputFactory = XMLInputFactory.newInstance();
+		coalescingInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		coalescingInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		outputFactory = XMLOutputFactory.newInstance();
+		eventFactory = XMLEventFactory.newInstance();
+	}
+
+	private static final ThreadLocal<XMLFactories> pools = new ThreadLocal<XMLFactories>() {
+		@Override
+		protected XMLFactories initialValue() {
+			return new XMLFactories();
+		}
+	};
+
+	private DocumentBuilderFactory documentBuilderFactory;
+	private SAXParserFactory saxParserFactory;
+	private TransformerFactory transformerFactory;
+	private XPathFactory xpathFactory;
+	private final ArrayDeque<DocumentBuilder> documentBuilders = new ArrayDeque<DocumentBuilder>(MAX_POOLED);
+	private final ArrayDeque<Transformer> transformers = new ArrayDeque<Transformer>(MAX_POOLED);
+	private final ArrayDeque<XPath> xpaths = new ArrayDeque<XPath>(MAX_POOLED);
+
+	private XMLFactories() {
+	}
+
+	/**
+	 * Returns the shared StAX input factory, which doesn't resolve external entities. A coalescing factory
+	 * reports each text node as one event (CDATA sections included.)
+	 */
+	public static XMLInputFactory getInputFactory(boolean coalescing) {
+		return coalescing ? coalescingInputFactory : inputFactory;
+	}
+
+	public static XMLOutputFactory getOutputFactory() {
+		return outputFactory;
+	}
+
+	public static XMLEventFactory getEventFactory() {
+		return eventFactory;
+	}
+
+	/**
+	 * Returns the calling thread's TransformerFactory (e.g. to compile stylesheets.) It must not be used
+	 * by another thread, and its settings (secure processing, no external access) must not be changed.
+	 */
+	public static TransformerFactory getTransformerFactory() {
+		return pools.get().transformerFactory();
+	}
+
+	/**
+	 * Returns a namespace aware DocumentBuilder from the calling thread's pool. It doesn't load external
+	 * DTDs or entities.
+	 */
+	public static DocumentBuilder acquireDocumentBuilder() {
+		XMLFactories pool = pools.get();
+		DocumentBuilder db = pool.documentBuilders.pollFirst();
+		if (db == null) {
+			if (pool.documentBuilderFactory == null) {
+				pool.documentBuilderFactory = newDocumentBuilderFactory();
+			}
+			try {
+				db = pool.documentBuilderFactory.newDocumentBuilder();
+			} catch (ParserConfigurationException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+		}
+		return db;
+	}
+
+	/**
+	 * Returns a new namespace aware XMLReader (e.g. for the SAXSource of a transformation.) It doesn't load
+	 * external DTDs or entities.
+	 */
+	public static XMLReader newXMLReader() {
+		XMLFactories pool = pools.get();
+		if (pool.saxParserFactory == null) {
+			pool.saxParserFactory = newSAXParserFactory();
+		}
+		try {
+			XMLReader reader = pool.saxParserFactory.newSAXParser().getXMLReader();
+			setProperty(reader, XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			setProperty(reader, XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+			return reader;
+		} catch (ParserConfigurationException e) {
+			throw new IllegalStateException(e.getMessage());
+		} catch (SAXException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns an identity Transformer (a serializer) from the calling thread's pool.
+	 */
+	public static Transformer acquireTransformer() {
+		XMLFactories pool = pools.get();
+		Transformer transformer = pool.transformers.pollFirst();
+		if (transformer == null) {
+			try {
+				transformer = pool.transformerFactory().newTransformer();
+			} catch (TransformerConfigurationException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+		}
+		return transformer;
+	}
+
+	/**
+	 * Returns an XPath from the calling thread's pool.
+	 */
+	public static XPath acquireXPath() {
+		XMLFactories pool = pools.get();
+		XPath xpath = pool.xpaths.pollFirst();
+		if (xpath == null) {
+			if (pool.xpathFactory == null) {
+				pool.xpathFactory = XPathFactory.newInstance();
+			}
+			xpath = pool.xpathFactory.newXPath();
+		}
+		return xpath;
+	}
+
+	/**
+	 * Resets a DocumentBuilder and returns it to the calling thread's pool.
+	 */
+	public static void release(DocumentBuilder db) {
+		if (db != null) {
+			db.reset();
+			offer(pools.get().documentBuilders, db);
+		}
+	}
+
+	/**
+	 * Resets an identity Transformer (clearing its parameters and output properties) and returns it to the
+	 * calling thread's pool. Transformers of a stylesheet must not be released here.
+	 */
+	public static void release(Transformer transformer) {
+		if (transformer != null) {
+			transformer.reset();
+			offer(pools.get().transformers, transformer);
+		}
+	}
+
+	/**
+	 * Resets an XPath and returns it to the calling thread's pool.
+	 */
+	public static void release(XPath xpath) {
+		if (xpath != null) {
+			xpath.reset();
+			offer(pools.get().xpaths, xpath);
+		}
+	}
+
+	private static <T> void offer(ArrayDeque<T> pool, T object) {
+		// -- an object released twice must not be handed out twice
+		if (pool.size() < MAX_POOLED && !pool.contains(object)) {
+			pool.addFirst(object);
+		}
+	}
+
+	private TransformerFactory transformerFactory() {
+		if (transformerFactory == null) {
+			TransformerFactory tf = TransformerFactory.newInstance();
+			try {
+				tf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			} catch (TransformerConfigurationException e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+			setAttribute(tf, XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			setAttribute(tf, XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+			transformerFactory = tf;
+		}
+		return transformerFactory;
+	}
+
+	private static DocumentBuilderFactory newDocumentBuilderFactory() {
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		dbf.setXIncludeAware(false);
+		try {
+			dbf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		} catch (ParserConfigurationException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		// -- Xerces features, not supported by every parser (the JAXP access attributes below are)
+		setFeature(dbf, "http://xml.org/sax/features/external-general-entities", false);
+		setFeature(dbf, "http://xml.org/sax/features/external-parameter-entities", false);
+		setFeature(dbf, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		try {
+			dbf.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			dbf.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+		} catch (IllegalArgumentException e) {
+			// -- a JAXP 1.4 parser, which doesn't load external entities with the features above
+		}
+		return dbf;
+	}
+
+	private static SAXParserFactory newSAXParserFactory() {
+		SAXParserFactory spf = SAXParserFactory.newInstance();
+		spf.setNamespaceAware(true);
+		spf.setXIncludeAware(false);
+		try {
+			spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		} catch (Exception e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		// -- Xerces features, as for the DocumentBuilderFactory
+		setFeature(spf, "http://xml.org/sax/features/external-general-entities", false);
+		setFeature(spf, "http://xml.org/sax/features/external-parameter-entities", false);
+		setFeature(spf, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		return spf;
+	}
+
+	private static void setFeature(SAXParserFactory spf, String feature, boolean value) {
+		try {
+			spf.setFeature(feature, value);
+		} catch (Exception e) {
+			// -- not supported by this parser
+		}
+	}
+
+	private static void setProperty(XMLReader reader, String name, String value) {
+		try {
+			reader.setProperty(name, value);
+		} catch (SAXException e) {
+			// -- a JAXP 1.4 parser, which doesn't load external entities with the features above
+		}
+	}
+
+	private static void setFeature(DocumentBuilderFactory dbf, String feature, boolean value) {
+		try {
+			dbf.setFeature(feature, value);
+		} catch (ParserConfigurationException e) {
+			// -- not supported by this parser
+		}
+	}
+
+	private static void setAttribute(TransformerFactory tf, String name, String value) {
+		try {
+			tf.setAttribute(name, value);
+		} catch (IllegalArgumentException e) {
+			// -- a JAXP 1.4 processor, which has no access attributes
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	XMLRowStreamer:
+	  Streaming (StAX) reader of the row oriented XML documents written to flat files by CSVFromXMLToFile
+	  and FixedFromXMLToFile (and see their descriptions for the expected document layout.) The document is
+	  read with a pull parser and each row is handed to a RowHandler as soon as its end tag is read, so
+	  only the current row is held in memory no matter how large the document is.
+
+	  Rows are found the way the previous JDOM implementation walked the tree: every element below the
+	  root that has child elements is a row container, and the child elements without child elements of
+	  a container (the "leaf" elements) are the columns of its row, named by their local name and valued
+	  by their text. At most maxColumns + 1 columns of a row are kept (enough to report a row with too
+	  many columns); the count passed to the handler is the actual number of columns.
+
+	  In mapping mode (constructed with an XPathRowMapping) the rows are instead the elements selected
+	  by the mapping's row XPath, and the columns the values of its column XPaths evaluated against a
+	  DOM tree of the row element alone, so again only one row is held in memory.
+
+	  The document can be read from a string or from a file (the encoding of a file is taken from its
+	  XML declaration.) External entities are not resolved.
+	
+	Inputs:
+	  N/A
+	
+	Output:
+	  N/A
+	
+	Exceptions:
+	  XMLStreamException - Thrown when the document is not well formed.
+	
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.compositesw.extension.CustomProcedureException;
+
+public class XMLRowStreamer {
+
+	// number of bytes buffered when reading from a file
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	public interface RowHandler {
+		/**
+		 * Called for each row, in document order. Only the first min(count, maxColumns + 1) names and
+		 * values are set and the arrays are reused for the next row.
+		 *
+		 * @param names - The local names of the column elements.
+		 * @param values - The text of the column elements.
+		 * @param count - The number of columns in the row.
+		 * @param rowNumber - The number of the row container (1 for the first, 0 for columns of the root element.)
+		 */
+		public void row(String[] names, String[] values, int count, int rowNumber) throws CustomProcedureException, IOException;
+	}
+
+	// -- the columns of an open container
+	private static class Level {
+		final String[] names;
+		final String[] values;
+		int count;
+		int rowNumber;
+
+		Level(int maxColumns) {
+			names = new String[maxColumns + 1];
+			values = new String[maxColumns + 1];
+		}
+	}
+
+	private final int maxColumns;
+	private final XPathRowMapping mapping;
+	private final List<Level> levels = new ArrayList<Level>();
+	private int depth = 0;
+	private int rowNumber = 0;
+
+	public XMLRowStreamer(int maxColumns) {
+		this.maxColumns = Math.max(maxColumns, 0);
+		this.mapping = null;
+	}
+
+	/**
+	 * Creates a streamer in mapping mode.
+	 */
+	public XMLRowStreamer(XPathRowMapping mapping) {
+		this.maxColumns = mapping.getColumnCount();
+		this.mapping = mapping;
+	}
+
+	/**
+	 * Reads the rows of a document and passes them to a handler. The reader is closed.
+	 *
+	 * @return the number of rows read.
+	 */
+	public long stream(XMLStreamReader reader, RowHandler handler) throws XMLStreamException, CustomProcedureException, IOException {
+		if (mapping != null) {
+			return streamMapped(reader, handler);
+		}
+
+		long rows = 0;
+		String pending = null;   // -- the element just started, until it's known to be a column or a container
+		StringBuilder text = new StringBuilder();
+
+		try {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (depth == 0) {
+						open(0);
+					} else {
+						if (pending != null) {
+							open(++rowNumber);
+						}
+						pending = reader.getLocalName();
+						text.setLength(0);
+					}
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if (pending != null) {
+						text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					if (pending != null) {
+						Level level = levels.get(depth - 1);
+						if (level.count <= maxColumns) {
+							level.names[level.count] = pending;
+							level.values[level.count] = text.toString();
+						}
+						level.count++;
+						pending = null;
+					} else {
+						Level level = levels.get(--depth);
+						if (level.count > 0) {
+							handler.row(level.names, level.values, level.count, level.rowNumber);
+							rows++;
+						}
+					}
+					break;
+
+				default:
+					break;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return rows;
+	}
+
+	private long streamMapped(XMLStreamReader reader, RowHandler handler) throws XMLStreamException, CustomProcedureException, IOException {
+		long rows = 0;
+		List<String> path = new ArrayList<String>();
+		String[] names = mapping.getColumnNames();
+		String[] values = new String[mapping.getColumnCount()];
+		Document document = mapping.getDocument();
+		Element row = null;
+		Node current = null;   // -- the element of the row tree being built, null between rows
+
+		try {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (current == null) {
+						path.add(reader.getLocalName());
+						if (!mapping.isRow(path)) {
+							break;
+						}
+						if (row != null) {
+							document.removeChild(row);
+						}
+						row = document.createElement(reader.getLocalName());
+						document.appendChild(row);
+						current = row;
+					} else {
+						current = current.appendChild(document.createElement(reader.getLocalName()));
+					}
+					for (int i = 0; i < reader.getAttributeCount(); i++) {
+						((Element) current).setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+					}
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if (current != null) {
+						current.appendChild(document.createTextNode(reader.getText()));
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					if (current == null) {
+						path.remove(path.size() - 1);
+					} else if (current == row) {
+						try {
+							mapping.evaluate(row, values);
+						} catch (XPathExpressionException e) {
+							throw new CustomProcedureException("ROW[" + (rows + 1) + "]::" + e.getMessage());
+						}
+						handler.row(names, values, values.length, (int) ++rows);
+						current = null;
+						path.remove(path.size() - 1);
+					} else {
+						current = current.getParentNode();
+					}
+					break;
+
+				default:
+					break;
+				}
+			}
+		}
+		finally {
+			if (row != null) {
+				document.removeChild(row);
+			}
+			reader.close();
+		}
+		return rows;
+	}
+
+	private void open(int number) {
+		if (levels.size() == depth) {
+			levels.add(new Level(maxColumns));
+		}
+		Level level = levels.get(depth++);
+		level.count = 0;
+		level.rowNumber = number;
+	}
+
+	/**
+	 * Creates a reader for an XML string.
+	 */
+	public static XMLStreamReader createReader(String xmlString) throws XMLStreamException {
+		return XMLFactories.getInputFactory(true).createXMLStreamReader(new StringReader(xmlString));
+	}
+
+	/**
+	 * Creates a reader for an XML file. Closing the reader doesn't close the file, use closeQuietly().
+	 */
+	public static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+		return XMLFactories.getInputFactory(true).createXMLStreamReader(in);
+	}
+
+	/**
+	 * Opens a buffered stream on a file for createReader().
+	 */
+	public static InputStream openFile(String filePath) throws IOException {
+		return new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE);
+	}
+
+	public static void closeQuietly(Closeable in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// -- nothing to do
+			}
+		}
+	}
+}
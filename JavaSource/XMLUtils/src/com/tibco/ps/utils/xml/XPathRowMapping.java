@@ -0,0 +1,330 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	XPathRowMapping:
+	  Compiled row and column XPaths for the mapping mode of CSVFromXMLToFile and FixedFromXMLToFile, in
+	  which the rows of the output are the elements selected by a row XPath and each column is the string
+	  value of an XPath relative to the row element, so optional, repeated or reordered elements don't
+	  break the rows (as they do when columns are taken from the leaf elements in document order.)
+
+	  The document is still streamed (see XMLRowStreamer): the row XPath is matched against the path of
+	  each element as it is read, and only the element of the current row is built as a small DOM tree
+	  that the column XPaths are evaluated against. For this the row XPath must be a simple location path
+	  of element names, either absolute (/Customers/row) or starting with // to match at any depth (//row),
+	  with * matching any element. Elements inside a row are never matched as rows themselves.
+
+	  Namespaces are ignored: the row tree is built with the local names of the elements and attributes,
+	  and both the row and the column XPaths use local names. Prefixes in the row XPath and in simple column
+	  XPaths (p1:address/p1:city, @p1:type) are dropped; other column XPaths must not use prefixes.
+
+	  Column XPaths that are simple relative paths of element names (name, address/city, *, .) optionally
+	  ending with an attribute (@type, address/@type) or text() are evaluated by walking the row tree
+	  directly; other expressions go through javax.xml.xpath, which is considerably slower per row.
+
+	  Compiling XPath expressions is expensive and XPathExpression is not thread-safe, so each thread
+	  keeps its MAX_ENTRIES most recently used mappings (see get().)
+	
+	Inputs:
+	  N/A
+	
+	Output:
+	  N/A
+	
+	Exceptions:
+	  IllegalArgumentException - Thrown when the row XPath is not a simple path or a column XPath doesn't compile.
+	
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class XPathRowMapping {
+
+	// establish the max number of mappings cached by each thread
+	public static final int MAX_ENTRIES = 32;
+
+	private static final ThreadLocal<Map<String, XPathRowMapping>> mappings = new ThreadLocal<Map<String, XPathRowMapping>>() {
+		@Override
+		protected Map<String, XPathRowMapping> initialValue() {
+			return new LinkedHashMap<String, XPathRowMapping>(MAX_ENTRIES, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, XPathRowMapping> eldest) {
+					return size() > MAX_ENTRIES;
+				}
+			};
+		}
+	};
+
+	private final String[] steps;
+	private final boolean anyDepth;
+	private final String[] columnNames;
+	private final XPathExpression[] columns;
+	private final String[][] simpleColumns;
+	private final Document document;
+
+	private XPathRowMapping(String rowXPath, String[] columnXPaths) {
+		String path = rowXPath.trim();
+		anyDepth = path.startsWith("//");
+		if (!path.startsWith("/")) {
+			throw new IllegalArgumentException("The row XPath must be an absolute path like /Customers/row or start with // like //row: " + rowXPath);
+		}
+		steps = path.substring(anyDepth ? 2 : 1).split("/", -1);
+		for (int i = 0; i < steps.length; i++) {
+			String step = steps[i].trim();
+			int colon = step.indexOf(':');
+			if (colon >= 0) {
+				step = step.substring(colon + 1);
+			}
+			if (step.length() == 0 || !(step.equals("*") || isName(step))) {
+				throw new IllegalArgumentException("The row XPath must be a simple path of element names like /Customers/row or //row: " + rowXPath);
+			}
+			steps[i] = step;
+		}
+
+		columnNames = new String[columnXPaths.length];
+		columns = new XPathExpression[columnXPaths.length];
+		simpleColumns = new String[columnXPaths.length][];
+		XPath xpath = XMLFactories.acquireXPath();
+		try {
+			for (int i = 0; i < columnXPaths.length; i++) {
+				columnNames[i] = columnXPaths[i].trim();
+				simpleColumns[i] = parseSimplePath(columnNames[i]);
+				if (simpleColumns[i] != null) {
+					continue;
+				}
+				try {
+					columns[i] = xpath.compile(columnNames[i]);
+				} catch (XPathExpressionException e) {
+					throw new IllegalArgumentException("Invalid column XPath \"" + columnNames[i] + "\" (namespaces are ignored, use names without prefixes): " + e.getMessage());
+				}
+			}
+		} finally {
+			XMLFactories.release(xpath);
+		}
+
+		DocumentBuilder db = XMLFactories.acquireDocumentBuilder();
+		document = db.newDocument();
+		XMLFactories.release(db);
+	}
+
+	/**
+	 * Returns the calling thread's compiled mapping for a row XPath and comma separated column XPaths.
+	 */
+	public static XPathRowMapping get(String rowXPath, String columnXPaths) {
+		String key = rowXPath + '\n' + columnXPaths;
+		Map<String, XPathRowMapping> cache = mappings.get();
+		XPathRowMapping mapping = cache.get(key);
+		if (mapping == null) {
+			mapping = new XPathRowMapping(rowXPath, splitColumns(columnXPaths));
+			cache.put(key, mapping);
+		}
+		return mapping;
+	}
+
+	/**
+	 * Splits a list of XPaths at the commas that are not inside parentheses, brackets or string literals
+	 * (XPath 1.0 only uses commas between function arguments.)
+	 */
+	public static String[] splitColumns(String columnXPaths) {
+		List<String> list = new ArrayList<String>();
+		int depth = 0;
+		char quote = 0;
+		int start = 0;
+		for (int i = 0; i < columnXPaths.length(); i++) {
+			char c = columnXPaths.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '\'' || c == '"') {
+				quote = c;
+			} else if (c == '(' || c == '[') {
+				depth++;
+			} else if (c == ')' || c == ']') {
+				depth--;
+			} else if (c == ',' && depth == 0) {
+				list.add(columnXPaths.substring(start, i));
+				start = i + 1;
+			}
+		}
+		list.add(columnXPaths.substring(start));
+
+		for (String column : list) {
+			if (column.trim().length() == 0) {
+				throw new IllegalArgumentException("Empty column XPath in \"" + columnXPaths + "\".");
+			}
+		}
+		return list.toArray(new String[list.size()]);
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Returns the column XPaths (used as the column headers.)
+	 */
+	public String[] getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Returns true if an element with the given path of local names (root first) is a row.
+	 */
+	public boolean isRow(List<String> path) {
+		int n = path.size();
+		if (anyDepth ? n < steps.length : n != steps.length) {
+			return false;
+		}
+		for (int i = steps.length - 1, j = n - 1; i >= 0; i--, j--) {
+			if (!steps[i].equals("*") && !steps[i].equals(path.get(j))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the document the row trees are built in. It holds one row at a time.
+	 */
+	public Document getDocument() {
+		return document;
+	}
+
+	/**
+	 * Evaluates the column XPaths against a row element of getDocument().
+	 */
+	public void evaluate(Element row, String[] values) throws XPathExpressionException {
+		for (int i = 0; i < columns.length; i++) {
+			if (simpleColumns[i] != null) {
+				String value = evaluate(row, simpleColumns[i], 0);
+				values[i] = (value == null) ? "" : value;
+			} else {
+				values[i] = columns[i].evaluate(row);
+			}
+		}
+	}
+
+	/**
+	 * Returns the string value of the first node selected by steps[step..] from a node, or null if none
+	 * is selected. Child elements are visited in document order, so the first match is the first in
+	 * document order (as for the XPath string() of a node set.)
+	 */
+	private static String evaluate(Node node, String[] steps, int step) {
+		if (step == steps.length) {
+			return node.getTextContent();
+		}
+		String name = steps[step];
+		if (name.startsWith("@")) {
+			Attr attr = ((Element) node).getAttributeNode(name.substring(1));
+			return (attr == null) ? null : attr.getValue();
+		}
+		if (name.equals("text()")) {
+			for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if (child.getNodeType() == Node.TEXT_NODE) {
+					return child.getNodeValue();
+				}
+			}
+			return null;
+		}
+		if (name.equals(".")) {
+			return evaluate(node, steps, step + 1);
+		}
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE && (name.equals("*") || name.equals(child.getNodeName()))) {
+				String value = evaluate(child, steps, step + 1);
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the steps of a simple relative path (element names, * and ., optionally ending with @name or
+	 * text()), or null for any other expression.
+	 */
+	private static String[] parseSimplePath(String xpath) {
+		if (xpath.length() == 0 || xpath.startsWith("/") || xpath.endsWith("/")) {
+			return null;
+		}
+		String[] steps = xpath.split("/", -1);
+		for (int i = 0; i < steps.length; i++) {
+			String step = steps[i].trim();
+			boolean last = (i == steps.length - 1);
+			if (step.startsWith("@")) {
+				step = "@" + stripPrefix(step.substring(1));
+			} else {
+				step = stripPrefix(step);
+			}
+			if (step.equals("*") || step.equals(".") || isName(step)) {
+				// -- element step
+			} else if (last && (step.equals("text()") || (step.startsWith("@") && isName(step.substring(1))))) {
+				// -- attribute or text step
+			} else {
+				return null;
+			}
+			steps[i] = step;
+		}
+		return steps;
+	}
+
+	/**
+	 * Returns a name test without its prefix (p1:name becomes name, p1:* becomes *.)
+	 */
+	private static String stripPrefix(String step) {
+		int colon = step.indexOf(':');
+		if (colon > 0 && isName(step.substring(0, colon))) {
+			return step.substring(colon + 1);
+		}
+		return step;
+	}
+
+	private static boolean isName(String s) {
+		if (s.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.')) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
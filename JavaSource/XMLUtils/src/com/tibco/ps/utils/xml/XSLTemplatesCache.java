@@ -0,0 +1,184 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/*
+	XSLTemplatesCache:
+	  Cache of compiled XSLT stylesheets (javax.xml.transform.Templates) used by XSLTransform. Compiling a
+	  stylesheet is most of the cost of a transformation of a small document, while a Templates object is
+	  thread-safe and creates Transformers cheaply, so each stylesheet is only compiled once.
+
+	  A stylesheet passed as a string is keyed by its length and hash code, and the cached text is compared
+	  on each hit so that a hash collision can never use the wrong stylesheet. A stylesheet file is keyed by
+	  its canonical path and compiled again when its modification time or length changes (relative
+	  xsl:include and xsl:import references are resolved against the file. Only the file itself is checked,
+	  a change to an included stylesheet is picked up once the file changes or clear() is called.)
+
+	  Stylesheets are compiled with secure processing (no extension functions) and without access to
+	  external DTDs and stylesheets (see XMLFactories), except that a stylesheet file can include and
+	  import other local files. Stylesheet strings can't include or import anything.
+
+	  The cache is shared by all threads and holds at most MAX_ENTRIES stylesheets, dropping the least
+	  recently used one. Two threads missing the same stylesheet at once may both compile it.
+	
+	Inputs:
+	  N/A
+	
+	Output:
+	  N/A
+	
+	Exceptions:
+	  TransformerConfigurationException - Thrown when the stylesheet can't be compiled.
+	  IOException - Thrown when the stylesheet file can't be read.
+	
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+public class XSLTemplatesCache {
+
+	// -- establish the max number of compiled stylesheets cached
+	public static final int MAX_ENTRIES = 64;
+
+	private static class CachedTemplates {
+		final String stylesheet;    // -- the text of a stylesheet string, null for a file
+		final long lastModified;
+		final long length;
+		final Templates templates;
+
+		CachedTemplates(String stylesheet, long lastModified, long length, Templates templates) {
+			this.stylesheet = stylesheet;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.templates = templates;
+		}
+	}
+
+	private static final Map<String, CachedTemplates> cache = new LinkedHashMap<String, CachedTemplates>(MAX_ENTRIES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedTemplates> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private static final URIResolver localFiles = new URIResolver() {
+		public Source resolve(String href, String base) {
+			try {
+				URI uri = (base == null) ? new URI(href) : new URI(base).resolve(href);
+				if ("file".equals(uri.getScheme())) {
+					return new StreamSource(uri.toString());
+				}
+			} catch (URISyntaxException e) {
+				// -- left to the factory, which refuses it
+			}
+			return null;
+		}
+	};
+
+	private XSLTemplatesCache() {
+	}
+
+	/**
+	 * Returns the compiled form of a stylesheet.
+	 */
+	public static Templates get(String stylesheet) throws TransformerConfigurationException {
+		String key = "xsl:" + stylesheet.length() + ':' + Integer.toHexString(stylesheet.hashCode());
+		CachedTemplates e = lookup(key);
+		if (e == null || !e.stylesheet.equals(stylesheet)) {
+			e = new CachedTemplates(stylesheet, 0, stylesheet.length(), compile(new StreamSource(new StringReader(stylesheet)), false));
+			store(key, e);
+		}
+		return e.templates;
+	}
+
+	/**
+	 * Returns the compiled form of a stylesheet file.
+	 */
+	public static Templates getFile(String path) throws TransformerConfigurationException, IOException {
+		File file = new File(path).getCanonicalFile();
+		if (!file.isFile()) {
+			throw new FileNotFoundException("The stylesheet file \"" + path + "\" does not exist.");
+		}
+		long lastModified = file.lastModified();
+		long length = file.length();
+
+		String key = "file:" + file.getPath();
+		CachedTemplates e = lookup(key);
+		if (e == null || e.lastModified != lastModified || e.length != length) {
+			e = new CachedTemplates(null, lastModified, length, compile(new StreamSource(file), true));
+			store(key, e);
+		}
+		return e.templates;
+	}
+
+	/**
+	 * Empties the cache.
+	 */
+	public static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	private static CachedTemplates lookup(String key) {
+		synchronized (cache) {
+			return cache.get(key);
+		}
+	}
+
+	private static void store(String key, CachedTemplates e) {
+		synchronized (cache) {
+			cache.put(key, e);
+		}
+	}
+
+	private static Templates compile(Source source, boolean file) throws TransformerConfigurationException {
+		// -- the factory is the calling thread's, compiling doesn't hold the cache's lock
+		TransformerFactory factory = XMLFactories.getTransformerFactory();
+		if (!file) {
+			return factory.newTemplates(source);
+		}
+		// -- the factory doesn't access external stylesheets, the includes and imports of a stylesheet file
+		//    are resolved here (to local files only)
+		factory.setURIResolver(localFiles);
+		try {
+			return factory.newTemplates(source);
+		} finally {
+			factory.setURIResolver(null);
+		}
+	}
+}
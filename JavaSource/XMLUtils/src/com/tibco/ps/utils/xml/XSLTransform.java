@@ -0,0 +1,191 @@
+package com.tibco.ps.utils.xml;
+
+/**
+ * (c) 2017 TIBCO Software Inc. All rights reserved.
+ * 
+ * Except as specified below, this software is licensed pursuant to the Eclipse Public License v. 1.0.
+ * The details can be found in the file LICENSE.
+ * 
+ * The following proprietary files are included as a convenience, and may not be used except pursuant
+ * to valid license to Composite Information Server or TIBCO(R) Data Virtualization Server:
+ * csadmin-XXXX.jar, csarchive-XXXX.jar, csbase-XXXX.jar, csclient-XXXX.jar, cscommon-XXXX.jar,
+ * csext-XXXX.jar, csjdbc-XXXX.jar, csserverutil-XXXX.jar, csserver-XXXX.jar, cswebapi-XXXX.jar,
+ * and customproc-XXXX.jar (where -XXXX is an optional version number).  Any included third party files
+ * are licensed under the terms contained in their own accompanying LICENSE files, generally named .LICENSE.txt.
+ * 
+ * This software is licensed AS-IS. Support for this software is not covered by standard maintenance agreements with TIBCO.
+ * If you would like to obtain assistance with this software, such assistance may be obtained through a separate paid consulting
+ * agreement with TIBCO.
+ * 
+ */
+
+
+/* 
+	XSLTransform:
+	
+	This CJP transforms an XML document with an XSLT stylesheet. Stylesheets are compiled once and cached (see
+	XSLTemplatesCache), so a call only pays for the transformation itself. The document is read from its
+	string, file or BLOB (BLOBs in chunks) and the result is returned as a string or streamed to an output file.
+
+	The document is streamed to the transformer by the SAX parser of the XMLUtils CJPs, so it is only held
+	in memory once, as the transformer's own tree. The parser doesn't load external DTDs or entities, and
+	stylesheets run with secure processing: extension functions and document() references to other files
+	or URLs are not available (see XMLFactories.)
+	
+	
+	Input:
+	  xml_string - The XML document to transform.
+	    Values: Any XML document, or NULL when xml_file_path or xml_blob is provided.
+	
+	  xml_file_path - Full path to a file containing the XML document to transform.
+	    Values: Any file path, or NULL when xml_string or xml_blob is provided.
+	
+	  xml_blob - The XML document to transform, as bytes (in the encoding given by its XML declaration.)
+	    Values: Any XML document, or NULL when xml_string or xml_file_path is provided.
+	
+	  xsl_string - The XSLT stylesheet.
+	    Values: Any XSLT 1.0 stylesheet, or NULL when xsl_file_path is provided.
+	
+	  xsl_file_path - Full path to a file containing the XSLT stylesheet. The file is compiled again when it
+	                  changes and relative includes and imports are resolved against it.
+	    Values: Any file path, or NULL when xsl_string is provided.
+	
+	  output_file_path - Full path to a file to write the result to (in the encoding of the stylesheet's
+	                     xsl:output, UTF-8 by default.) The file is overwritten, and deleted when the
+	                     transformation fails.
+	    Values: NULL to return the result as a string.
+	
+	
+	Output:
+	  result - The transformed document.
+	    Values: Any text, or NULL when output_file_path is provided.
+	
+	
+	Exceptions:
+	  CustomProcedureException - Thrown when the inputs are invalid, the stylesheet can't be compiled, a file
+	                             can't be read or written or the transformation fails.
+	
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.InputSource;
+
+import com.compositesw.common.logging.Logger;
+import com.compositesw.extension.CustomProcedure;
+import com.compositesw.extension.CustomProcedureException;
+import com.compositesw.extension.ParameterInfo;
+
+public class XSLTransform extends XMLUtilTemplate implements CustomProcedure {
+
+	static {
+		className = "XSLTransform";
+		logger = Logger.getLogger(XSLTransform.class.getName());
+	}
+
+	private String result = null;
+
+	public XSLTransform() {}
+
+	public ParameterInfo[] getParameterInfo() {
+		return new ParameterInfo[] {
+			new ParameterInfo("xml_string", Types.LONGVARCHAR, DIRECTION_IN),
+			new ParameterInfo("xml_file_path", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("xml_blob", Types.BLOB, DIRECTION_IN),
+			new ParameterInfo("xsl_string", Types.LONGVARCHAR, DIRECTION_IN),
+			new ParameterInfo("xsl_file_path", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("output_file_path", Types.VARCHAR, DIRECTION_IN),
+			new ParameterInfo("result", Types.LONGVARCHAR, DIRECTION_OUT)
+		};
+	}
+
+	public void invoke(Object[] inputValues) throws CustomProcedureException, SQLException {
+		String xmlString = (String) inputValues[0];
+		String xmlFilePath = (String) inputValues[1];
+		Object xmlBlob = inputValues[2];
+		String xslString = (String) inputValues[3];
+		String xslFilePath = (String) inputValues[4];
+		String outputFilePath = (String) inputValues[5];
+
+		int sources = (xmlString == null ? 0 : 1) + (xmlFilePath == null ? 0 : 1) + (xmlBlob == null ? 0 : 1);
+		if (sources != 1) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": exactly one of the IN Parameters xml_string, xml_file_path and xml_blob must be provided.");
+		}
+		if ((xslString == null) == (xslFilePath == null)) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": exactly one of the IN Parameters xsl_string and xsl_file_path must be provided.");
+		}
+
+		InputStream in = null;
+		OutputStream out = null;
+		boolean ok = false;
+		try {
+			Templates templates = (xslFilePath != null) ? XSLTemplatesCache.getFile(xslFilePath.trim()) : XSLTemplatesCache.get(xslString);
+
+			// -- parsed by the hardened parser rather than the transformer's own
+			InputSource is;
+			if (xmlFilePath != null) {
+				File file = new File(xmlFilePath.trim());
+				in = XMLRowStreamer.openFile(file.getPath());
+				is = new InputSource(in);
+				is.setSystemId(file.toURI().toString());
+			} else if (xmlBlob != null) {
+				in = (xmlBlob instanceof Blob) ? new BlobInputStream((Blob) xmlBlob, XMLRowStreamer.BUFFER_SIZE) : new ByteArrayInputStream((byte[]) xmlBlob);
+				is = new InputSource(in);
+			} else {
+				is = new InputSource(new StringReader(xmlString));
+			}
+			SAXSource source = new SAXSource(XMLFactories.newXMLReader(), is);
+
+			if (qenv != null) {
+				qenv.log(LOG_DEBUG, className + ": Transforming " + (xmlFilePath != null ? "file \"" + xmlFilePath + "\"" : xmlBlob != null ? "BLOB" : xmlString.length() + " characters of XML")
+						+ " with " + (xslFilePath != null ? "stylesheet file \"" + xslFilePath + "\"" : "stylesheet string"));
+			}
+
+			if (outputFilePath != null) {
+				out = new BufferedOutputStream(new FileOutputStream(outputFilePath.trim()), XMLRowStreamer.BUFFER_SIZE);
+				templates.newTransformer().transform(source, new StreamResult(out));
+				out.close();
+				out = null;
+			} else {
+				StringWriter sw = new StringWriter();
+				templates.newTransformer().transform(source, new StreamResult(sw));
+				result = sw.toString();
+			}
+			ok = true;
+		} catch (TransformerException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.getMessageAndLocation());
+		} catch (IOException e) {
+			throw new CustomProcedureException("Error in CJP " + getName() + ": " + e.toString());
+		} finally {
+			XMLRowStreamer.closeQuietly(in);
+			XMLRowStreamer.closeQuietly(out);
+			if (!ok && outputFilePath != null) {
+				new File(outputFilePath.trim()).delete();
+			}
+		}
+	}
+
+	public Object[] getOutputValues() {
+		return new Object[] { result };
+	}
+
+	public String getDescription() {
+		return "Transforms an XML string, file or BLOB with a cached compiled XSLT stylesheet, returning the result or writing it to a file.";
+	}
+}